@@ -0,0 +1,605 @@
+/*
+ * AnsiBuffer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import com.github.toolarium.ansi.metrics.AnsiMetrics;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * The character buffer of an {@link AnsiStringBuilder}. Escape sequences and most texts are Latin-1, as long as only
+ * Latin-1 characters are appended they are stored in a {@code byte[]}; the buffer is inflated to a {@code char[]} with
+ * the first character above 0xFF. The buffer grows by a configurable factor and can be written to an {@link OutputStream}
+ * without creating a {@link String}.
+ *
+ * @author patrick
+ */
+public final class AnsiBuffer implements CharSequence, Appendable {
+    /** The default initial capacity */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    /** The default growth factor */
+    public static final float DEFAULT_GROWTH_FACTOR = 1.5f;
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private static final int WRITE_CHUNK_SIZE = 8192;
+    private final float growthFactor;
+    private byte[] latin1;
+    private char[] utf16;
+    private int length;
+    private boolean ascii;
+    private int modificationCount;
+
+    
+    /**
+     * Constructor for AnsiBuffer
+     */
+    public AnsiBuffer() {
+        this(DEFAULT_CAPACITY, DEFAULT_GROWTH_FACTOR);
+    }
+
+    
+    /**
+     * Constructor for AnsiBuffer
+     *
+     * @param capacity the initial capacity
+     */
+    public AnsiBuffer(int capacity) {
+        this(capacity, DEFAULT_GROWTH_FACTOR);
+    }
+
+    
+    /**
+     * Constructor for AnsiBuffer
+     *
+     * @param capacity the initial capacity
+     * @param growthFactor the factor by which the capacity grows, must be greater than 1
+     * @throws IllegalArgumentException In case of an invalid capacity or growth factor
+     */
+    public AnsiBuffer(int capacity, float growthFactor) throws IllegalArgumentException {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid negative capacity.");
+        }
+
+        if (!(growthFactor > 1.0f)) {
+            throw new IllegalArgumentException("The growth factor must be greater than 1.");
+        }
+
+        this.growthFactor = growthFactor;
+        this.latin1 = new byte[capacity];
+        this.utf16 = null;
+        this.length = 0;
+        this.ascii = true;
+    }
+
+    
+    /**
+     * Appends a character
+     *
+     * @param c the character
+     * @return the AnsiBuffer
+     */
+    @Override
+    public AnsiBuffer append(char c) {
+        ensureCapacityInternal(length + 1);
+        put(c);
+        return this;
+    }
+
+    
+    /**
+     * Appends a character sequence
+     *
+     * @param charSequence the character sequence, null appends "null"
+     * @return the AnsiBuffer
+     */
+    @Override
+    public AnsiBuffer append(CharSequence charSequence) {
+        if (charSequence == null) {
+            return append("null", 0, 4);
+        }
+
+        return append(charSequence, 0, charSequence.length());
+    }
+
+    
+    /**
+     * Appends a subsequence of a character sequence
+     *
+     * @param charSequence the character sequence, null appends "null"
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return the AnsiBuffer
+     */
+    @Override
+    public AnsiBuffer append(CharSequence charSequence, int start, int end) {
+        CharSequence value = charSequence == null ? "null" : charSequence;
+        if (start < 0 || start > end || end > value.length()) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + "-" + end + " of length " + value.length() + ".");
+        }
+
+        ensureCapacityInternal(length + end - start);
+        if (utf16 != null && value instanceof String) {
+            ((String) value).getChars(start, end, utf16, length);
+            length += end - start;
+            return this;
+        }
+
+        if (value instanceof AnsiBuffer) {
+            AnsiBuffer other = (AnsiBuffer) value;
+            if (utf16 == null && other.utf16 == null) {
+                System.arraycopy(other.latin1, start, latin1, length, end - start);
+                length += end - start;
+                ascii = ascii && other.ascii;
+                return this;
+            }
+
+            if (utf16 != null && other.utf16 != null) {
+                System.arraycopy(other.utf16, start, utf16, length, end - start);
+                length += end - start;
+                return this;
+            }
+        }
+
+        for (int i = start; i < end; i++) {
+            put(value.charAt(i));
+        }
+        return this;
+    }
+
+    
+    /**
+     * Appends the string representation of an object, integers and characters are appended without an intermediate string
+     *
+     * @param value the value
+     * @return the AnsiBuffer
+     */
+    public AnsiBuffer append(Object value) {
+        if (value instanceof CharSequence) {
+            return append((CharSequence) value);
+        }
+
+        if (value instanceof Integer) {
+            return append(((Integer) value).intValue());
+        }
+
+        if (value instanceof Long) {
+            return append(((Long) value).longValue());
+        }
+
+        if (value instanceof Character) {
+            return append(((Character) value).charValue());
+        }
+
+        return append(String.valueOf(value));
+    }
+
+    
+    /**
+     * Appends the decimal representation of an integer without an intermediate string
+     *
+     * @param value the value
+     * @return the AnsiBuffer
+     */
+    public AnsiBuffer append(int value) {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                return append("-2147483648");
+            }
+
+            append('-');
+            return append(-value);
+        }
+
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+
+        ensureCapacityInternal(length + digits);
+        int position = length + digits;
+        int v = value;
+        do {
+            position--;
+            if (utf16 != null) {
+                utf16[position] = (char) ('0' + v % 10);
+            } else {
+                latin1[position] = (byte) ('0' + v % 10);
+            }
+            v /= 10;
+        } while (v > 0);
+
+        length += digits;
+        return this;
+    }
+
+    
+    /**
+     * Appends the decimal representation of a long without an intermediate string
+     *
+     * @param value the value
+     * @return the AnsiBuffer
+     */
+    public AnsiBuffer append(long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return append((int) value);
+        }
+
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return append("-9223372036854775808");
+            }
+
+            append('-');
+            return append(-value);
+        }
+
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+
+        ensureCapacityInternal(length + digits);
+        int position = length + digits;
+        long v = value;
+        do {
+            position--;
+            if (utf16 != null) {
+                utf16[position] = (char) ('0' + v % 10);
+            } else {
+                latin1[position] = (byte) ('0' + v % 10);
+            }
+            v /= 10;
+        } while (v > 0);
+
+        length += digits;
+        return this;
+    }
+
+    
+    /**
+     * Appends a code point
+     *
+     * @param codePoint the code point
+     * @return the AnsiBuffer
+     */
+    public AnsiBuffer appendCodePoint(int codePoint) {
+        if (Character.isBmpCodePoint(codePoint)) {
+            return append((char) codePoint);
+        }
+
+        ensureCapacityInternal(length + 2);
+        put(Character.highSurrogate(codePoint));
+        put(Character.lowSurrogate(codePoint));
+        return this;
+    }
+
+    
+    /**
+     * @see java.lang.CharSequence#length()
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    
+    /**
+     * @see java.lang.CharSequence#charAt(int)
+     */
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Invalid index " + index + " of length " + length + ".");
+        }
+
+        if (utf16 != null) {
+            return utf16[index];
+        }
+        return (char) (latin1[index] & 0xff);
+    }
+
+    
+    /**
+     * @see java.lang.CharSequence#subSequence(int, int)
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    
+    /**
+     * Get a part of the buffer
+     *
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return the string
+     */
+    public String substring(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + "-" + end + " of length " + length + ".");
+        }
+
+        if (utf16 != null) {
+            return new String(utf16, start, end - start);
+        }
+        return new String(latin1, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    
+    /**
+     * Set the length of the buffer, new characters are '\0'
+     *
+     * @param newLength the new length
+     */
+    public void setLength(int newLength) {
+        if (newLength < 0) {
+            throw new IndexOutOfBoundsException("Invalid negative length.");
+        }
+
+        ensureCapacityInternal(newLength);
+        if (newLength > length) {
+            if (utf16 != null) {
+                Arrays.fill(utf16, length, newLength, '\0');
+            } else {
+                Arrays.fill(latin1, length, newLength, (byte) 0);
+            }
+        }
+        length = newLength;
+    }
+
+    
+    /**
+     * Ensures that the capacity is at least equal to the specified minimum.
+     *
+     * @param minimumCapacity the minimum capacity
+     */
+    public void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity > 0) {
+            ensureCapacityInternal(minimumCapacity);
+        }
+    }
+
+    
+    /**
+     * Reduces the storage to the current length.
+     */
+    public void trimToSize() {
+        if (utf16 != null) {
+            if (utf16.length > length) {
+                utf16 = Arrays.copyOf(utf16, length);
+            }
+        } else if (latin1.length > length) {
+            latin1 = Arrays.copyOf(latin1, length);
+        }
+    }
+
+    
+    /**
+     * Get the current capacity
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return utf16 != null ? utf16.length : latin1.length;
+    }
+
+    
+    /**
+     * Get the growth factor
+     *
+     * @return the growth factor
+     */
+    public float getGrowthFactor() {
+        return growthFactor;
+    }
+
+    
+    /**
+     * Check if the content is stored as Latin-1
+     *
+     * @return true if all characters are Latin-1
+     */
+    public boolean isLatin1() {
+        return utf16 == null;
+    }
+
+    
+    /**
+     * Write the content encoded with the charset to a stream. Content which is US-ASCII or Latin-1 in a Latin-1
+     * compatible charset is copied directly.
+     *
+     * @param outputStream the stream
+     * @param charset the charset
+     * @throws IOException In case of an I/O error
+     */
+    public void writeTo(OutputStream outputStream, Charset charset) throws IOException {
+        if (utf16 == null && (StandardCharsets.ISO_8859_1.equals(charset) || (ascii && isAsciiCompatible(charset)))) {
+            outputStream.write(latin1, 0, length);
+            return;
+        }
+
+        CharsetEncoder encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(WRITE_CHUNK_SIZE);
+        CharBuffer chars = utf16 != null ? CharBuffer.wrap(utf16, 0, length) : CharBuffer.wrap(this);
+        CoderResult result;
+        do {
+            result = encoder.encode(chars, bytes, true);
+            flush(bytes, outputStream);
+        } while (result.isOverflow());
+
+        do {
+            result = encoder.flush(bytes);
+            flush(bytes, outputStream);
+        } while (result.isOverflow());
+    }
+
+    
+    /**
+     * Encode the content with the charset. Content which is US-ASCII or Latin-1 in a Latin-1 compatible charset is
+     * copied directly, unmappable characters are replaced.
+     *
+     * @param charset the charset
+     * @return the encoded content
+     */
+    public ByteBuffer encode(Charset charset) {
+        if (utf16 == null && (StandardCharsets.ISO_8859_1.equals(charset) || (ascii && isAsciiCompatible(charset)))) {
+            return ByteBuffer.wrap(Arrays.copyOf(latin1, length));
+        }
+
+        return charset.encode(utf16 != null ? CharBuffer.wrap(utf16, 0, length) : CharBuffer.wrap(this));
+    }
+
+    
+    /**
+     * Write the content to a writer
+     *
+     * @param writer the writer
+     * @throws IOException In case of an I/O error
+     */
+    public void writeTo(Writer writer) throws IOException {
+        if (utf16 != null) {
+            writer.write(utf16, 0, length);
+            return;
+        }
+
+        char[] chunk = new char[Math.min(length, WRITE_CHUNK_SIZE)];
+        for (int position = 0; position < length; position += chunk.length) {
+            int count = Math.min(chunk.length, length - position);
+            for (int i = 0; i < count; i++) {
+                chunk[i] = (char) (latin1[position + i] & 0xff);
+            }
+            writer.write(chunk, 0, count);
+        }
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return substring(0, length);
+    }
+
+    
+    /**
+     * Get the modification count, it changes on every modification of the buffer
+     *
+     * @return the modification count
+     */
+    int getModificationCount() {
+        return modificationCount;
+    }
+
+    
+    /**
+     * Store a character, the capacity must be ensured
+     *
+     * @param c the character
+     */
+    private void put(char c) {
+        if (utf16 != null) {
+            utf16[length++] = c;
+            return;
+        }
+
+        if (c > 0xff) {
+            inflate(latin1.length);
+            utf16[length++] = c;
+            ascii = false;
+            return;
+        }
+
+        if (c > 0x7f) {
+            ascii = false;
+        }
+        latin1[length++] = (byte) c;
+    }
+
+    
+    /**
+     * Ensure the capacity, the storage grows by the growth factor
+     *
+     * @param minimumCapacity the minimum capacity
+     */
+    private void ensureCapacityInternal(int minimumCapacity) {
+        if (minimumCapacity < 0 || minimumCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Required buffer size too large.");
+        }
+
+        // all modifications ensure the capacity first
+        modificationCount++;
+
+        int capacity = capacity();
+        if (minimumCapacity <= capacity) {
+            return;
+        }
+
+        long grown = (long) (capacity * (double) growthFactor) + 1;
+        int newCapacity = (int) Math.min(MAX_CAPACITY, Math.max(minimumCapacity, grown));
+        if (utf16 != null) {
+            utf16 = Arrays.copyOf(utf16, newCapacity);
+        } else {
+            latin1 = Arrays.copyOf(latin1, newCapacity);
+        }
+
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordBufferGrowth();
+        }
+    }
+
+    
+    /**
+     * Inflate the Latin-1 storage to UTF-16
+     *
+     * @param capacity the capacity
+     */
+    private void inflate(int capacity) {
+        char[] chars = new char[capacity];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (latin1[i] & 0xff);
+        }
+        utf16 = chars;
+        latin1 = null;
+    }
+
+    
+    /**
+     * Check if a charset encodes US-ASCII as single bytes
+     *
+     * @param charset the charset
+     * @return true if it is compatible
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset) || "windows-1252".equals(charset.name());
+    }
+
+    
+    /**
+     * Write the encoded bytes
+     *
+     * @param bytes the bytes
+     * @param outputStream the stream
+     * @throws IOException In case of an I/O error
+     */
+    private static void flush(ByteBuffer bytes, OutputStream outputStream) throws IOException {
+        bytes.flip();
+        outputStream.write(bytes.array(), 0, bytes.limit());
+        bytes.clear();
+    }
+}
@@ -6,9 +6,12 @@
 package com.github.toolarium.ansi;
 
 
+import com.github.toolarium.ansi.metrics.AnsiMetrics;
 import com.github.toolarium.ansi.util.OSUtil;
 import com.github.toolarium.ansi.util.TerminalUtil;
 import java.lang.reflect.Field;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,10 +63,8 @@ public enum AnsiColor {
     public static final String ANSI_STOP_ESCAPE_SEQUENCE = "m";
     
     private static final Logger LOG = LoggerFactory.getLogger(AnsiColor.class);
-    private Boolean jansiInstalled;
-    private Boolean autoDetect;
-    private Boolean toolariumTty;
-    private String tooalriumSystemProperty;
+    private static final int PROCESS_CONSOLE = -1;
+    private final AtomicReference<DetectionState> detectionState = new AtomicReference<>(DetectionState.INITIAL);
 
     
     /** 
@@ -85,36 +86,48 @@ public enum AnsiColor {
             return false;
         }
         
-        if (tooalriumSystemProperty == null || !tooalriumSystemProperty.equals(System.getProperty(TOOLARIUM_ANSI))) {
-            tooalriumSystemProperty = System.getProperty(TOOLARIUM_ANSI);
-            
-            if (tooalriumSystemProperty != null) {
-                LOG.debug("Toolarim ansi setting: " + tooalriumSystemProperty);
-            }
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordDetection();
         }
-        
-        if (tooalriumSystemProperty == null || "AUTO".equalsIgnoreCase(tooalriumSystemProperty.trim())) {
-            if (autoDetect == null) {
-                autoDetect = doAutodetect();
-                LOG.debug("Ansi auto detection result: " + autoDetect);
-            }
-            return autoDetect;
+
+        String systemProperty = System.getProperty(TOOLARIUM_ANSI);
+        DetectionState state = detectionState.get();
+        if (state.isValid(systemProperty)) {
+            return state.enabled;
         }
 
-        if (toolariumTty == null && tooalriumSystemProperty != null) {
-            if ("TTY".equalsIgnoreCase(tooalriumSystemProperty.trim())) {
-                toolariumTty = TerminalUtil.getInstance().isTTY() || TerminalUtil.getInstance().isPseudoTTY();
-                if (toolariumTty) {
-                    LOG.debug("Valid ansi tty setting and is proper tty or psedu tty: " + toolariumTty);
-                } else {
-                    LOG.debug("Valid ansi tty setting but is not proper tty nor psedu tty: " + toolariumTty);
-                }
-            } else {
-                toolariumTty = Boolean.FALSE;
-            }
+        return detect(systemProperty);
+    }
+
+    
+    /**
+     * Resolve the setting for one stream of the process, e.g. colors for the standard error which is a terminal but not
+     * for the standard output which is redirected to a file. The terminal check is done per stream, see
+     * {@link TerminalUtil#isTTY(int)}; all other rules are the same as for {@link #isEnabled()}.
+     * <pre>
+     * AnsiColor stderrColor = AnsiColor.AUTO.forStream(TerminalUtil.STDERR);
+     * </pre>
+     *
+     * @param fileDescriptor the file descriptor, e.g. {@link TerminalUtil#STDOUT} or {@link TerminalUtil#STDERR}
+     * @return ON or OFF in case of AUTO, otherwise this setting
+     */
+    public AnsiColor forStream(int fileDescriptor) {
+        if (this != AUTO) {
+            return this;
         }
-        
-        return toolariumTty || ((tooalriumSystemProperty != null) && "true".equalsIgnoreCase(tooalriumSystemProperty.trim()));
+
+        String systemProperty = System.getProperty(TOOLARIUM_ANSI);
+        boolean enabled;
+        if (systemProperty == null || "AUTO".equalsIgnoreCase(systemProperty.trim())) {
+            enabled = doAutodetect(fileDescriptor);
+        } else if ("TTY".equalsIgnoreCase(systemProperty.trim())) {
+            enabled = TerminalUtil.getInstance().isTTY(fileDescriptor) || TerminalUtil.getInstance().isPseudoTTY();
+        } else {
+            enabled = "true".equalsIgnoreCase(systemProperty.trim());
+        }
+
+        LOG.debug("Ansi detection result of stream " + fileDescriptor + ": " + enabled);
+        return enabled ? ON : OFF;
     }
 
     
@@ -168,10 +181,19 @@ public enum AnsiColor {
      * @return true or false
      */
     public boolean isJansiConsoleInstalled() {
-        if (jansiInstalled == null) {
-            jansiInstalled = calcIsJansiConsoleInstalled();
+        DetectionState state = detectionState.get();
+        if (state.jansiInstalled != null) {
+            return state.jansiInstalled;
+        }
+
+        synchronized (detectionState) {
+            state = detectionState.get();
+            if (state.jansiInstalled == null) {
+                state = state.withJansiInstalled(calcIsJansiConsoleInstalled());
+                detectionState.set(state);
+            }
+            return state.jansiInstalled;
         }
-        return jansiInstalled;
     }
 
 
@@ -205,12 +227,66 @@ public enum AnsiColor {
     }
 
     
+    /**
+     * Evaluate the ansi setting of a system property value. The evaluation is done at most once per change of the
+     * system property, the result is published as immutable state.
+     *
+     * @param systemProperty the value of the system property {@code "toolarium.ansi"}
+     * @return true if ansi is enabled
+     */
+    private boolean detect(String systemProperty) {
+        synchronized (detectionState) {
+            DetectionState state = detectionState.get();
+            if (state.isValid(systemProperty)) {
+                // evaluated by another thread
+                return state.enabled;
+            }
+
+            if (systemProperty != null) {
+                LOG.debug("Toolarim ansi setting: " + systemProperty);
+            }
+
+            boolean enabled;
+            if (systemProperty == null || "AUTO".equalsIgnoreCase(systemProperty.trim())) {
+                if (state.autoDetect == null) {
+                    boolean autoDetect = doAutodetect(PROCESS_CONSOLE);
+                    if (AnsiMetrics.ENABLED) {
+                        AnsiMetrics.getInstance().recordAutoDetection();
+                    }
+                    LOG.debug("Ansi auto detection result: " + autoDetect);
+
+                    // the auto detection may have changed the state
+                    state = detectionState.get().withAutoDetect(autoDetect);
+                }
+                enabled = state.autoDetect;
+            } else if ("TTY".equalsIgnoreCase(systemProperty.trim())) {
+                if (state.tty == null) {
+                    boolean tty = TerminalUtil.getInstance().isTTY() || TerminalUtil.getInstance().isPseudoTTY();
+                    if (tty) {
+                        LOG.debug("Valid ansi tty setting and is proper tty or psedu tty: " + tty);
+                    } else {
+                        LOG.debug("Valid ansi tty setting but is not proper tty nor psedu tty: " + tty);
+                    }
+                    state = state.withTty(tty);
+                }
+                enabled = state.tty;
+            } else {
+                enabled = "true".equalsIgnoreCase(systemProperty.trim());
+            }
+
+            detectionState.set(state.withResult(systemProperty, enabled));
+            return enabled;
+        }
+    }
+
+    
     /**
      * Auto detect if ansi is enabled
      *
+     * @param fileDescriptor the file descriptor of the stream or {@link #PROCESS_CONSOLE} for the console of the process
      * @return true or false
      */
-    private boolean doAutodetect() {
+    private boolean doAutodetect(int fileDescriptor) {
         if (isForceDisabled()) {
             LOG.debug("Force to disable ansi.");
             return false;
@@ -231,7 +307,8 @@ public enum AnsiColor {
             return false;
         }
         
-        if (!TerminalUtil.getInstance().isTTY() && !TerminalUtil.getInstance().isPseudoTTY()) {
+        boolean tty = fileDescriptor == PROCESS_CONSOLE ? TerminalUtil.getInstance().isTTY() : TerminalUtil.getInstance().isTTY(fileDescriptor);
+        if (!tty && !TerminalUtil.getInstance().isPseudoTTY()) {
             LOG.debug("No tty or pseaudo tty, ansi disabled.");
             return false;
         }
@@ -302,4 +379,95 @@ public enum AnsiColor {
             return false;
         }
     }
+
+
+    
+    /**
+     * The immutable state of the ansi detection
+     */
+    private static final class DetectionState {
+        static final DetectionState INITIAL = new DetectionState(false, null, false, null, null, null);
+        final boolean evaluated;
+        final String systemProperty;
+        final boolean enabled;
+        final Boolean autoDetect;
+        final Boolean tty;
+        final Boolean jansiInstalled;
+
+        
+        /**
+         * Constructor for DetectionState
+         *
+         * @param evaluated true if the system property value is evaluated
+         * @param systemProperty the evaluated system property value
+         * @param enabled the result of the evaluation
+         * @param autoDetect the result of the auto detection or null
+         * @param tty the result of the tty detection or null
+         * @param jansiInstalled the result of the jansi detection or null
+         */
+        DetectionState(boolean evaluated, String systemProperty, boolean enabled, Boolean autoDetect, Boolean tty, Boolean jansiInstalled) {
+            this.evaluated = evaluated;
+            this.systemProperty = systemProperty;
+            this.enabled = enabled;
+            this.autoDetect = autoDetect;
+            this.tty = tty;
+            this.jansiInstalled = jansiInstalled;
+        }
+
+        
+        /**
+         * Check if the state contains the result of a system property value
+         *
+         * @param value the system property value
+         * @return true if the result is valid
+         */
+        boolean isValid(String value) {
+            return evaluated && Objects.equals(systemProperty, value);
+        }
+
+        
+        /**
+         * Get a state with the result of a system property value
+         *
+         * @param value the system property value
+         * @param result the result
+         * @return the new state
+         */
+        DetectionState withResult(String value, boolean result) {
+            return new DetectionState(true, value, result, autoDetect, tty, jansiInstalled);
+        }
+
+        
+        /**
+         * Get a state with the result of the auto detection
+         *
+         * @param result the result
+         * @return the new state
+         */
+        DetectionState withAutoDetect(boolean result) {
+            return new DetectionState(evaluated, systemProperty, enabled, result, tty, jansiInstalled);
+        }
+
+        
+        /**
+         * Get a state with the result of the tty detection
+         *
+         * @param result the result
+         * @return the new state
+         */
+        DetectionState withTty(boolean result) {
+            return new DetectionState(evaluated, systemProperty, enabled, autoDetect, result, jansiInstalled);
+        }
+
+        
+        /**
+         * Get a state with the result of the jansi detection
+         *
+         * @param result the result
+         * @return the new state
+         */
+        DetectionState withJansiInstalled(boolean result) {
+            return new DetectionState(evaluated, systemProperty, enabled, autoDetect, tty, result);
+        }
+    }
 }
\ No newline at end of file
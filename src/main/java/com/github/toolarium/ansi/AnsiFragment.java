@@ -0,0 +1,141 @@
+/*
+ * AnsiFragment.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+
+/**
+ * An immutable styled text which is rendered once: the escape sequence of the style, the text and the reset sequence.
+ * Appending a fragment to an {@link AnsiStringBuilder} copies the rendered characters with one array copy. Fragments
+ * which are repeated often, e.g. the status of table cells, are shared by an {@link AnsiFragmentPool}.
+ * <pre>
+ * AnsiFragment ok = AnsiFragment.of(AnsiStyle.of(ForegroundColor.GREEN), "OK");
+ * builder.append(ok);
+ * </pre>
+ *
+ * @author patrick
+ */
+public final class AnsiFragment {
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int ARRAY_OVERHEAD = 16;
+    private static final int STRING_OVERHEAD = 24;
+    private final AnsiStyle style;
+    private final String text;
+    private final AnsiBuffer rendered;
+
+    
+    /**
+     * Constructor for AnsiFragment
+     *
+     * @param style the style
+     * @param text the text
+     */
+    private AnsiFragment(AnsiStyle style, String text) {
+        this.style = style;
+        this.text = text;
+
+        String escapeSequence = style.getEscapeSequence();
+        String resetEscapeSequence = style.getResetEscapeSequence();
+        this.rendered = new AnsiBuffer(escapeSequence.length() + text.length() + resetEscapeSequence.length());
+        this.rendered.append(escapeSequence).append(text).append(resetEscapeSequence);
+    }
+
+    
+    /**
+     * Create a fragment
+     *
+     * @param style the style
+     * @param text the text, it must not contain escape sequences
+     * @return the fragment
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public static AnsiFragment of(AnsiStyle style, CharSequence text) throws IllegalArgumentException {
+        if (style == null || text == null) {
+            throw new IllegalArgumentException("Invalid style or text!");
+        }
+
+        return new AnsiFragment(style, text.toString());
+    }
+
+    
+    /**
+     * Get the style
+     *
+     * @return the style
+     */
+    public AnsiStyle getStyle() {
+        return style;
+    }
+
+    
+    /**
+     * Get the text without escape sequences
+     *
+     * @return the text
+     */
+    public String getText() {
+        return text;
+    }
+
+    
+    /**
+     * Get the estimated number of bytes which are used by the fragment
+     *
+     * @return the estimated number of bytes
+     */
+    public long getMemoryFootprint() {
+        int textBytes = rendered.isLatin1() ? text.length() : text.length() * 2;
+        int renderedBytes = rendered.isLatin1() ? rendered.capacity() : rendered.capacity() * 2;
+        return 2L * OBJECT_OVERHEAD + STRING_OVERHEAD + 2L * ARRAY_OVERHEAD + textBytes + renderedBytes;
+    }
+
+    
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return style.hashCode() * 31 + text.hashCode();
+    }
+
+    
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        AnsiFragment other = (AnsiFragment) obj;
+        return style.equals(other.style) && text.equals(other.text);
+    }
+
+    
+    /**
+     * Returns the rendered fragment with escape sequences
+     *
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return rendered.toString();
+    }
+
+    
+    /**
+     * Get the rendered characters: the escape sequence of the style, the text and the reset sequence
+     *
+     * @return the rendered characters
+     */
+    AnsiBuffer getRendered() {
+        return rendered;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * AnsiFragmentPool.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Pool of interned {@link AnsiFragment}s: each pair of style and text is rendered once and shared. The pool is keyed by
+ * the style and the text, a lookup doesn't render anything. The fragments are only held by soft references, the garbage
+ * collector can reclaim them under memory pressure; the size of the pool is capped and the least recently used fragments
+ * are evicted first.
+ * <pre>
+ * AnsiFragmentPool pool = new AnsiFragmentPool();
+ * builder.append(pool.fragment(okStyle, "OK")).append(pool.fragment(separatorStyle, " | "));
+ * </pre>
+ *
+ * @author patrick
+ */
+public class AnsiFragmentPool {
+    /** The default maximum number of fragments */
+    public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private final int maximumSize;
+    private final Map<Key, FragmentReference> fragments;
+    private final ReferenceQueue<AnsiFragment> referenceQueue;
+
+    
+    /**
+     * Constructor for AnsiFragmentPool
+     */
+    public AnsiFragmentPool() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    
+    /**
+     * Constructor for AnsiFragmentPool
+     *
+     * @param maximumSize the maximum number of fragments
+     * @throws IllegalArgumentException In case of an invalid size
+     */
+    public AnsiFragmentPool(int maximumSize) throws IllegalArgumentException {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Invalid maximum size: " + maximumSize + "!");
+        }
+
+        this.maximumSize = maximumSize;
+        this.referenceQueue = new ReferenceQueue<>();
+        this.fragments = new LinkedHashMap<Key, FragmentReference>(Math.min(maximumSize, 64), 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FragmentReference> eldest) {
+                return size() > AnsiFragmentPool.this.maximumSize;
+            }
+        };
+    }
+
+    
+    /**
+     * Get the interned fragment of a style and a text
+     *
+     * @param style the style
+     * @param text the text, it must not contain escape sequences
+     * @return the fragment
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiFragment fragment(AnsiStyle style, CharSequence text) throws IllegalArgumentException {
+        if (style == null || text == null) {
+            throw new IllegalArgumentException("Invalid style or text!");
+        }
+
+        Key key = new Key(style, text.toString());
+        synchronized (fragments) {
+            expunge();
+            FragmentReference reference = fragments.get(key);
+            AnsiFragment fragment = reference != null ? reference.get() : null;
+            if (fragment == null) {
+                fragment = AnsiFragment.of(style, key.text);
+                fragments.put(key, new FragmentReference(key, fragment, referenceQueue));
+            }
+            return fragment;
+        }
+    }
+
+    
+    /**
+     * Get the number of fragments, fragments which were reclaimed by the garbage collector are removed
+     *
+     * @return the number of fragments
+     */
+    public int size() {
+        synchronized (fragments) {
+            expunge();
+            return fragments.size();
+        }
+    }
+
+    
+    /**
+     * Get the estimated number of bytes which are used by the fragments of the pool
+     *
+     * @return the estimated number of bytes
+     */
+    public long getMemoryFootprint() {
+        synchronized (fragments) {
+            expunge();
+
+            long result = 0;
+            for (FragmentReference reference : fragments.values()) {
+                AnsiFragment fragment = reference.get();
+                if (fragment != null) {
+                    result += fragment.getMemoryFootprint();
+                }
+            }
+            return result;
+        }
+    }
+
+    
+    /**
+     * Remove all fragments
+     */
+    public void clear() {
+        synchronized (fragments) {
+            fragments.clear();
+        }
+    }
+
+    
+    /**
+     * Clear and enqueue the references of all fragments as the garbage collector does under memory pressure
+     */
+    void reclaim() {
+        synchronized (fragments) {
+            for (FragmentReference reference : fragments.values()) {
+                reference.clear();
+                reference.enqueue();
+            }
+        }
+    }
+
+    
+    /**
+     * Remove the entries of fragments which were reclaimed by the garbage collector
+     */
+    private void expunge() {
+        Reference<? extends AnsiFragment> reference;
+        while ((reference = referenceQueue.poll()) != null) {
+            Key key = ((FragmentReference) reference).key;
+            if (fragments.get(key) == reference) {
+                fragments.remove(key);
+            }
+        }
+    }
+
+    
+    /**
+     * The key of a fragment: the style and the text
+     */
+    private static final class Key {
+        private final AnsiStyle style;
+        private final String text;
+        private final int hashCode;
+
+        
+        /**
+         * Constructor for Key
+         *
+         * @param style the style
+         * @param text the text
+         */
+        Key(AnsiStyle style, String text) {
+            this.style = style;
+            this.text = text;
+            this.hashCode = style.hashCode() * 31 + text.hashCode();
+        }
+
+        
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return hashCode == other.hashCode && style.equals(other.style) && text.equals(other.text);
+        }
+    }
+
+    
+    /**
+     * The soft reference of a fragment, it knows its key to remove the entry once the fragment is reclaimed
+     */
+    private static final class FragmentReference extends SoftReference<AnsiFragment> {
+        private final Key key;
+
+        
+        /**
+         * Constructor for FragmentReference
+         *
+         * @param key the key
+         * @param fragment the fragment
+         * @param queue the reference queue
+         */
+        FragmentReference(Key key, AnsiFragment fragment, ReferenceQueue<AnsiFragment> queue) {
+            super(fragment, queue);
+            this.key = key;
+        }
+    }
+}
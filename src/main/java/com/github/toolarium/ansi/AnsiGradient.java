@@ -0,0 +1,197 @@
+/*
+ * AnsiGradient.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import com.github.toolarium.ansi.util.ColorUtil;
+
+
+/**
+ * A color gradient defined by color stops which can be used to color a text, see {@link AnsiStringBuilder#gradient(AnsiGradient, CharSequence)}.
+ * The interpolated colors are calculated once per text length and reused as long as the length doesn't change.
+ *
+ * @author patrick
+ */
+public final class AnsiGradient {
+    private static final int[] RAINBOW = {0xff0000, 0xffff00, 0x00ff00, 0x00ffff, 0x0000ff, 0xff00ff};
+    private final int[] stops;
+    private final boolean color8;
+    private volatile ColorTable colorTable;
+
+    
+    /**
+     * Constructor for AnsiGradient
+     *
+     * @param stops the rgb color stops
+     * @param color8 true to use 8-bit colors
+     */
+    private AnsiGradient(int[] stops, boolean color8) {
+        this.stops = stops;
+        this.color8 = color8;
+        this.colorTable = null;
+    }
+
+    
+    /**
+     * Create a gradient of 24-bit rgb color stops, e.g. {@code AnsiGradient.of(0xff0000, 0x0000ff)}.
+     *
+     * @param rgbColors the rgb color stops
+     * @return the gradient
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public static AnsiGradient of(int... rgbColors) throws IllegalArgumentException {
+        if (rgbColors == null || rgbColors.length == 0) {
+            throw new IllegalArgumentException("At least one color stop is required.");
+        }
+
+        for (int rgb : rgbColors) {
+            if (rgb < 0 || rgb > 0xffffff) {
+                throw new IllegalArgumentException("Valid 24-bit RGB values must be within the range of 0x000000-0xffffff.");
+            }
+        }
+
+        return new AnsiGradient(rgbColors.clone(), false);
+    }
+
+    
+    /**
+     * Create a gradient of 24-bit hexadecimal color stops, e.g. {@code AnsiGradient.of("#ff0000", "#0000ff")}.
+     *
+     * @param hexColors the hexadecimal color stops
+     * @return the gradient
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public static AnsiGradient of(String... hexColors) throws IllegalArgumentException {
+        if (hexColors == null || hexColors.length == 0) {
+            throw new IllegalArgumentException("At least one color stop is required.");
+        }
+
+        int[] rgbColors = new int[hexColors.length];
+        for (int i = 0; i < hexColors.length; i++) {
+            if (hexColors[i] == null || !hexColors[i].matches("^\\#[A-Fa-f0-9]{6}$")) {
+                throw new IllegalArgumentException("Invalid 24-bit hexadecimal color value.");
+            }
+
+            rgbColors[i] = Integer.parseInt(hexColors[i].substring(1), 16);
+        }
+
+        return new AnsiGradient(rgbColors, false);
+    }
+
+    
+    /**
+     * Create a rainbow gradient
+     *
+     * @return the gradient
+     */
+    public static AnsiGradient rainbow() {
+        return new AnsiGradient(RAINBOW.clone(), false);
+    }
+
+    
+    /**
+     * Get a gradient with the same color stops which uses the nearest 8-bit colors instead of 24-bit colors.
+     *
+     * @return the gradient
+     */
+    public AnsiGradient toColor8() {
+        if (color8) {
+            return this;
+        }
+
+        return new AnsiGradient(stops, true);
+    }
+
+    
+    /**
+     * Check if the gradient uses 8-bit colors
+     *
+     * @return true if the gradient uses 8-bit colors
+     */
+    public boolean isColor8() {
+        return color8;
+    }
+
+    
+    /**
+     * Get the color of each position of a text. The table is cached for the last requested length and color mode.
+     *
+     * @param length the number of positions
+     * @param useColor8 true to get 8-bit colors, otherwise 24-bit rgb values
+     * @return the colors, the array must not be modified
+     */
+    int[] getColors(int length, boolean useColor8) {
+        ColorTable table = colorTable;
+        if (table != null && table.colors.length == length && table.color8 == useColor8) {
+            return table.colors;
+        }
+
+        int[] colors = new int[length];
+        for (int i = 0; i < length; i++) {
+            int rgb = interpolate(i, length);
+            colors[i] = useColor8 ? ColorUtil.getInstance().toColor8(rgb) : rgb;
+        }
+
+        colorTable = new ColorTable(colors, useColor8);
+        return colors;
+    }
+
+    
+    /**
+     * Interpolate the color of a position
+     *
+     * @param position the position
+     * @param length the number of positions
+     * @return the rgb value
+     */
+    private int interpolate(int position, int length) {
+        if (stops.length == 1 || length <= 1) {
+            return stops[0];
+        }
+
+        double scaled = (double) position * (stops.length - 1) / (length - 1);
+        int segment = Math.min((int) scaled, stops.length - 2);
+        double fraction = scaled - segment;
+        int from = stops[segment];
+        int to = stops[segment + 1];
+        return interpolate(from >> 16, to >> 16, fraction) << 16 | interpolate((from >> 8) & 0xff, (to >> 8) & 0xff, fraction) << 8 | interpolate(from & 0xff, to & 0xff, fraction);
+    }
+
+    
+    /**
+     * Interpolate a color component
+     *
+     * @param from the start value
+     * @param to the end value
+     * @param fraction the fraction
+     * @return the interpolated value
+     */
+    private int interpolate(int from, int to, double fraction) {
+        return (int) Math.round(from + (to - from) * fraction);
+    }
+
+    
+    /**
+     * The cached color table
+     *
+     * @author patrick
+     */
+    private static final class ColorTable {
+        private final int[] colors;
+        private final boolean color8;
+
+        
+        /**
+         * Constructor for ColorTable
+         *
+         * @param colors the colors
+         * @param color8 true if the colors are 8-bit colors
+         */
+        ColorTable(int[] colors, boolean color8) {
+            this.colors = colors;
+            this.color8 = color8;
+        }
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * AnsiRope.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * Immutable styled text as balanced binary tree of text leaves, e.g. to merge report sections which are rendered in
+ * parallel by their own {@link AnsiStringBuilder}. The tree is height balanced like an AVL tree: a concatenation only
+ * descends the spine of the higher tree and rotates on the way back, it takes O(log n) and repeated appends never
+ * rebuild the tree. Insert and slice only copy the text of the leaves at the cut positions. Each node caches its length
+ * and its visible length.
+ *
+ * <p>Every leaf ends without an active style: a text which leaves a style active is closed with a reset sequence when
+ * the leaf is created. Therefore each node boundary is a style boundary and texts never inherit the style of their
+ * predecessor. The indexes of {@link #insert(int, AnsiRope)} and {@link #slice(int, int)} are visible indexes, a slice
+ * starts with the escape sequences which precede it in its leaf.</p>
+ * <pre>
+ * AnsiRope report = AnsiRope.of(header).concat(AnsiRope.concat(sections));
+ * report.writeTo(writer);
+ * </pre>
+ *
+ * @author patrick
+ */
+public final class AnsiRope {
+    /** The empty rope */
+    public static final AnsiRope EMPTY = new AnsiRope("", 0);
+
+    private static final String RESET = AnsiColor.ANSI_START_ESCAPE_SEQUENCE + "0" + AnsiColor.ANSI_STOP_ESCAPE_SEQUENCE;
+    private static final int SHORT_LEAF_LENGTH = 128;
+    private final String leaf;
+    private final AnsiRope left;
+    private final AnsiRope right;
+    private final int length;
+    private final int visibleLength;
+    private final int depth;
+
+    
+    /**
+     * Constructor for a leaf
+     *
+     * @param leaf the text, it must not end with an active style
+     * @param visibleLength the visible length
+     */
+    private AnsiRope(String leaf, int visibleLength) {
+        this.leaf = leaf;
+        this.left = null;
+        this.right = null;
+        this.length = leaf.length();
+        this.visibleLength = visibleLength;
+        this.depth = 0;
+    }
+
+    
+    /**
+     * Constructor for a concatenation
+     *
+     * @param left the left rope
+     * @param right the right rope
+     */
+    private AnsiRope(AnsiRope left, AnsiRope right) {
+        this.leaf = null;
+        this.left = left;
+        this.right = right;
+        this.length = checkLength((long) left.length + right.length);
+        this.visibleLength = left.visibleLength + right.visibleLength;
+        this.depth = Math.max(left.depth, right.depth) + 1;
+    }
+
+    
+    /**
+     * Create a rope of a text, in case the text ends with an active style a reset sequence is appended
+     *
+     * @param text the text with escape sequences
+     * @return the rope
+     */
+    public static AnsiRope of(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return EMPTY;
+        }
+
+        String value = text.toString();
+        if (AnsiStyle.isStyleActive(value)) {
+            value = value.concat(RESET);
+        }
+        return new AnsiRope(value, visibleLength(value));
+    }
+
+    
+    /**
+     * Create a rope of the content of a builder, see {@link AnsiStringBuilder#toString()}
+     *
+     * @param builder the builder
+     * @return the rope
+     */
+    public static AnsiRope of(AnsiStringBuilder builder) {
+        if (builder == null) {
+            return EMPTY;
+        }
+
+        return of(builder.toString());
+    }
+
+    
+    /**
+     * Concatenate ropes in the order of the list, neighbours are joined pairwise
+     *
+     * @param ropes the ropes
+     * @return the rope
+     */
+    public static AnsiRope concat(List<AnsiRope> ropes) {
+        if (ropes == null || ropes.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<AnsiRope> current = new ArrayList<>(ropes.size());
+        for (AnsiRope rope : ropes) {
+            if (rope != null) {
+                current.add(rope);
+            }
+        }
+
+        while (current.size() > 1) {
+            List<AnsiRope> next = new ArrayList<>((current.size() + 1) / 2);
+            for (int i = 0; i < current.size(); i += 2) {
+                next.add(i + 1 < current.size() ? current.get(i).concat(current.get(i + 1)) : current.get(i));
+            }
+            current = next;
+        }
+        return current.isEmpty() ? EMPTY : current.get(0);
+    }
+
+    
+    /**
+     * Concatenate a rope
+     *
+     * @param other the rope to append
+     * @return the concatenated rope
+     */
+    public AnsiRope concat(AnsiRope other) {
+        if (other == null || other.length == 0) {
+            return this;
+        }
+
+        if (length == 0) {
+            return other;
+        }
+
+        if (other.leaf != null && other.length <= SHORT_LEAF_LENGTH) {
+            // merge short leaves instead of creating small nodes
+            if (leaf != null && length <= SHORT_LEAF_LENGTH) {
+                return new AnsiRope(leaf.concat(other.leaf), visibleLength + other.visibleLength);
+            }
+
+            if (leaf == null && right.leaf != null && right.length <= SHORT_LEAF_LENGTH) {
+                return new AnsiRope(left, new AnsiRope(right.leaf.concat(other.leaf), right.visibleLength + other.visibleLength));
+            }
+        }
+
+        return join(this, other);
+    }
+
+    
+    /**
+     * Insert a rope at a visible index
+     *
+     * @param index the visible index
+     * @param other the rope to insert
+     * @return the new rope
+     * @throws IndexOutOfBoundsException In case of an invalid index
+     */
+    public AnsiRope insert(int index, AnsiRope other) throws IndexOutOfBoundsException {
+        checkRange(index, index);
+        if (other == null || other.length == 0) {
+            return this;
+        }
+
+        return slice(0, index).concat(other).concat(slice(index, visibleLength));
+    }
+
+    
+    /**
+     * Get the part between two visible indexes. Escape sequences at the start of the range are kept.
+     *
+     * @param start the visible start index
+     * @param end the visible end index (exclusive)
+     * @return the rope
+     * @throws IndexOutOfBoundsException In case of an invalid range
+     */
+    public AnsiRope slice(int start, int end) throws IndexOutOfBoundsException {
+        checkRange(start, end);
+        if (start == 0 && end == visibleLength) {
+            return this;
+        }
+
+        if (start == end) {
+            return EMPTY;
+        }
+
+        if (leaf != null) {
+            return sliceLeaf(start, end);
+        }
+
+        if (end <= left.visibleLength) {
+            return left.slice(start, end);
+        }
+
+        if (start >= left.visibleLength) {
+            return right.slice(start - left.visibleLength, end - left.visibleLength);
+        }
+
+        return left.slice(start, left.visibleLength).concat(right.slice(0, end - left.visibleLength));
+    }
+
+    
+    /**
+     * Get the number of characters including the escape sequences
+     *
+     * @return the length
+     */
+    public int length() {
+        return length;
+    }
+
+    
+    /**
+     * Get the number of visible characters
+     *
+     * @return the visible length
+     */
+    public int getVisibleLength() {
+        return visibleLength;
+    }
+
+    
+    /**
+     * Write the leaves to a writer without creating a flat copy
+     *
+     * @param writer the writer
+     * @throws IOException In case of an I/O error
+     */
+    public void writeTo(Writer writer) throws IOException {
+        if (leaf != null) {
+            writer.write(leaf);
+            return;
+        }
+
+        left.writeTo(writer);
+        right.writeTo(writer);
+    }
+
+    
+    /**
+     * Write the leaves encoded with the charset to a stream, the stream is flushed but not closed
+     *
+     * @param outputStream the stream
+     * @param charset the charset
+     * @throws IOException In case of an I/O error
+     */
+    public void writeTo(OutputStream outputStream, Charset charset) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, charset);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        if (leaf != null) {
+            return leaf;
+        }
+
+        StringBuilder result = new StringBuilder(length);
+        forEachLeaf(result::append);
+        return result.toString();
+    }
+
+    
+    /**
+     * Visit the leaves in order
+     *
+     * @param consumer the consumer of the leaf texts
+     */
+    void forEachLeaf(Consumer<String> consumer) {
+        if (leaf != null) {
+            consumer.accept(leaf);
+            return;
+        }
+
+        left.forEachLeaf(consumer);
+        right.forEachLeaf(consumer);
+    }
+
+    
+    /**
+     * Get the depth of the tree
+     *
+     * @return the depth, 0 for a leaf
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    
+    /**
+     * Slice a leaf: the escape sequences before the start are kept, the slice is closed with a reset sequence in case a
+     * style is active at its end.
+     *
+     * @param start the visible start index
+     * @param end the visible end index (exclusive)
+     * @return the rope
+     */
+    private AnsiRope sliceLeaf(int start, int end) {
+        StringBuilder result = new StringBuilder(Math.min(leaf.length(), end - start + 32));
+        AnsiEscapeScanner scanner = new AnsiEscapeScanner();
+        int visible = 0;
+        for (int i = 0; i < leaf.length() && visible < end; i++) {
+            char c = leaf.charAt(i);
+            if (!scanner.accept(c)) {
+                result.append(c);
+            } else if (visible++ >= start) {
+                result.append(c);
+            }
+        }
+
+        if (AnsiStyle.isStyleActive(result)) {
+            result.append(RESET);
+        }
+        return new AnsiRope(result.toString(), end - start);
+    }
+
+    
+    /**
+     * Join two height balanced ropes into a height balanced rope
+     *
+     * @param left the left rope
+     * @param right the right rope
+     * @return the joined rope
+     */
+    private static AnsiRope join(AnsiRope left, AnsiRope right) {
+        if (left.depth > right.depth + 1) {
+            return joinRight(left, right);
+        }
+
+        if (right.depth > left.depth + 1) {
+            return joinLeft(left, right);
+        }
+
+        return new AnsiRope(left, right);
+    }
+
+    
+    /**
+     * Join a lower rope to the right of a higher rope: the right spine of the higher rope is descended until the depths
+     * match and the nodes on the path are rebalanced
+     *
+     * @param left the higher rope
+     * @param right the lower rope
+     * @return the joined rope
+     */
+    private static AnsiRope joinRight(AnsiRope left, AnsiRope right) {
+        AnsiRope inner = left.right;
+        if (inner.depth <= right.depth + 1) {
+            AnsiRope joined = new AnsiRope(inner, right);
+            if (joined.depth <= left.left.depth + 1) {
+                return new AnsiRope(left.left, joined);
+            }
+            return rotateLeft(new AnsiRope(left.left, rotateRight(joined)));
+        }
+
+        AnsiRope joined = joinRight(inner, right);
+        AnsiRope result = new AnsiRope(left.left, joined);
+        if (joined.depth <= left.left.depth + 1) {
+            return result;
+        }
+        return rotateLeft(result);
+    }
+
+    
+    /**
+     * Join a lower rope to the left of a higher rope: the left spine of the higher rope is descended until the depths
+     * match and the nodes on the path are rebalanced
+     *
+     * @param left the lower rope
+     * @param right the higher rope
+     * @return the joined rope
+     */
+    private static AnsiRope joinLeft(AnsiRope left, AnsiRope right) {
+        AnsiRope inner = right.left;
+        if (inner.depth <= left.depth + 1) {
+            AnsiRope joined = new AnsiRope(left, inner);
+            if (joined.depth <= right.right.depth + 1) {
+                return new AnsiRope(joined, right.right);
+            }
+            return rotateRight(new AnsiRope(rotateLeft(joined), right.right));
+        }
+
+        AnsiRope joined = joinLeft(left, inner);
+        AnsiRope result = new AnsiRope(joined, right.right);
+        if (joined.depth <= right.right.depth + 1) {
+            return result;
+        }
+        return rotateRight(result);
+    }
+
+    
+    /**
+     * Rotate a node to the left: (a, (b, c)) becomes ((a, b), c)
+     *
+     * @param node the node, its right child must be a node
+     * @return the rotated node
+     */
+    private static AnsiRope rotateLeft(AnsiRope node) {
+        return new AnsiRope(new AnsiRope(node.left, node.right.left), node.right.right);
+    }
+
+    
+    /**
+     * Rotate a node to the right: ((a, b), c) becomes (a, (b, c))
+     *
+     * @param node the node, its left child must be a node
+     * @return the rotated node
+     */
+    private static AnsiRope rotateRight(AnsiRope node) {
+        return new AnsiRope(node.left.left, new AnsiRope(node.left.right, node.right));
+    }
+
+    
+    /**
+     * Get the visible length of a text
+     *
+     * @param text the text
+     * @return the number of visible characters
+     */
+    private static int visibleLength(String text) {
+        int first = AnsiEscapeScanner.indexOf(text, 0, text.length());
+        if (first < 0) {
+            return text.length();
+        }
+
+        AnsiEscapeScanner scanner = new AnsiEscapeScanner();
+        int result = first;
+        for (int i = first; i < text.length(); i++) {
+            if (scanner.accept(text.charAt(i))) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    
+    /**
+     * Check a visible range
+     *
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @throws IndexOutOfBoundsException In case of an invalid range
+     */
+    private void checkRange(int start, int end) throws IndexOutOfBoundsException {
+        if (start < 0 || start > end || end > visibleLength) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + "-" + end + " of visible length " + visibleLength + ".");
+        }
+    }
+
+    
+    /**
+     * Check the length of a concatenation
+     *
+     * @param length the length
+     * @return the length
+     * @throws IllegalArgumentException In case the length is too large
+     */
+    private static int checkLength(long length) throws IllegalArgumentException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid length " + length + ", the rope is too large!");
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * AnsiSegmentVisitor.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+
+/**
+ * Visitor of the styled segments of an {@link AnsiStringBuilder} in segment mode, e.g. to render the text into
+ * another format than ANSI escape sequences.
+ *
+ * @author patrick
+ */
+@FunctionalInterface
+public interface AnsiSegmentVisitor {
+
+    /**
+     * Visit a segment
+     *
+     * @param style the style of the segment
+     * @param text the text of the builder
+     * @param start the start index of the segment
+     * @param end the end index of the segment (exclusive)
+     */
+    void visit(AnsiStyle style, CharSequence text, int start, int end);
+}
@@ -0,0 +1,228 @@
+/*
+ * AnsiSegments.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import com.github.toolarium.ansi.metrics.AnsiMetrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The segments of an {@link AnsiStringBuilder} in segment mode: the text is kept without escape sequences and each
+ * segment references an interned style and the end of its text range. The escape sequences are created when the
+ * segments are rendered.
+ *
+ * @author patrick
+ */
+final class AnsiSegments {
+    private static final int NONE_ID = 0;
+    private final List<AnsiStyle> styles;
+    private final Map<AnsiStyle, Integer> styleIds;
+    private final Map<Long, String> transitions;
+    private int[] segmentStyles;
+    private int[] segmentEnds;
+    private int count;
+    private AnsiStyle current;
+    private int currentId;
+    private int modificationCount;
+
+    
+    /**
+     * Constructor for AnsiSegments
+     */
+    AnsiSegments() {
+        this.styles = new ArrayList<>();
+        this.styleIds = new HashMap<>();
+        this.transitions = new HashMap<>();
+        this.segmentStyles = new int[16];
+        this.segmentEnds = new int[16];
+        this.count = 0;
+        this.current = AnsiStyle.NONE;
+        this.currentId = -1;
+        id(AnsiStyle.NONE);
+    }
+
+    
+    /**
+     * Apply SGR parameters to the current style
+     *
+     * @param parameters the parameters, separated by semicolon
+     */
+    void apply(CharSequence parameters) {
+        AnsiStyle style = current.apply(parameters);
+        if (style != current) {
+            current = style;
+            currentId = -1;
+            modificationCount++;
+        }
+    }
+
+    
+    /**
+     * Get the current style
+     *
+     * @return the current style
+     */
+    AnsiStyle getCurrentStyle() {
+        return current;
+    }
+
+    
+    /**
+     * Record a text range which was appended with the current style
+     *
+     * @param start the start index
+     * @param end the end index (exclusive)
+     */
+    void text(int start, int end) {
+        if (end <= start) {
+            return;
+        }
+
+        modificationCount++;
+        if (currentId < 0) {
+            currentId = id(current);
+        }
+
+        if (count > 0 && segmentStyles[count - 1] == currentId && segmentEnds[count - 1] == start) {
+            segmentEnds[count - 1] = end;
+            return;
+        }
+
+        if (count == segmentStyles.length) {
+            segmentStyles = Arrays.copyOf(segmentStyles, count * 2);
+            segmentEnds = Arrays.copyOf(segmentEnds, count * 2);
+        }
+        segmentStyles[count] = currentId;
+        segmentEnds[count] = end;
+        count++;
+    }
+
+    
+    /**
+     * Get the number of segments
+     *
+     * @return the number of segments
+     */
+    int size() {
+        return count;
+    }
+
+    
+    /**
+     * Get the modification count, it changes on every modification of the segments or the current style
+     *
+     * @return the modification count
+     */
+    int getModificationCount() {
+        return modificationCount;
+    }
+
+    
+    /**
+     * Render the text with escape sequences, only the differences between two styles are emitted
+     *
+     * @param text the text
+     * @param out the output
+     */
+    void render(CharSequence text, AnsiBuffer out) {
+        render(text, out, false);
+    }
+
+    
+    /**
+     * Render the text with escape sequences, only the differences between two styles are emitted
+     *
+     * @param text the text
+     * @param out the output
+     * @param reset true to end with the default style instead of the current style, the current style is not changed
+     */
+    void render(CharSequence text, AnsiBuffer out, boolean reset) {
+        int previous = 0;
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            out.append(transition(previous, segmentStyles[i]));
+            out.append(text, start, segmentEnds[i]);
+            previous = segmentStyles[i];
+            start = segmentEnds[i];
+        }
+
+        if (start < text.length()) {
+            out.append(text, start, text.length());
+        }
+
+        if (reset) {
+            out.append(transition(previous, NONE_ID));
+            return;
+        }
+
+        if (currentId < 0) {
+            currentId = id(current);
+        }
+        out.append(transition(previous, currentId));
+    }
+
+    
+    /**
+     * Visit all segments
+     *
+     * @param text the text
+     * @param visitor the visitor
+     */
+    void forEach(CharSequence text, AnsiSegmentVisitor visitor) {
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            visitor.visit(styles.get(segmentStyles[i]), text, start, segmentEnds[i]);
+            start = segmentEnds[i];
+        }
+    }
+
+    
+    /**
+     * Get the escape sequence of a transition between two styles
+     *
+     * @param from the id of the current style
+     * @param to the id of the new style
+     * @return the escape sequence
+     */
+    private String transition(int from, int to) {
+        if (from == to) {
+            return "";
+        }
+
+        Long key = ((long) from << 32) | to;
+        String result = transitions.get(key);
+        if (result == null) {
+            result = styles.get(from).getTransitionSequence(styles.get(to));
+            transitions.put(key, result);
+        }
+
+        if (AnsiMetrics.ENABLED && !result.isEmpty()) {
+            AnsiMetrics.getInstance().recordEscapeSequence(result.length());
+        }
+        return result;
+    }
+
+    
+    /**
+     * Get the id of a style, new styles are interned
+     *
+     * @param style the style
+     * @return the id
+     */
+    private int id(AnsiStyle style) {
+        Integer id = styleIds.get(style);
+        if (id == null) {
+            id = styles.size();
+            styles.add(style);
+            styleIds.put(style, id);
+        }
+        return id;
+    }
+}
@@ -8,6 +8,14 @@ package com.github.toolarium.ansi;
 import com.github.toolarium.ansi.color.BackgroundColor;
 import com.github.toolarium.ansi.color.ColorReset;
 import com.github.toolarium.ansi.color.ForegroundColor;
+import com.github.toolarium.ansi.metrics.AnsiMetrics;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import com.github.toolarium.ansi.util.ColorUtil;
+import com.github.toolarium.ansi.util.TerminalCapabilities;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
 
 /**
  * A string builder with built-in support for ANSI escape sequences.
@@ -16,15 +24,30 @@ import com.github.toolarium.ansi.color.ForegroundColor;
  * @author Nathan Fiscaletti
  */
 public class AnsiStringBuilder {
-    private java.lang.StringBuilder internal;
+    /** The maximum depth of the style stack, see {@link #push(AnsiStyle)} */
+    public static final int MAX_STYLE_DEPTH = 32;
+
+    private static final String[] SGR_ESCAPE_SEQUENCES = createSgrEscapeSequences(108);
+    private static final String STRING_TERMINATOR = AnsiEscapeScanner.ESCAPE + "\\";
+    private static final String HYPERLINK_START = AnsiEscapeScanner.ESCAPE + "]8;;";
+    private static final String HYPERLINK_END = HYPERLINK_START + STRING_TERMINATOR;
+    private AnsiBuffer internal;
     private AnsiColor ansiColor = AnsiColor.AUTO;
+    private TerminalCapabilities terminalCapabilities;
+    private AnsiSegments segments;
+    private int[] styleStack;
+    private int styleDepth;
+    private String cachedString;
+    private int cachedFlags;
+    private int cachedBufferModification;
+    private int cachedSegmentModification;
 
     
     /**
-     * Constructs a string builder with no characters in it and an initial capacity of 16 characters.
+     * Constructs a string builder with no characters in it and an initial capacity of {@link AnsiBuffer#DEFAULT_CAPACITY} characters.
      */
     public AnsiStringBuilder() {
-        this.internal = new java.lang.StringBuilder();
+        this.internal = new AnsiBuffer();
     }
 
     
@@ -34,7 +57,7 @@ public class AnsiStringBuilder {
      * @param charSequence the character sequence
      */
     public AnsiStringBuilder(CharSequence charSequence) {
-        this.internal = new java.lang.StringBuilder(charSequence);
+        this.internal = new AnsiBuffer(charSequence.length() + AnsiBuffer.DEFAULT_CAPACITY).append(charSequence);
     }
 
     
@@ -43,9 +66,23 @@ public class AnsiStringBuilder {
      * initial capacity specified by the capacity argument.
      *
      * @param capacity the capacity
+     * @throws IllegalArgumentException In case of an invalid capacity
      */
-    public AnsiStringBuilder(int capacity) {
-        this.internal = new java.lang.StringBuilder(capacity);
+    public AnsiStringBuilder(int capacity) throws IllegalArgumentException {
+        this.internal = new AnsiBuffer(capacity);
+    }
+
+    
+    /**
+     * Constructs an ansi string builder with no characters in it, an initial capacity specified by the capacity
+     * argument and a growth policy.
+     *
+     * @param capacity the capacity
+     * @param growthFactor the factor by which the capacity grows, must be greater than 1
+     * @throws IllegalArgumentException In case of an invalid capacity or growth factor
+     */
+    public AnsiStringBuilder(int capacity, float growthFactor) throws IllegalArgumentException {
+        this.internal = new AnsiBuffer(capacity, growthFactor);
     }
 
     
@@ -55,7 +92,7 @@ public class AnsiStringBuilder {
      * @param string the string
      */
     public AnsiStringBuilder(String string) {
-        this.internal = new java.lang.StringBuilder(string);
+        this.internal = new AnsiBuffer(string.length() + AnsiBuffer.DEFAULT_CAPACITY).append(string);
     }
     
     
@@ -65,7 +102,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetHidden() {
-        return this.ansi(Integer.toString(28));
+        return this.ansi(28);
     }
 
     
@@ -89,7 +126,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetInvertColors() {
-        return this.ansi(Integer.toString(27));
+        return this.ansi(27);
     }
 
     
@@ -113,7 +150,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetBlink() {
-        return this.ansi(Integer.toString(25));
+        return this.ansi(25);
     }
 
     
@@ -137,7 +174,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetUnderline() {
-        return this.ansi(Integer.toString(24));
+        return this.ansi(24);
     }
 
     
@@ -161,7 +198,11 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetStrikeThrough() {
-        return this.ansi(Integer.toString(29));
+        if (!isStrikeThroughSupported()) {
+            return this;
+        }
+
+        return this.ansi(29);
     }
 
     
@@ -185,7 +226,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetDim() {
-        return this.ansi(Integer.toString(22));
+        return this.ansi(22);
     }
 
     
@@ -209,7 +250,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetBold() {
-        return this.ansi(Integer.toString(22));
+        return this.ansi(22);
     }
 
     
@@ -233,7 +274,11 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder resetItalic() {
-        return this.ansi(Integer.toString(23));
+        if (!isItalicSupported()) {
+            return this;
+        }
+
+        return this.ansi(23);
     }
 
     
@@ -257,7 +302,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder reset() {
-        return this.ansi(Integer.toString(0));
+        return this.ansi(0);
     }
 
     
@@ -281,7 +326,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder hide() {
-        return this.ansi(Integer.toString(8));
+        return this.ansi(8);
     }
 
     
@@ -306,7 +351,11 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder strikeThrough() {
-        return this.ansi(Integer.toString(9));
+        if (!isStrikeThroughSupported()) {
+            return this;
+        }
+
+        return this.ansi(9);
     }
 
     
@@ -326,16 +375,15 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the strike-through flag, runs the function consumer on this string builder and resets the strike-through flag once finished.
+     * Sets the strike-through flag, runs the function consumer on this string builder and restores the enclosing strike-through flag once finished.
      *
      * @param consumer the consumer
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder strikeThrough(java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.strikeThrough();
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_NONE, AnsiStyle.STRIKE_THROUGH);
         consumer.accept(this);
-        this.resetStrikeThrough();
-        return this;
+        return this.pop();
     }
 
     
@@ -345,7 +393,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder invertColor() {
-        return this.ansi(Integer.toString(7));
+        return this.ansi(7);
     }
 
     
@@ -364,16 +412,15 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the invert-colors flag, runs the function consumer on this string builder and resets the invert-colors flag once finished.
+     * Sets the invert-colors flag, runs the function consumer on this string builder and restores the enclosing invert-colors flag once finished.
      *
      * @param consumer the consumer
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder invertColor(java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.invertColor();
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_NONE, AnsiStyle.INVERT_COLOR);
         consumer.accept(this);
-        this.resetInvertColors();
-        return this;
+        return this.pop();
     }
 
     
@@ -383,7 +430,7 @@ public class AnsiStringBuilder {
      * @return AnsiStringBuilder
      */
     public AnsiStringBuilder blink() {
-        return this.ansi(Integer.toString(5));
+        return this.ansi(5);
     }
 
     
@@ -403,16 +450,15 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the blink flag, runs the function consumer on this string builder and resets the blink flag once finished.
+     * Sets the blink flag, runs the function consumer on this string builder and restores the enclosing blink flag once finished.
      *
      * @param consumer the consumer
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder blink(java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.blink();
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_NONE, AnsiStyle.BLINK);
         consumer.accept(this);
-        this.resetBlink();
-        return this;
+        return this.pop();
     }
 
     
@@ -422,21 +468,20 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder underline() {
-        return this.ansi(Integer.toString(4));
+        return this.ansi(4);
     }
 
     
     /**
-     * Sets the underline flag, runs the function consumer on this string builder and resets the underline flag once finished.
+     * Sets the underline flag, runs the function consumer on this string builder and restores the enclosing underline flag once finished.
      *
      * @param consumer the consumer
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder underline(java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.underline();
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_NONE, AnsiStyle.UNDERLINE);
         consumer.accept(this);
-        this.resetUnderline();
-        return this;
+        return this.pop();
     }
 
     
@@ -461,7 +506,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder dim() {
-        return this.ansi(Integer.toString(2));
+        return this.ansi(2);
     }
 
     
@@ -481,16 +526,15 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the dim flag, runs the function consumer on this string builder and resets the dim flag once finished.
+     * Sets the dim flag, runs the function consumer on this string builder and restores the enclosing dim flag once finished.
      *
      * @param consumer the  consumer
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder dim(java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.dim();
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_NONE, AnsiStyle.DIM);
         consumer.accept(this);
-        this.resetDim();
-        return this;
+        return this.pop();
     }
 
     
@@ -500,7 +544,7 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder bold() {
-        return this.ansi(Integer.toString(1));
+        return this.ansi(1);
     }
 
     
@@ -520,16 +564,15 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the bold flag, runs the function consumer on this string builder and resets the bold flag once finished.
+     * Sets the bold flag, runs the function consumer on this string builder and restores the enclosing bold flag once finished.
      *
      * @param consumer the consumer
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder bold(java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.bold();
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_NONE, AnsiStyle.BOLD);
         consumer.accept(this);
-        this.resetBold();
-        return this;
+        return this.pop();
     }
 
     
@@ -539,7 +582,11 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder italic() {
-        return this.ansi(Integer.toString(3));
+        if (!isItalicSupported()) {
+            return this;
+        }
+
+        return this.ansi(3);
     }
 
     
@@ -559,7 +606,7 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the italic flag, runs the function consumer on this string builder and resets the italic
+     * Sets the italic flag, runs the function consumer on this string builder and restores the enclosing italic
      * flag once finished.
      *
      * @param consumer the consumer
@@ -567,10 +614,9 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder italic(java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.italic();
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_NONE, AnsiStyle.ITALIC);
         consumer.accept(this);
-        this.resetItalic();
-        return this;
+        return this.pop();
     }
 
     
@@ -581,23 +627,26 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder color(ForegroundColor color) {
-        return this.ansi(Integer.toString(color.getValue()));
+        if (!isColorSupported(color.getValue() >= ForegroundColor.DARK_GRAY.getValue() ? 16 : 8)) {
+            return this;
+        }
+
+        return this.ansi(color.getValue());
     }
 
     
     /**
-     * Sets the 4-bit foreground color, runs the function consumer on this string builder and resets
-     * the foreground color once finished.
+     * Sets the 4-bit foreground color, runs the function consumer on this string builder and restores
+     * the enclosing foreground color once finished.
      *
      * @param color the color
      * @param consumer the consumer
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder color(ForegroundColor color, java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.color(color);
+        this.push(encode(color), AnsiStyle.COLOR_NONE, 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.FG);
-        return this;
+        return this.pop();
     }
 
     
@@ -608,22 +657,25 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder color(BackgroundColor color) {
-        return this.ansi(Integer.toString(color.getValue()));
+        if (!isColorSupported(color.getValue() >= BackgroundColor.DARK_GRAY.getValue() ? 16 : 8)) {
+            return this;
+        }
+
+        return this.ansi(color.getValue());
     }
 
     
     /**
-     * Sets the 4-bit background color, runs the function consumer on this string builder and resets the background color once finished.
+     * Sets the 4-bit background color, runs the function consumer on this string builder and restores the enclosing background color once finished.
      *
      * @param color the color 
      * @param consumer the consumer 
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder color(BackgroundColor color, java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.color(color);
+        this.push(AnsiStyle.COLOR_NONE, encode(color), 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.BG);
-        return this;
+        return this.pop();
     }
 
     
@@ -673,7 +725,7 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the 4-bit foreground and background colors, runs the function consumer on this string builder and resets the foreground and background colors once finished.
+     * Sets the 4-bit foreground and background colors, runs the function consumer on this string builder and restores the enclosing foreground and background colors once finished.
      *
      * @param fg the foreground color
      * @param bg the background color
@@ -681,11 +733,9 @@ public class AnsiStringBuilder {
      * @return the AnsiStringBuilder
      */
     public AnsiStringBuilder color(ForegroundColor fg, BackgroundColor bg, java.util.function.Consumer<AnsiStringBuilder> consumer) {
-        this.color(fg);
-        this.color(bg);
+        this.push(encode(fg), encode(bg), 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.ALL);
-        return this;
+        return this.pop();
     }
 
     
@@ -743,12 +793,16 @@ public class AnsiStringBuilder {
             throw new IllegalArgumentException("Valid 8-bit colors must be within the range of 0-255.");
         }
 
-        return this.ansi("38;5;" + color);
+        if (!isColorSupported(256)) {
+            return this;
+        }
+
+        return this.ansiColor(color, true, false);
     }
 
     
     /**
-     * Sets the 8-bit foreground color, runs the function consumer on this string builder and resets the foreground colors once finished.
+     * Sets the 8-bit foreground color, runs the function consumer on this string builder and restores the enclosing foreground colors once finished.
      *
      * @param color the color
      * @param consumer the consumer
@@ -756,10 +810,9 @@ public class AnsiStringBuilder {
      * @throws IllegalArgumentException In case of an invalid input
      */
     public AnsiStringBuilder color8(int color, java.util.function.Consumer<AnsiStringBuilder> consumer) throws IllegalArgumentException {
-        this.color8(color);
+        this.push(AnsiStyle.COLOR_8BIT | AnsiStyle.validateColor8(color), AnsiStyle.COLOR_NONE, 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.FG);
-        return this;
+        return this.pop();
     }
 
     
@@ -792,12 +845,16 @@ public class AnsiStringBuilder {
             throw new IllegalArgumentException("Valid 8-bit colors must be within the range of 0-255.");
         }
 
-        return this.ansi("48;5;" + color);
+        if (!isColorSupported(256)) {
+            return this;
+        }
+
+        return this.ansiColor(color, true, true);
     }
 
     
     /**
-     * Sets the 8-bit background color, runs the function consumer on this string builder and resets the background colors once finished.
+     * Sets the 8-bit background color, runs the function consumer on this string builder and restores the enclosing background colors once finished.
      *
      * @param color the color
      * @param consumer the consumer
@@ -805,10 +862,9 @@ public class AnsiStringBuilder {
      * @throws IllegalArgumentException In case of an invalid input
      */
     public AnsiStringBuilder backgroundColor8(int color, java.util.function.Consumer<AnsiStringBuilder> consumer) throws IllegalArgumentException {
-        this.backgroundColor8(color);
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_8BIT | AnsiStyle.validateColor8(color), 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.BG);
-        return this;
+        return this.pop();
     }
 
     
@@ -843,7 +899,12 @@ public class AnsiStringBuilder {
             throw new IllegalArgumentException("Valid 24-bit RGB values must be within the range of 0-255.");
         }
 
-        return this.ansi("38;2;" + r + ";" + g + ";" + b);
+        if (terminalCapabilities != null && !terminalCapabilities.supportsTrueColor()) {
+            // fallback to the nearest 8-bit color
+            return this.color8(ColorUtil.getInstance().toColor8(r, g, b));
+        }
+
+        return this.ansiColor((r << 16) | (g << 8) | b, false, false);
     }
 
     
@@ -868,7 +929,7 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the 24-bit foreground color, runs the function consumer on this string builder and resets the foreground colors once finished.
+     * Sets the 24-bit foreground color, runs the function consumer on this string builder and restores the enclosing foreground colors once finished.
      *
      * @param r the r-value
      * @param g the g-value
@@ -878,15 +939,14 @@ public class AnsiStringBuilder {
      * @throws IllegalArgumentException In case of an invalid input
      */
     public AnsiStringBuilder color24(int r, int g, int b, java.util.function.Consumer<AnsiStringBuilder> consumer) throws IllegalArgumentException {
-        this.color24(r, g, b);
+        this.push(AnsiStyle.COLOR_24BIT | AnsiStyle.validateColor24(r, g, b), AnsiStyle.COLOR_NONE, 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.FG);
-        return this;
+        return this.pop();
     }
 
     
     /**
-     * Sets the 24-bit foreground color using a hexadecimal color value, runs the function consumer on this string builder and resets the foreground colors once finished.
+     * Sets the 24-bit foreground color using a hexadecimal color value, runs the function consumer on this string builder and restores the enclosing foreground colors once finished.
      *
      * @param hexColor the color
      * @param consumer the consumer
@@ -894,10 +954,9 @@ public class AnsiStringBuilder {
      * @throws IllegalArgumentException In case of an invalid input
      */
     public AnsiStringBuilder color24(String hexColor, java.util.function.Consumer<AnsiStringBuilder> consumer) throws IllegalArgumentException {
-        this.color24(hexColor);
+        this.push(AnsiStyle.COLOR_24BIT | AnsiStyle.parseHexColor(hexColor), AnsiStyle.COLOR_NONE, 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.FG);
-        return this;
+        return this.pop();
     }
 
     
@@ -951,7 +1010,12 @@ public class AnsiStringBuilder {
             throw new IllegalArgumentException("Valid 24-bit colors must be within the range of 0-255.");
         }
 
-        return this.ansi("48;2;" + r + ";" + g + ";" + b);
+        if (terminalCapabilities != null && !terminalCapabilities.supportsTrueColor()) {
+            // fallback to the nearest 8-bit color
+            return this.backgroundColor8(ColorUtil.getInstance().toColor8(r, g, b));
+        }
+
+        return this.ansiColor((r << 16) | (g << 8) | b, false, true);
     }
 
     
@@ -975,7 +1039,7 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Sets the 24-bit background color, runs the function consumer on this string builder and resets the background colors once finished.
+     * Sets the 24-bit background color, runs the function consumer on this string builder and restores the enclosing background colors once finished.
      *
      * @param r the r-value
      * @param g the g-value
@@ -985,16 +1049,15 @@ public class AnsiStringBuilder {
      * @throws IllegalArgumentException In case of an invalid input
      */
     public AnsiStringBuilder backgroundColor24(int r, int g, int b, java.util.function.Consumer<AnsiStringBuilder> consumer) throws IllegalArgumentException {
-        this.backgroundColor24(r, g, b);
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_24BIT | AnsiStyle.validateColor24(r, g, b), 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.BG);
-        return this;
+        return this.pop();
     }
 
     
     /**
      * Sets the 24-bit background color using a hexadecimal color value, runs the function consumer
-     * on this string builder and resets the background colors once finished.
+     * on this string builder and restores the enclosing background colors once finished.
      *
      * @param hexColor the color
      * @param consumer the consumer
@@ -1002,10 +1065,9 @@ public class AnsiStringBuilder {
      * @throws IllegalArgumentException In case of an invalid input
      */
     public AnsiStringBuilder backgroundColor24(String hexColor, java.util.function.Consumer<AnsiStringBuilder> consumer) throws IllegalArgumentException {
-        this.backgroundColor24(hexColor);
+        this.push(AnsiStyle.COLOR_NONE, AnsiStyle.COLOR_24BIT | AnsiStyle.parseHexColor(hexColor), 0);
         consumer.accept(this);
-        this.resetColor(ColorReset.BG);
-        return this;
+        return this.pop();
     }
 
     
@@ -1045,6 +1107,211 @@ public class AnsiStringBuilder {
     }
 
     
+    /**
+     * Sets the style. Colors and attributes which are not supported by the terminal capabilities are omitted.
+     *
+     * @param style the style
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder style(AnsiStyle style) {
+        AnsiStyle supportedStyle = supportedStyle(style);
+        if (segments != null) {
+            segments.apply(supportedStyle.getSequence());
+            return this;
+        }
+
+        return this.appendEscapeSequence(supportedStyle.getEscapeSequence());
+    }
+
+    
+    /**
+     * Appends the string representation of the value formatted with the style and resets the style.
+     *
+     * @param <T> the type
+     * @param style the style
+     * @param value the value
+     * @return the AnsiStringBuilder
+     */
+    public <T> AnsiStringBuilder style(AnsiStyle style, T value) {
+        this.style(style);
+        this.append(value);
+        this.resetStyle(style);
+        return this;
+    }
+
+    
+    /**
+     * Appends a pre-rendered fragment, the result is the same as {@code style(fragment.getStyle(), fragment.getText())}.
+     * In case ansi is enabled and no terminal capabilities are defined the rendered characters are copied at once.
+     *
+     * @param fragment the fragment
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder append(AnsiFragment fragment) {
+        if (segments != null || terminalCapabilities != null) {
+            return this.style(fragment.getStyle(), fragment.getText());
+        }
+
+        if (!ansiColor.isEnabled()) {
+            return this.append(fragment.getText());
+        }
+
+        AnsiBuffer rendered = fragment.getRendered();
+        this.internal.append(rendered, 0, rendered.length());
+        if (AnsiMetrics.ENABLED) {
+            // the same sequences as style(style, text)
+            String escapeSequence = fragment.getStyle().getEscapeSequence();
+            String resetEscapeSequence = fragment.getStyle().getResetEscapeSequence();
+            if (!escapeSequence.isEmpty()) {
+                AnsiMetrics.getInstance().recordEscapeSequence(escapeSequence.length());
+            }
+
+            AnsiMetrics.getInstance().recordText(fragment.getText().length());
+            if (!resetEscapeSequence.isEmpty()) {
+                AnsiMetrics.getInstance().recordEscapeSequence(resetEscapeSequence.length());
+            }
+        }
+        return this;
+    }
+
+    
+    /**
+     * Sets the style, runs the function consumer on this string builder and restores the enclosing style once finished.
+     *
+     * @param style the style
+     * @param consumer the consumer
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder style(AnsiStyle style, java.util.function.Consumer<AnsiStringBuilder> consumer) {
+        this.push(style);
+        consumer.accept(this);
+        return this.pop();
+    }
+
+    
+    /**
+     * Resets the colors and attributes of the style. Colors and attributes which are not supported by the terminal
+     * capabilities are omitted.
+     *
+     * @param style the style
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder resetStyle(AnsiStyle style) {
+        AnsiStyle supportedStyle = supportedStyle(style);
+        if (segments != null) {
+            if (!supportedStyle.isNone()) {
+                segments.apply(supportedStyle.getResetSequence());
+            }
+            return this;
+        }
+
+        return this.appendEscapeSequence(supportedStyle.getResetEscapeSequence());
+    }
+
+    
+    /**
+     * Appends the string representation of the value as hyperlink (OSC 8). In case ansi is not enabled or in segment mode
+     * only the value is appended.
+     *
+     * @param <T> the type
+     * @param url the url, e.g. {@code https://...} or {@code file://...}
+     * @param value the value
+     * @return the AnsiStringBuilder
+     * @throws IllegalArgumentException In case of an invalid url
+     */
+    public <T> AnsiStringBuilder hyperlink(String url, T value) throws IllegalArgumentException {
+        boolean link = startHyperlink(url);
+        this.append(value);
+        return endHyperlink(link);
+    }
+
+    
+    /**
+     * Starts a hyperlink (OSC 8), runs the function consumer on this string builder and ends the hyperlink once finished.
+     * In case ansi is not enabled or in segment mode only the consumer is called.
+     *
+     * @param url the url, e.g. {@code https://...} or {@code file://...}
+     * @param consumer the consumer
+     * @return the AnsiStringBuilder
+     * @throws IllegalArgumentException In case of an invalid url
+     */
+    public AnsiStringBuilder hyperlink(String url, java.util.function.Consumer<AnsiStringBuilder> consumer) throws IllegalArgumentException {
+        boolean link = startHyperlink(url);
+        consumer.accept(this);
+        return endHyperlink(link);
+    }
+
+    
+    /**
+     * Pushes a style on the style stack: the colors of the style replace the colors of the enclosing style and the
+     * attributes are added. Only the differences to the enclosing style are emitted.
+     * <pre>
+     * builder.push(red).append("red ").push(bold).append("bold red").pop().append(" red").pop();
+     * </pre>
+     *
+     * @param style the style
+     * @return the AnsiStringBuilder
+     * @throws IllegalStateException In case the maximum depth {@link #MAX_STYLE_DEPTH} is reached
+     */
+    public AnsiStringBuilder push(AnsiStyle style) throws IllegalStateException {
+        return push(style.getForeground(), style.getBackground(), style.getAttributes());
+    }
+
+    
+    /**
+     * Pops the style from the style stack and emits only the differences which are needed to restore the enclosing style.
+     * The style stack only knows the pushed styles, sequences which are appended in between are not restored.
+     *
+     * @return the AnsiStringBuilder
+     * @throws IllegalStateException In case the style stack is empty
+     */
+    public AnsiStringBuilder pop() throws IllegalStateException {
+        if (styleDepth == 0) {
+            throw new IllegalStateException("The style stack is empty.");
+        }
+
+        int index = styleDepth * 3;
+        styleDepth--;
+        return appendTransition(index, index - 3);
+    }
+
+    
+    /**
+     * Get the number of pushed styles
+     *
+     * @return the depth of the style stack
+     */
+    public int getStyleDepth() {
+        return styleDepth;
+    }
+
+    
+    /**
+     * Appends the text colored with the foreground colors of the gradient. Only one sequence is emitted per run of equal
+     * colors and the foreground color is reset once at the end.
+     *
+     * @param gradient the gradient
+     * @param text the text
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder gradient(AnsiGradient gradient, CharSequence text) {
+        return appendGradient(gradient, text, false);
+    }
+
+    
+    /**
+     * Appends the text colored with the background colors of the gradient. Only one sequence is emitted per run of equal
+     * colors and the background color is reset once at the end.
+     *
+     * @param gradient the gradient
+     * @param text the text
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder backgroundGradient(AnsiGradient gradient, CharSequence text) {
+        return appendGradient(gradient, text, true);
+    }
+
+    
     /**
      * Appends a custom ANSI flag.
      *
@@ -1052,7 +1319,18 @@ public class AnsiStringBuilder {
      * @return AnsiStringBuilder
      */
     public AnsiStringBuilder ansi(String value) {
-        this.append(ansiColor.ansify(value));
+        if (segments != null) {
+            segments.apply(value);
+            return this;
+        }
+
+        String escapeSequence = ansiColor.ansify(value);
+        if (!escapeSequence.isEmpty()) {
+            this.internal.append(escapeSequence);
+            if (AnsiMetrics.ENABLED) {
+                AnsiMetrics.getInstance().recordEscapeSequence(escapeSequence.length());
+            }
+        }
         return this;
     }
 
@@ -1069,6 +1347,20 @@ public class AnsiStringBuilder {
     }
 
     
+    /**
+     * Set the terminal capabilities, e.g. {@code TerminalUtil.getInstance().getTerminalCapabilities()}. If they are defined,
+     * sequences which are not supported by the terminal are skipped and 24-bit colors fall back to 8-bit colors in case
+     * the terminal has no true color support. By default no capabilities are defined and all sequences are emitted.
+     *
+     * @param terminalCapabilities the terminal capabilities or null
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder setTerminalCapabilities(TerminalCapabilities terminalCapabilities) {
+        this.terminalCapabilities = terminalCapabilities;
+        return this;
+    }
+
+    
     /**
      * Appends the string representation of the value argument.
      *
@@ -1077,7 +1369,228 @@ public class AnsiStringBuilder {
      * @return AnsiStringBuilder
      */
     public <T> AnsiStringBuilder append(T value) {
+        int start = this.internal.length();
         this.internal.append(value);
+        if (segments != null) {
+            segments.text(start, this.internal.length());
+        }
+
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordText(this.internal.length() - start);
+        }
+        return this;
+    }
+
+    
+    /**
+     * Appends the leaves of a rope without creating a flat copy. In case ansi is not enabled or in segment mode only the
+     * visible text is appended.
+     *
+     * @param rope the rope
+     * @return AnsiStringBuilder
+     */
+    public AnsiStringBuilder append(AnsiRope rope) {
+        int start = this.internal.length();
+        this.internal.ensureCapacity(start + rope.length());
+        if (segments == null && ansiColor.isEnabled()) {
+            rope.forEachLeaf(this.internal::append);
+        } else {
+            AnsiEscapeScanner scanner = new AnsiEscapeScanner();
+            rope.forEachLeaf(leaf -> {
+                for (int i = 0; i < leaf.length(); i++) {
+                    char c = leaf.charAt(i);
+                    if (scanner.accept(c)) {
+                        this.internal.append(c);
+                    }
+                }
+            });
+        }
+
+        if (segments != null) {
+            segments.text(start, this.internal.length());
+        }
+
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordText(this.internal.length() - start);
+        }
+        return this;
+    }
+
+    
+    /**
+     * Appends a subsequence of the specified character sequence.
+     *
+     * @param charSequence the character sequence
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return AnsiStringBuilder
+     */
+    public AnsiStringBuilder append(CharSequence charSequence, int start, int end) {
+        int position = this.internal.length();
+        this.internal.append(charSequence, start, end);
+        if (segments != null) {
+            segments.text(position, this.internal.length());
+        }
+
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordText(this.internal.length() - position);
+        }
+        return this;
+    }
+
+    
+    /**
+     * Returns the number of characters including the escape sequences, in segment mode the length of the text.
+     *
+     * @return the length
+     */
+    public int length() {
+        return this.internal.length();
+    }
+
+    
+    /**
+     * Returns the width of the visible text in terminal columns, see {@link AnsiEscapeScanner#width(CharSequence)}.
+     *
+     * @return the width
+     */
+    public int width() {
+        return AnsiEscapeScanner.width(this.internal);
+    }
+
+    
+    /**
+     * Sets the length of the character sequence, e.g. {@code setLength(0)} to reuse the builder without a new allocation.
+     * Clearing the builder also clears the style stack. In segment mode the builder can only be cleared.
+     *
+     * @param newLength the new length
+     * @return the AnsiStringBuilder
+     * @throws IllegalStateException In case the length in segment mode is not 0
+     */
+    public AnsiStringBuilder setLength(int newLength) throws IllegalStateException {
+        if (segments != null) {
+            if (newLength != 0) {
+                throw new IllegalStateException("In segment mode the builder can only be cleared.");
+            }
+
+            segments = new AnsiSegments();
+            cachedString = null;
+        }
+
+        if (newLength == 0) {
+            styleDepth = 0;
+        }
+        this.internal.setLength(newLength);
+        return this;
+    }
+
+    
+    /**
+     * Ensures that the capacity is at least equal to the specified minimum, e.g. as size hint before a large output is built.
+     *
+     * @param minimumCapacity the minimum capacity
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder ensureCapacity(int minimumCapacity) {
+        this.internal.ensureCapacity(minimumCapacity);
+        return this;
+    }
+
+    
+    /**
+     * Reduces the storage used for the character sequence to its length.
+     *
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder trimToSize() {
+        this.internal.trimToSize();
+        return this;
+    }
+
+    
+    /**
+     * Writes the characters to a stream without creating a string. In opposite to {@link #toString()} no final reset is appended.
+     *
+     * @param outputStream the stream
+     * @param charset the charset
+     * @throws IOException In case of an I/O error
+     */
+    public void writeTo(OutputStream outputStream, Charset charset) throws IOException {
+        if (segments != null && ansiColor.isEnabled()) {
+            AnsiBuffer rendered = new AnsiBuffer(this.internal.length() + segments.size() * 8 + 16);
+            segments.render(this.internal, rendered);
+            rendered.writeTo(outputStream, charset);
+            return;
+        }
+
+        this.internal.writeTo(outputStream, charset);
+    }
+
+    
+    /**
+     * Writes the characters to a writer without creating a string, e.g. to an {@link com.github.toolarium.ansi.io.AnsiTeeWriter}.
+     * In opposite to {@link #toString()} no final reset is appended.
+     *
+     * @param writer the writer
+     * @throws IOException In case of an I/O error
+     */
+    public void writeTo(Writer writer) throws IOException {
+        if (segments != null && ansiColor.isEnabled()) {
+            AnsiBuffer rendered = new AnsiBuffer(this.internal.length() + segments.size() * 8 + 16);
+            segments.render(this.internal, rendered);
+            rendered.writeTo(writer);
+            return;
+        }
+
+        this.internal.writeTo(writer);
+    }
+
+    
+    /**
+     * Enables or disables the segment mode. In segment mode the escape sequences are not appended to the text: the
+     * builder records the style of each appended text range and the escape sequences are created when the result is
+     * rendered. Therefore the {@link AnsiColor} setting can be changed after the text is built and the plain text is
+     * available without stripping escape sequences. Text which is appended in segment mode must not contain escape
+     * sequences.
+     *
+     * @param segmentMode true to enable the segment mode
+     * @return the AnsiStringBuilder
+     * @throws IllegalStateException In case the builder is not empty
+     */
+    public AnsiStringBuilder setSegmentMode(boolean segmentMode) throws IllegalStateException {
+        if (this.internal.length() > 0) {
+            throw new IllegalStateException("The segment mode can only be changed on an empty builder.");
+        }
+
+        this.segments = segmentMode ? new AnsiSegments() : null;
+        this.cachedString = null;
+        return this;
+    }
+
+    
+    /**
+     * Check if the segment mode is enabled, see {@link #setSegmentMode(boolean)}.
+     *
+     * @return true if the segment mode is enabled
+     */
+    public boolean isSegmentMode() {
+        return segments != null;
+    }
+
+    
+    /**
+     * Visit the styled segments of the text, e.g. to render the text into another format.
+     *
+     * @param visitor the visitor
+     * @return the AnsiStringBuilder
+     * @throws IllegalStateException In case the segment mode is not enabled
+     */
+    public AnsiStringBuilder forEachSegment(AnsiSegmentVisitor visitor) throws IllegalStateException {
+        if (segments == null) {
+            throw new IllegalStateException("The segment mode is not enabled.");
+        }
+
+        segments.forEach(this.internal, visitor);
         return this;
     }
 
@@ -1096,7 +1609,7 @@ public class AnsiStringBuilder {
     /**
      * Returns a string representing the data in this sequence.
      *
-     * @param reset If true, a final call to {@link #reset()} will be made before preparing the string.
+     * @param reset If true, the string ends with a reset sequence in case a style is active, the builder is not changed.
      * @return the String
      */
     public String toString(boolean reset) {
@@ -1105,23 +1618,426 @@ public class AnsiStringBuilder {
 
     
     /**
-     * Returns a string representing the data in this sequence.
+     * Returns a string representing the data in this sequence. The builder is not changed, the string is cached until
+     * the next modification.
      *
-     * @param reset If true, a final call to {@link #reset()} will be made before preparing the string.
+     * @param reset If true, the string ends with a reset sequence in case a style is active, the builder is not changed.
      * @param strip If true, the result will have all ANSI escape sequences removed before returning to caller.
      *
      * @return the String
      */
     public String toString(boolean reset, boolean strip) {
-        if (reset) {
-            this.reset();
+        boolean enabled = ansiColor.isEnabled();
+        int flags = (reset ? 1 : 0) | (strip ? 2 : 0) | (enabled ? 4 : 0);
+        int bufferModification = this.internal.getModificationCount();
+        int segmentModification = segments != null ? segments.getModificationCount() : 0;
+        if (cachedString != null && cachedFlags == flags && cachedBufferModification == bufferModification && cachedSegmentModification == segmentModification) {
+            return cachedString;
+        }
+
+        String result = render(reset, strip, enabled);
+        cachedString = result;
+        cachedFlags = flags;
+        cachedBufferModification = bufferModification;
+        cachedSegmentModification = segmentModification;
+        return result;
+    }
+
+    
+    /**
+     * Render the string
+     *
+     * @param reset true to end with a reset sequence in case a style is active
+     * @param strip true to remove all escape sequences
+     * @param enabled true if ansi is enabled
+     * @return the String
+     */
+    private String render(boolean reset, boolean strip, boolean enabled) {
+        if (segments != null) {
+            if (strip || !enabled) {
+                return this.internal.toString();
+            }
+
+            AnsiBuffer rendered = new AnsiBuffer(this.internal.length() + segments.size() * 8 + 16);
+            segments.render(this.internal, rendered, reset);
+            return rendered.toString();
         }
 
-        String result = this.internal.toString();
         if (strip) {
-            result = result.replaceAll("\u001B\\[[;\\d]*[ -/]*[@-~]", "");
+            return AnsiEscapeScanner.strip(this.internal);
+        }
+
+        String result = this.internal.toString();
+        if (reset && enabled && AnsiStyle.isStyleActive(this.internal)) {
+            result = result.concat(SGR_ESCAPE_SEQUENCES[0]);
+        }
+        return result;
+    }
+
+    
+    /**
+     * Check if italics are supported by the terminal
+     *
+     * @return true if italics are supported or no terminal capabilities are defined
+     */
+    private boolean isItalicSupported() {
+        return terminalCapabilities == null || terminalCapabilities.supportsItalic();
+    }
+
+    
+    /**
+     * Check if strike-through is supported by the terminal
+     *
+     * @return true if strike-through is supported or no terminal capabilities are defined
+     */
+    private boolean isStrikeThroughSupported() {
+        return terminalCapabilities == null || terminalCapabilities.supportsStrikeThrough();
+    }
+
+    
+    /**
+     * Check if a number of colors is supported by the terminal
+     *
+     * @param requiredColors the number of required colors
+     * @return true if the colors are supported or no terminal capabilities are defined
+     */
+    private boolean isColorSupported(int requiredColors) {
+        return terminalCapabilities == null || terminalCapabilities.getMaxColors() >= requiredColors;
+    }
+
+    
+    /**
+     * Appends a SGR escape sequence with one parameter, the sequences of the common codes are prepared
+     *
+     * @param code the code
+     * @return the AnsiStringBuilder
+     */
+    private AnsiStringBuilder ansi(int code) {
+        if (segments != null) {
+            segments.apply(Integer.toString(code));
+            return this;
+        }
+
+        if (code >= 0 && code < SGR_ESCAPE_SEQUENCES.length) {
+            return appendEscapeSequence(SGR_ESCAPE_SEQUENCES[code]);
         }
+        return this.ansi(Integer.toString(code));
+    }
 
+    
+    /**
+     * Appends an 8-bit or 24-bit color sequence if ansi is enabled
+     *
+     * @param color the 8-bit color or the rgb value
+     * @param color8 true if it is an 8-bit color
+     * @param background true for a background color
+     * @return the AnsiStringBuilder
+     */
+    private AnsiStringBuilder ansiColor(int color, boolean color8, boolean background) {
+        if (segments != null || ansiColor.isEnabled()) {
+            appendColorSequence(color, color8, background);
+        }
+        return this;
+    }
+
+    
+    /**
+     * Pushes an encoded style on the style stack, the stack is allocated once with a fixed depth
+     *
+     * @param foreground the encoded foreground color or {@link AnsiStyle#COLOR_NONE} to keep the enclosing color
+     * @param background the encoded background color or {@link AnsiStyle#COLOR_NONE} to keep the enclosing color
+     * @param attributes the attributes to add
+     * @return the AnsiStringBuilder
+     * @throws IllegalStateException In case the maximum depth {@link #MAX_STYLE_DEPTH} is reached
+     */
+    private AnsiStringBuilder push(int foreground, int background, int attributes) throws IllegalStateException {
+        if (styleStack == null) {
+            styleStack = new int[(MAX_STYLE_DEPTH + 1) * 3];
+        }
+
+        if (styleDepth == MAX_STYLE_DEPTH) {
+            throw new IllegalStateException("The style stack is full, the maximum depth is " + MAX_STYLE_DEPTH + ".");
+        }
+
+        int from = styleDepth * 3;
+        int to = from + 3;
+        int supportedForeground = supportedColor(foreground, false);
+        int supportedBackground = supportedColor(background, true);
+        int supportedAttributes = supportedAttributes(attributes);
+        styleStack[to] = supportedForeground != AnsiStyle.COLOR_NONE ? supportedForeground : styleStack[from];
+        styleStack[to + 1] = supportedBackground != AnsiStyle.COLOR_NONE ? supportedBackground : styleStack[from + 1];
+        styleStack[to + 2] = styleStack[from + 2] | supportedAttributes;
+        styleDepth++;
+        return appendTransition(from, to);
+    }
+
+    
+    /**
+     * Appends the sequence which changes a style of the style stack into another one
+     *
+     * @param from the index of the current style
+     * @param to the index of the new style
+     * @return the AnsiStringBuilder
+     */
+    private AnsiStringBuilder appendTransition(int from, int to) {
+        if (segments != null) {
+            AnsiBuffer parameters = new AnsiBuffer(32);
+            if (AnsiStyle.appendTransition(parameters, styleStack[from], styleStack[from + 1], styleStack[from + 2], styleStack[to], styleStack[to + 1], styleStack[to + 2])) {
+                segments.apply(parameters);
+            }
+            return this;
+        }
+
+        if (!ansiColor.isEnabled()) {
+            return this;
+        }
+
+        int start = this.internal.length();
+        this.internal.append(AnsiColor.ANSI_START_ESCAPE_SEQUENCE);
+        if (AnsiStyle.appendTransition(this.internal, styleStack[from], styleStack[from + 1], styleStack[from + 2], styleStack[to], styleStack[to + 1], styleStack[to + 2])) {
+            this.internal.append(AnsiColor.ANSI_STOP_ESCAPE_SEQUENCE);
+            if (AnsiMetrics.ENABLED) {
+                AnsiMetrics.getInstance().recordEscapeSequence(this.internal.length() - start);
+            }
+        } else {
+            this.internal.setLength(start);
+        }
+        return this;
+    }
+
+    
+    /**
+     * Get the style with the colors and attributes which are supported by the terminal capabilities
+     *
+     * @param style the style
+     * @return the supported style
+     */
+    private AnsiStyle supportedStyle(AnsiStyle style) {
+        if (terminalCapabilities == null) {
+            return style;
+        }
+
+        return style.withEncoded(supportedColor(style.getForeground(), false), supportedColor(style.getBackground(), true), supportedAttributes(style.getAttributes()));
+    }
+
+    
+    /**
+     * Get the attributes which are supported by the terminal capabilities
+     *
+     * @param attributes the attributes
+     * @return the supported attributes
+     */
+    private int supportedAttributes(int attributes) {
+        int result = attributes;
+        if (!isItalicSupported()) {
+            result &= ~AnsiStyle.ITALIC;
+        }
+
+        if (!isStrikeThroughSupported()) {
+            result &= ~AnsiStyle.STRIKE_THROUGH;
+        }
+        return result;
+    }
+
+    
+    /**
+     * Get the encoded color which is supported by the terminal capabilities
+     *
+     * @param color the encoded color
+     * @param background true for a background color
+     * @return the supported encoded color or {@link AnsiStyle#COLOR_NONE}
+     */
+    private int supportedColor(int color, boolean background) {
+        int value = color & AnsiStyle.COLOR_VALUE_MASK;
+        switch (color & AnsiStyle.COLOR_TYPE_MASK) {
+            case AnsiStyle.COLOR_4BIT:
+                int brightColor = background ? BackgroundColor.DARK_GRAY.getValue() : ForegroundColor.DARK_GRAY.getValue();
+                return isColorSupported(value >= brightColor ? 16 : 8) ? color : AnsiStyle.COLOR_NONE;
+            case AnsiStyle.COLOR_8BIT:
+                return isColorSupported(256) ? color : AnsiStyle.COLOR_NONE;
+            case AnsiStyle.COLOR_24BIT:
+                if (terminalCapabilities != null && !terminalCapabilities.supportsTrueColor()) {
+                    // fallback to the nearest 8-bit color
+                    return supportedColor(AnsiStyle.COLOR_8BIT | ColorUtil.getInstance().toColor8(value >> 16, (value >> 8) & 0xff, value & 0xff), background);
+                }
+                return color;
+            default:
+                return color;
+        }
+    }
+
+    
+    /**
+     * Encode a 4-bit foreground color
+     *
+     * @param color the color
+     * @return the encoded color, the reset color is not encoded
+     */
+    private static int encode(ForegroundColor color) {
+        return color == null || color == ForegroundColor.RESET ? AnsiStyle.COLOR_NONE : AnsiStyle.COLOR_4BIT | color.getValue();
+    }
+
+    
+    /**
+     * Encode a 4-bit background color
+     *
+     * @param color the color
+     * @return the encoded color, the reset color is not encoded
+     */
+    private static int encode(BackgroundColor color) {
+        return color == null || color == BackgroundColor.RESET ? AnsiStyle.COLOR_NONE : AnsiStyle.COLOR_4BIT | color.getValue();
+    }
+
+    
+    /**
+     * Appends a prepared escape sequence if ansi is enabled
+     *
+     * @param escapeSequence the escape sequence
+     * @return the AnsiStringBuilder
+     */
+    private AnsiStringBuilder appendEscapeSequence(String escapeSequence) {
+        if (!escapeSequence.isEmpty() && ansiColor.isEnabled()) {
+            this.internal.append(escapeSequence);
+            if (AnsiMetrics.ENABLED) {
+                AnsiMetrics.getInstance().recordEscapeSequence(escapeSequence.length());
+            }
+        }
+        return this;
+    }
+
+    
+    /**
+     * Start a hyperlink
+     *
+     * @param url the url
+     * @return true if the hyperlink sequence was appended
+     * @throws IllegalArgumentException In case of an invalid url
+     */
+    private boolean startHyperlink(String url) throws IllegalArgumentException {
+        if (url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("Invalid url!");
+        }
+
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c < ' ' || c == 0x7f) {
+                throw new IllegalArgumentException("Invalid control character in url: " + (int) c + "!");
+            }
+        }
+
+        if (segments != null || !ansiColor.isEnabled()) {
+            return false;
+        }
+
+        this.internal.append(HYPERLINK_START).append(url).append(STRING_TERMINATOR);
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordEscapeSequence(HYPERLINK_START.length() + url.length() + STRING_TERMINATOR.length());
+        }
+        return true;
+    }
+
+    
+    /**
+     * End a hyperlink
+     *
+     * @param link true if the hyperlink was started
+     * @return the AnsiStringBuilder
+     */
+    private AnsiStringBuilder endHyperlink(boolean link) {
+        if (link) {
+            this.internal.append(HYPERLINK_END);
+            if (AnsiMetrics.ENABLED) {
+                AnsiMetrics.getInstance().recordEscapeSequence(HYPERLINK_END.length());
+            }
+        }
+        return this;
+    }
+
+    
+    /**
+     * Appends a text colored by a gradient
+     *
+     * @param gradient the gradient
+     * @param text the text
+     * @param background true to color the background
+     * @return the AnsiStringBuilder
+     */
+    private AnsiStringBuilder appendGradient(AnsiGradient gradient, CharSequence text, boolean background) {
+        if (text == null || text.length() == 0) {
+            return this;
+        }
+
+        if ((segments == null && !ansiColor.isEnabled()) || !isColorSupported(256)) {
+            return this.append(text);
+        }
+
+        boolean color8 = gradient.isColor8() || (terminalCapabilities != null && !terminalCapabilities.supportsTrueColor());
+        int[] colors = gradient.getColors(Character.codePointCount(text, 0, text.length()), color8);
+        int previousColor = -1;
+        int position = 0;
+        for (int i = 0; i < text.length(); position++) {
+            int codePoint = Character.codePointAt(text, i);
+            if (colors[position] != previousColor) {
+                previousColor = colors[position];
+                appendColorSequence(previousColor, color8, background);
+            }
+
+            int start = this.internal.length();
+            this.internal.appendCodePoint(codePoint);
+            if (segments != null) {
+                segments.text(start, this.internal.length());
+            }
+
+            if (AnsiMetrics.ENABLED) {
+                AnsiMetrics.getInstance().recordText(this.internal.length() - start);
+            }
+            i += Character.charCount(codePoint);
+        }
+
+        return this.resetColor(background ? ColorReset.BG : ColorReset.FG);
+    }
+
+    
+    /**
+     * Appends an 8-bit or 24-bit color sequence without intermediate strings
+     *
+     * @param color the 8-bit color or the rgb value
+     * @param color8 true if it is an 8-bit color
+     * @param background true for a background color
+     */
+    private void appendColorSequence(int color, boolean color8, boolean background) {
+        if (segments != null) {
+            String prefix = background ? "48" : "38";
+            segments.apply(color8 ? prefix + ";5;" + color : prefix + ";2;" + (color >> 16) + ';' + ((color >> 8) & 0xff) + ';' + (color & 0xff));
+            return;
+        }
+
+        int start = this.internal.length();
+        this.internal.append(AnsiColor.ANSI_START_ESCAPE_SEQUENCE).append(background ? "48" : "38");
+        if (color8) {
+            this.internal.append(";5;").append(color);
+        } else {
+            this.internal.append(";2;").append(color >> 16).append(';').append((color >> 8) & 0xff).append(';').append(color & 0xff);
+        }
+        this.internal.append(AnsiColor.ANSI_STOP_ESCAPE_SEQUENCE);
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordEscapeSequence(this.internal.length() - start);
+        }
+    }
+
+
+    
+    /**
+     * Create the SGR escape sequences of the codes with one parameter
+     *
+     * @param size the number of codes
+     * @return the escape sequences
+     */
+    private static String[] createSgrEscapeSequences(int size) {
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = AnsiColor.ANSI_START_ESCAPE_SEQUENCE + i + AnsiColor.ANSI_STOP_ESCAPE_SEQUENCE;
+        }
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,1037 @@
+/*
+ * AnsiStyle.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import com.github.toolarium.ansi.color.BackgroundColor;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.util.Locale;
+
+
+/**
+ * An immutable text style: foreground color, background color and attributes such as bold or underline. The
+ * escape sequences to set and to reset the style are prepared once when the style is created.
+ * <pre>
+ * AnsiStyle error = AnsiStyle.of(ForegroundColor.RED).bold();
+ * new AnsiStringBuilder().style(error, "ERROR");
+ * </pre>
+ *
+ * @author patrick
+ */
+public final class AnsiStyle {
+    private static final int[] ATTRIBUTE_SET_CODES = {1, 2, 3, 4, 5, 7, 8, 9};
+    private static final int[] ATTRIBUTE_RESET_CODES = {22, 22, 23, 24, 25, 27, 28, 29};
+
+    /** No style */
+    public static final AnsiStyle NONE = new AnsiStyle(0, 0, 0);
+
+    /** Bold attribute */
+    public static final int BOLD = 1;
+
+    /** Dim attribute */
+    public static final int DIM = 1 << 1;
+
+    /** Italic attribute */
+    public static final int ITALIC = 1 << 2;
+
+    /** Underline attribute */
+    public static final int UNDERLINE = 1 << 3;
+
+    /** Blink attribute */
+    public static final int BLINK = 1 << 4;
+
+    /** Invert color attribute */
+    public static final int INVERT_COLOR = 1 << 5;
+
+    /** Hide attribute */
+    public static final int HIDE = 1 << 6;
+
+    /** Strike-through attribute */
+    public static final int STRIKE_THROUGH = 1 << 7;
+
+    static final int COLOR_NONE = 0;
+    static final int COLOR_4BIT = 1 << 24;
+    static final int COLOR_8BIT = 2 << 24;
+    static final int COLOR_24BIT = 3 << 24;
+    static final int COLOR_TYPE_MASK = 0xff << 24;
+    static final int COLOR_VALUE_MASK = 0xffffff;
+    private final int foreground;
+    private final int background;
+    private final int attributes;
+    private final String sequence;
+    private final String resetSequence;
+    private final String escapeSequence;
+    private final String resetEscapeSequence;
+
+    
+    /**
+     * Constructor for AnsiStyle
+     *
+     * @param foreground the encoded foreground color
+     * @param background the encoded background color
+     * @param attributes the attributes
+     */
+    private AnsiStyle(int foreground, int background, int attributes) {
+        this.foreground = foreground;
+        this.background = background;
+        this.attributes = attributes;
+        this.sequence = createSequence(foreground, background, attributes);
+        this.resetSequence = createResetSequence(foreground, background, attributes);
+        this.escapeSequence = toEscapeSequence(sequence);
+        this.resetEscapeSequence = toEscapeSequence(resetSequence);
+    }
+
+    
+    /**
+     * Create a style with a 4-bit foreground color
+     *
+     * @param foregroundColor the foreground color
+     * @return the style
+     */
+    public static AnsiStyle of(ForegroundColor foregroundColor) {
+        return NONE.foreground(foregroundColor);
+    }
+
+    
+    /**
+     * Create a style with a 4-bit background color
+     *
+     * @param backgroundColor the background color
+     * @return the style
+     */
+    public static AnsiStyle of(BackgroundColor backgroundColor) {
+        return NONE.background(backgroundColor);
+    }
+
+    
+    /**
+     * Create a style with a 4-bit foreground and background color
+     *
+     * @param foregroundColor the foreground color
+     * @param backgroundColor the background color
+     * @return the style
+     */
+    public static AnsiStyle of(ForegroundColor foregroundColor, BackgroundColor backgroundColor) {
+        return NONE.foreground(foregroundColor).background(backgroundColor);
+    }
+
+
+    
+    /**
+     * Parse a style specification, e.g. {@code bold red on #202020}. The specification consists of words which are
+     * separated by whitespaces or commas (case insensitive):
+     * <ul>
+     * <li>the attributes {@code bold}, {@code dim}, {@code italic}, {@code underline}, {@code blink}, {@code invert},
+     * {@code hide}, {@code strikethrough}</li>
+     * <li>the foreground color as name of a {@link ForegroundColor}, 8-bit color number (0-255) or 24-bit color
+     * ({@code #rrggbb})</li>
+     * <li>the background color in the same format after the word {@code on}</li>
+     * <li>{@code none} for no style</li>
+     * </ul>
+     *
+     * @param specification the specification
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid specification
+     */
+    public static AnsiStyle parse(String specification) throws IllegalArgumentException {
+        if (specification == null) {
+            throw new IllegalArgumentException("Invalid style specification!");
+        }
+
+        AnsiStyle result = NONE;
+        boolean background = false;
+        for (String word : specification.trim().split("[\\s,]+")) {
+            String name = word.toUpperCase(Locale.ROOT);
+            if (name.isEmpty() || "NONE".equals(name)) {
+                continue;
+            }
+
+            if ("ON".equals(name)) {
+                background = true;
+                continue;
+            }
+
+            if (background) {
+                result = parseColor(result, name, true);
+                background = false;
+                continue;
+            }
+
+            switch (name) {
+                case "BOLD":
+                    result = result.bold();
+                    break;
+                case "DIM":
+                    result = result.dim();
+                    break;
+                case "ITALIC":
+                    result = result.italic();
+                    break;
+                case "UNDERLINE":
+                    result = result.underline();
+                    break;
+                case "BLINK":
+                    result = result.blink();
+                    break;
+                case "INVERT":
+                case "INVERT_COLOR":
+                    result = result.invertColor();
+                    break;
+                case "HIDE":
+                    result = result.hide();
+                    break;
+                case "STRIKETHROUGH":
+                case "STRIKE_THROUGH":
+                    result = result.strikeThrough();
+                    break;
+                default:
+                    result = parseColor(result, name, false);
+                    break;
+            }
+        }
+
+        if (background) {
+            throw new IllegalArgumentException("Missing background color in style specification: " + specification + "!");
+        }
+        return result;
+    }
+
+    
+    /**
+     * Get a style with the 4-bit foreground color
+     *
+     * @param foregroundColor the foreground color
+     * @return the style
+     */
+    public AnsiStyle foreground(ForegroundColor foregroundColor) {
+        if (foregroundColor == null || foregroundColor == ForegroundColor.RESET) {
+            return with(COLOR_NONE, background, attributes);
+        }
+
+        return with(COLOR_4BIT | foregroundColor.getValue(), background, attributes);
+    }
+
+    
+    /**
+     * Get a style with the 4-bit background color
+     *
+     * @param backgroundColor the background color
+     * @return the style
+     */
+    public AnsiStyle background(BackgroundColor backgroundColor) {
+        if (backgroundColor == null || backgroundColor == BackgroundColor.RESET) {
+            return with(foreground, COLOR_NONE, attributes);
+        }
+
+        return with(foreground, COLOR_4BIT | backgroundColor.getValue(), attributes);
+    }
+
+    
+    /**
+     * Get a style with the 8-bit foreground color
+     *
+     * @param color the color
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiStyle foreground8(int color) throws IllegalArgumentException {
+        return with(COLOR_8BIT | validateColor8(color), background, attributes);
+    }
+
+    
+    /**
+     * Get a style with the 8-bit background color
+     *
+     * @param color the color
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiStyle background8(int color) throws IllegalArgumentException {
+        return with(foreground, COLOR_8BIT | validateColor8(color), attributes);
+    }
+
+    
+    /**
+     * Get a style with the 24-bit foreground color
+     *
+     * @param r the r-value
+     * @param g the g-value
+     * @param b the b-value
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiStyle foreground24(int r, int g, int b) throws IllegalArgumentException {
+        return with(COLOR_24BIT | validateColor24(r, g, b), background, attributes);
+    }
+
+    
+    /**
+     * Get a style with the 24-bit foreground color using a hexadecimal color value, e.g. {@code #ff0000}.
+     *
+     * @param hexColor the color
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiStyle foreground24(String hexColor) throws IllegalArgumentException {
+        return with(COLOR_24BIT | parseHexColor(hexColor), background, attributes);
+    }
+
+    
+    /**
+     * Get a style with the 24-bit background color
+     *
+     * @param r the r-value
+     * @param g the g-value
+     * @param b the b-value
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiStyle background24(int r, int g, int b) throws IllegalArgumentException {
+        return with(foreground, COLOR_24BIT | validateColor24(r, g, b), attributes);
+    }
+
+    
+    /**
+     * Get a style with the 24-bit background color using a hexadecimal color value, e.g. {@code #ff0000}.
+     *
+     * @param hexColor the color
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiStyle background24(String hexColor) throws IllegalArgumentException {
+        return with(foreground, COLOR_24BIT | parseHexColor(hexColor), attributes);
+    }
+
+    
+    /**
+     * Get a style with the bold attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle bold() {
+        return with(foreground, background, attributes | BOLD);
+    }
+
+    
+    /**
+     * Get a style with the dim attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle dim() {
+        return with(foreground, background, attributes | DIM);
+    }
+
+    
+    /**
+     * Get a style with the italic attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle italic() {
+        return with(foreground, background, attributes | ITALIC);
+    }
+
+    
+    /**
+     * Get a style with the underline attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle underline() {
+        return with(foreground, background, attributes | UNDERLINE);
+    }
+
+    
+    /**
+     * Get a style with the blink attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle blink() {
+        return with(foreground, background, attributes | BLINK);
+    }
+
+    
+    /**
+     * Get a style with the invert color attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle invertColor() {
+        return with(foreground, background, attributes | INVERT_COLOR);
+    }
+
+    
+    /**
+     * Get a style with the hide attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle hide() {
+        return with(foreground, background, attributes | HIDE);
+    }
+
+    
+    /**
+     * Get a style with the strike-through attribute
+     *
+     * @return the style
+     */
+    public AnsiStyle strikeThrough() {
+        return with(foreground, background, attributes | STRIKE_THROUGH);
+    }
+
+    
+    /**
+     * Get the style which is active after the SGR escape sequences of a text range are applied to this style, e.g. to set
+     * the style of a line again at the start of the next line. Other escape sequences are ignored.
+     *
+     * @param text the text with escape sequences
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return the resulting style
+     */
+    public AnsiStyle applyEscapeSequences(CharSequence text, int start, int end) {
+        AnsiStyle result = this;
+        int escape = AnsiEscapeScanner.indexOf(text, start, end);
+        while (escape >= 0) {
+            int position = escape + 1;
+            if (position < end && text.charAt(position) == '[') {
+                int parameterStart = ++position;
+                while (position < end && text.charAt(position) >= '0' && text.charAt(position) <= '?') {
+                    position++;
+                }
+
+                if (position < end && text.charAt(position) == 'm') {
+                    result = result.apply(text.subSequence(parameterStart, position));
+                }
+            }
+            escape = AnsiEscapeScanner.indexOf(text, position, end);
+        }
+        return result;
+    }
+
+    
+    /**
+     * Check if the style has an attribute
+     *
+     * @param attribute the attribute, e.g. {@link #BOLD}
+     * @return true if the attribute is set
+     */
+    public boolean hasAttribute(int attribute) {
+        return (attributes & attribute) == attribute;
+    }
+
+    
+    /**
+     * Check if nothing is styled
+     *
+     * @return true if neither a color nor an attribute is set
+     */
+    public boolean isNone() {
+        return foreground == COLOR_NONE && background == COLOR_NONE && attributes == 0;
+    }
+
+    
+    /**
+     * Get the select graphic rendition parameters of the style, e.g. {@code 1;31}.
+     *
+     * @return the parameters, empty if nothing is styled
+     */
+    public String getSequence() {
+        return sequence;
+    }
+
+    
+    /**
+     * Get the select graphic rendition parameters which reset the style, e.g. {@code 22;39}.
+     *
+     * @return the parameters, empty if nothing is styled
+     */
+    public String getResetSequence() {
+        return resetSequence;
+    }
+
+    
+    /**
+     * Get the escape sequence to set the style
+     *
+     * @param ansiColor the ansi color setting
+     * @return the escape sequence or an empty string if ansi is not enabled
+     */
+    public String toAnsi(AnsiColor ansiColor) {
+        if (ansiColor.isEnabled()) {
+            return escapeSequence;
+        }
+
+        return "";
+    }
+
+    
+    /**
+     * Get the escape sequence to reset the style
+     *
+     * @param ansiColor the ansi color setting
+     * @return the escape sequence or an empty string if ansi is not enabled
+     */
+    public String toResetAnsi(AnsiColor ansiColor) {
+        if (ansiColor.isEnabled()) {
+            return resetEscapeSequence;
+        }
+
+        return "";
+    }
+
+    
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return (31 * foreground + background) * 31 + attributes;
+    }
+
+    
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        AnsiStyle other = (AnsiStyle) obj;
+        return foreground == other.foreground && background == other.background && attributes == other.attributes;
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "AnsiStyle [" + sequence + "]";
+    }
+
+    
+    /**
+     * Get the escape sequence to set the style
+     *
+     * @return the escape sequence, empty if nothing is styled
+     */
+    String getEscapeSequence() {
+        return escapeSequence;
+    }
+
+    
+    /**
+     * Get the escape sequence to reset the style
+     *
+     * @return the escape sequence, empty if nothing is styled
+     */
+    String getResetEscapeSequence() {
+        return resetEscapeSequence;
+    }
+
+    
+    /**
+     * Get the encoded foreground color
+     *
+     * @return the encoded foreground color
+     */
+    int getForeground() {
+        return foreground;
+    }
+
+    
+    /**
+     * Get the encoded background color
+     *
+     * @return the encoded background color
+     */
+    int getBackground() {
+        return background;
+    }
+
+    
+    /**
+     * Get the attributes
+     *
+     * @return the attributes
+     */
+    int getAttributes() {
+        return attributes;
+    }
+
+    
+    /**
+     * Get a style with other encoded values, e.g. the colors and attributes which are supported by a terminal
+     *
+     * @param newForeground the encoded foreground color
+     * @param newBackground the encoded background color
+     * @param newAttributes the attributes
+     * @return the style
+     */
+    AnsiStyle withEncoded(int newForeground, int newBackground, int newAttributes) {
+        return with(newForeground, newBackground, newAttributes);
+    }
+
+    
+    /**
+     * Get the style which results when the SGR parameters are applied to this style, e.g. {@code "1;31"} or {@code "0"}.
+     * Unknown parameters are ignored.
+     *
+     * @param parameters the parameters, separated by semicolon
+     * @return the resulting style
+     */
+    AnsiStyle apply(CharSequence parameters) {
+        int newForeground = foreground;
+        int newBackground = background;
+        int newAttributes = attributes;
+        int[] codes = parseParameters(parameters);
+        for (int i = 0; i < codes.length; i++) {
+            int code = codes[i];
+            if (code == 0) {
+                newForeground = COLOR_NONE;
+                newBackground = COLOR_NONE;
+                newAttributes = 0;
+            } else if ((code == 38 || code == 48) && i + 2 < codes.length && codes[i + 1] == 5) {
+                int color = COLOR_8BIT | (codes[i + 2] & 0xff);
+                if (code == 38) {
+                    newForeground = color;
+                } else {
+                    newBackground = color;
+                }
+                i += 2;
+            } else if ((code == 38 || code == 48) && i + 4 < codes.length && codes[i + 1] == 2) {
+                int color = COLOR_24BIT | (codes[i + 2] & 0xff) << 16 | (codes[i + 3] & 0xff) << 8 | (codes[i + 4] & 0xff);
+                if (code == 38) {
+                    newForeground = color;
+                } else {
+                    newBackground = color;
+                }
+                i += 4;
+            } else if ((code >= 30 && code <= 37) || (code >= 90 && code <= 97)) {
+                newForeground = COLOR_4BIT | code;
+            } else if ((code >= 40 && code <= 47) || (code >= 100 && code <= 107)) {
+                newBackground = COLOR_4BIT | code;
+            } else if (code == ForegroundColor.RESET.getValue()) {
+                newForeground = COLOR_NONE;
+            } else if (code == BackgroundColor.RESET.getValue()) {
+                newBackground = COLOR_NONE;
+            } else {
+                for (int j = 0; j < ATTRIBUTE_SET_CODES.length; j++) {
+                    if (code == ATTRIBUTE_SET_CODES[j]) {
+                        newAttributes |= 1 << j;
+                    } else if (code == ATTRIBUTE_RESET_CODES[j]) {
+                        newAttributes &= ~(1 << j);
+                    }
+                }
+            }
+        }
+
+        return with(newForeground, newBackground, newAttributes);
+    }
+
+    
+    /**
+     * Get the escape sequence which changes this style into another style. Only the differences are emitted, e.g.
+     * from bold red to bold green only the foreground color is set.
+     *
+     * @param target the target style
+     * @return the escape sequence or an empty string if the styles are equal
+     */
+    String getTransitionSequence(AnsiStyle target) {
+        if (target == this || equals(target)) {
+            return "";
+        }
+
+        if (target.isNone()) {
+            return resetEscapeSequence;
+        }
+
+        if (isNone()) {
+            return target.escapeSequence;
+        }
+
+        AnsiBuffer result = new AnsiBuffer(32);
+        appendTransition(result, foreground, background, attributes, target.foreground, target.background, target.attributes);
+        return toEscapeSequence(result.toString());
+    }
+
+    
+    /**
+     * Append the parameters which change a style into another style, only the differences are appended
+     *
+     * @param result the result
+     * @param foreground the encoded foreground color of the current style
+     * @param background the encoded background color of the current style
+     * @param attributes the attributes of the current style
+     * @param targetForeground the encoded foreground color of the target style
+     * @param targetBackground the encoded background color of the target style
+     * @param targetAttributes the attributes of the target style
+     * @return true if parameters were appended
+     */
+    static boolean appendTransition(AnsiBuffer result, int foreground, int background, int attributes, int targetForeground, int targetBackground, int targetAttributes) {
+        int start = result.length();
+        int removed = attributes & ~targetAttributes;
+        int added = targetAttributes & ~attributes;
+        int previousCode = -1;
+        for (int i = 0; i < ATTRIBUTE_RESET_CODES.length; i++) {
+            if ((removed & (1 << i)) != 0 && ATTRIBUTE_RESET_CODES[i] != previousCode) {
+                appendParameter(result, start, ATTRIBUTE_RESET_CODES[i]);
+                previousCode = ATTRIBUTE_RESET_CODES[i];
+                if (ATTRIBUTE_RESET_CODES[i] == 22) {
+                    // bold and dim share the reset code
+                    added |= targetAttributes & (BOLD | DIM);
+                }
+            }
+        }
+
+        for (int i = 0; i < ATTRIBUTE_SET_CODES.length; i++) {
+            if ((added & (1 << i)) != 0) {
+                appendParameter(result, start, ATTRIBUTE_SET_CODES[i]);
+            }
+        }
+
+        if (foreground != targetForeground) {
+            if (targetForeground == COLOR_NONE) {
+                appendParameter(result, start, ForegroundColor.RESET.getValue());
+            } else {
+                appendColor(result, start, targetForeground, false);
+            }
+        }
+
+        if (background != targetBackground) {
+            if (targetBackground == COLOR_NONE) {
+                appendParameter(result, start, BackgroundColor.RESET.getValue());
+            } else {
+                appendColor(result, start, targetBackground, true);
+            }
+        }
+
+        return result.length() > start;
+    }
+
+    
+    /**
+     * Parse SGR parameters, an empty parameter is 0
+     *
+     * @param parameters the parameters, separated by semicolon
+     * @return the codes
+     */
+    private static int[] parseParameters(CharSequence parameters) {
+        int count = 1;
+        for (int i = 0; i < parameters.length(); i++) {
+            if (parameters.charAt(i) == ';') {
+                count++;
+            }
+        }
+
+        int[] result = new int[count];
+        int index = 0;
+        for (int i = 0; i < parameters.length(); i++) {
+            char c = parameters.charAt(i);
+            if (c == ';') {
+                index++;
+            } else if (c >= '0' && c <= '9') {
+                result[index] = Math.min(result[index] * 10 + (c - '0'), 0xffff);
+            }
+        }
+        return result;
+    }
+
+    
+    /**
+     * Get a style with other values
+     *
+     * @param newForeground the encoded foreground color
+     * @param newBackground the encoded background color
+     * @param newAttributes the attributes
+     * @return the style
+     */
+    private AnsiStyle with(int newForeground, int newBackground, int newAttributes) {
+        if (newForeground == foreground && newBackground == background && newAttributes == attributes) {
+            return this;
+        }
+
+        if (newForeground == COLOR_NONE && newBackground == COLOR_NONE && newAttributes == 0) {
+            return NONE;
+        }
+
+        return new AnsiStyle(newForeground, newBackground, newAttributes);
+    }
+
+    
+    /**
+     * Create the parameters to set a style
+     *
+     * @param foreground the encoded foreground color
+     * @param background the encoded background color
+     * @param attributes the attributes
+     * @return the parameters
+     */
+    private static String createSequence(int foreground, int background, int attributes) {
+        AnsiBuffer result = new AnsiBuffer(32);
+        for (int i = 0; i < ATTRIBUTE_SET_CODES.length; i++) {
+            if ((attributes & (1 << i)) != 0) {
+                appendParameter(result, 0, ATTRIBUTE_SET_CODES[i]);
+            }
+        }
+
+        appendColor(result, 0, foreground, false);
+        appendColor(result, 0, background, true);
+        return result.toString();
+    }
+
+    
+    /**
+     * Create the parameters to reset a style
+     *
+     * @param foreground the encoded foreground color
+     * @param background the encoded background color
+     * @param attributes the attributes
+     * @return the parameters
+     */
+    private static String createResetSequence(int foreground, int background, int attributes) {
+        AnsiBuffer result = new AnsiBuffer(16);
+        int previousCode = -1;
+        for (int i = 0; i < ATTRIBUTE_RESET_CODES.length; i++) {
+            if ((attributes & (1 << i)) != 0 && ATTRIBUTE_RESET_CODES[i] != previousCode) {
+                appendParameter(result, 0, ATTRIBUTE_RESET_CODES[i]);
+                previousCode = ATTRIBUTE_RESET_CODES[i];
+            }
+        }
+
+        if (foreground != COLOR_NONE) {
+            appendParameter(result, 0, ForegroundColor.RESET.getValue());
+        }
+
+        if (background != COLOR_NONE) {
+            appendParameter(result, 0, BackgroundColor.RESET.getValue());
+        }
+
+        return result.toString();
+    }
+
+    
+    /**
+     * Append the parameters of an encoded color
+     *
+     * @param result the result
+     * @param start the start of the parameters in the result
+     * @param color the encoded color
+     * @param background true for a background color
+     */
+    private static void appendColor(AnsiBuffer result, int start, int color, boolean background) {
+        int value = color & COLOR_VALUE_MASK;
+        switch (color & COLOR_TYPE_MASK) {
+            case COLOR_4BIT:
+                appendParameter(result, start, value);
+                break;
+            case COLOR_8BIT:
+                appendParameter(result, start, background ? 48 : 38);
+                result.append(";5;").append(value);
+                break;
+            case COLOR_24BIT:
+                appendParameter(result, start, background ? 48 : 38);
+                result.append(";2;").append(value >> 16).append(';').append((value >> 8) & 0xff).append(';').append(value & 0xff);
+                break;
+            default:
+                break;
+        }
+    }
+
+    
+    /**
+     * Append a parameter
+     *
+     * @param result the result
+     * @param start the start of the parameters in the result
+     * @param code the code
+     */
+    private static void appendParameter(AnsiBuffer result, int start, int code) {
+        if (result.length() > start) {
+            result.append(';');
+        }
+        result.append(code);
+    }
+
+    
+    /**
+     * Create an escape sequence
+     *
+     * @param parameters the parameters
+     * @return the escape sequence or an empty string
+     */
+    private static String toEscapeSequence(String parameters) {
+        if (parameters.isEmpty()) {
+            return "";
+        }
+
+        return AnsiColor.ANSI_START_ESCAPE_SEQUENCE + parameters + AnsiColor.ANSI_STOP_ESCAPE_SEQUENCE;
+    }
+
+    
+    /**
+     * Validate an 8-bit color
+     *
+     * @param color the color
+     * @return the color
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    static int validateColor8(int color) throws IllegalArgumentException {
+        if (color < 0 || color > 255) {
+            throw new IllegalArgumentException("Valid 8-bit colors must be within the range of 0-255.");
+        }
+
+        return color;
+    }
+
+    
+    /**
+     * Validate a 24-bit color
+     *
+     * @param r the r-value
+     * @param g the g-value
+     * @param b the b-value
+     * @return the rgb value
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    static int validateColor24(int r, int g, int b) throws IllegalArgumentException {
+        if (r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255) {
+            throw new IllegalArgumentException("Valid 24-bit RGB values must be within the range of 0-255.");
+        }
+
+        return r << 16 | g << 8 | b;
+    }
+
+    
+    /**
+     * Check if a style is active at the end of a text: the SGR sequences of the text are evaluated without creating
+     * styles. Other escape sequences are ignored.
+     *
+     * @param text the text with escape sequences
+     * @return true if a color or an attribute is set at the end of the text
+     */
+    static boolean isStyleActive(CharSequence text) {
+        boolean foregroundActive = false;
+        boolean backgroundActive = false;
+        int activeCodes = 0;
+        int length = text.length();
+        int escape = AnsiEscapeScanner.indexOf(text, 0, length);
+        while (escape >= 0) {
+            int end = escape + 1;
+            if (end < length && text.charAt(end) == '[') {
+                int start = ++end;
+                while (end < length && text.charAt(end) >= '0' && text.charAt(end) <= '?') {
+                    end++;
+                }
+
+                if (end < length && text.charAt(end) == 'm') {
+                    int code = 0;
+                    int skip = 0;
+                    for (int i = start; i <= end; i++) {
+                        char c = text.charAt(i);
+                        if (c >= '0' && c <= '9') {
+                            code = Math.min(code * 10 + c - '0', 1000);
+                            continue;
+                        }
+
+                        if (skip < 0) {
+                            // the type of an extended color: 5 = 8-bit, 2 = 24-bit
+                            skip = code == 5 ? 1 : code == 2 ? 3 : 0;
+                        } else if (skip > 0) {
+                            skip--;
+                        } else if (code == 0) {
+                            foregroundActive = false;
+                            backgroundActive = false;
+                            activeCodes = 0;
+                        } else if (code < 10) {
+                            activeCodes |= 1 << code;
+                        } else if (code == 22) {
+                            activeCodes &= ~(1 << 1 | 1 << 2);
+                        } else if (code == 25) {
+                            activeCodes &= ~(1 << 5 | 1 << 6);
+                        } else if (code > 22 && code < 30) {
+                            activeCodes &= ~(1 << (code - 20));
+                        } else if ((code >= 30 && code <= 37) || (code >= 90 && code <= 97)) {
+                            foregroundActive = true;
+                        } else if (code == 38 || code == 48) {
+                            foregroundActive |= code == 38;
+                            backgroundActive |= code == 48;
+                            skip = -1;
+                        } else if (code == 39) {
+                            foregroundActive = false;
+                        } else if ((code >= 40 && code <= 47) || (code >= 100 && code <= 107)) {
+                            backgroundActive = true;
+                        } else if (code == 49) {
+                            backgroundActive = false;
+                        }
+                        code = 0;
+                    }
+                }
+            }
+            escape = AnsiEscapeScanner.indexOf(text, end, length);
+        }
+
+        return foregroundActive || backgroundActive || activeCodes != 0;
+    }
+
+    
+    /**
+     * Parse a color of a style specification
+     *
+     * @param style the style
+     * @param name the upper case color name, 8-bit color number or hexadecimal color
+     * @param background true for the background color
+     * @return the style with the color
+     * @throws IllegalArgumentException In case of an invalid color
+     */
+    private static AnsiStyle parseColor(AnsiStyle style, String name, boolean background) throws IllegalArgumentException {
+        if (name.startsWith("#")) {
+            return background ? style.background24(name) : style.foreground24(name);
+        }
+
+        if (Character.isDigit(name.charAt(0))) {
+            int color;
+            try {
+                color = Integer.parseInt(name);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid 8-bit color: " + name + "!");
+            }
+            return background ? style.background8(color) : style.foreground8(color);
+        }
+
+        try {
+            return background ? style.background(BackgroundColor.valueOf(name)) : style.foreground(ForegroundColor.valueOf(name));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid color or attribute: " + name.toLowerCase(Locale.ROOT) + "!");
+        }
+    }
+
+    
+    /**
+     * Parse a hexadecimal color
+     *
+     * @param hexColor the color
+     * @return the rgb value
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    static int parseHexColor(String hexColor) throws IllegalArgumentException {
+        if (hexColor == null || !hexColor.matches("^\\#[A-Fa-f0-9]{6}$")) {
+            throw new IllegalArgumentException("Invalid 24-bit hexadecimal color value.");
+        }
+
+        return Integer.parseInt(hexColor.substring(1), 16);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * AhoCorasickMatcher.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+
+/**
+ * Multi pattern matcher based on the Aho-Corasick automaton: all occurrences of all keywords are found in a single
+ * pass over the text. Transitions of ASCII characters are resolved into a dense table, other characters follow the
+ * failure links. Equal keywords end in the same state, the state keeps the indexes of all of them.
+ *
+ * @author patrick
+ */
+final class AhoCorasickMatcher {
+    private static final int ASCII = 128;
+    private final boolean ignoreCase;
+    private final int[] keywordLengths;
+    private final int[] asciiTransitions;
+    private final List<Map<Character, Integer>> transitions;
+    private final int[] failure;
+    private final int[][] output;
+    private final int[] outputLink;
+
+    
+    /**
+     * Callback for matches
+     *
+     * @author patrick
+     */
+    interface MatchHandler {
+
+        /**
+         * A keyword was found
+         *
+         * @param start the start index
+         * @param end the end index (exclusive)
+         * @param keywordIndex the index of the keyword
+         */
+        void match(int start, int end, int keywordIndex);
+    }
+
+    
+    /**
+     * Constructor for AhoCorasickMatcher
+     *
+     * @param keywords the keywords
+     * @param ignoreCase true to ignore the case
+     */
+    AhoCorasickMatcher(List<String> keywords, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.keywordLengths = new int[keywords.size()];
+
+        // build the trie
+        transitions = new ArrayList<>();
+        transitions.add(new HashMap<>());
+        List<int[]> outputs = new ArrayList<>();
+        outputs.add(null);
+        for (int i = 0; i < keywords.size(); i++) {
+            String keyword = keywords.get(i);
+            keywordLengths[i] = keyword.length();
+            int state = 0;
+            for (int j = 0; j < keyword.length(); j++) {
+                Character c = normalize(keyword.charAt(j));
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.add(new HashMap<>());
+                    outputs.add(null);
+                    transitions.get(state).put(c, next);
+                }
+                state = next;
+            }
+
+            if (!keyword.isEmpty()) {
+                int[] keywordIndexes = outputs.get(state);
+                if (keywordIndexes == null) {
+                    keywordIndexes = new int[] {i};
+                } else {
+                    keywordIndexes = Arrays.copyOf(keywordIndexes, keywordIndexes.length + 1);
+                    keywordIndexes[keywordIndexes.length - 1] = i;
+                }
+                outputs.set(state, keywordIndexes);
+            }
+        }
+
+        int stateCount = transitions.size();
+        output = outputs.toArray(new int[stateCount][]);
+
+        // breadth first: failure links, output links and the dense ascii table
+        failure = new int[stateCount];
+        outputLink = new int[stateCount];
+        Arrays.fill(outputLink, -1);
+        asciiTransitions = new int[stateCount * ASCII];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (Map.Entry<Character, Integer> entry : transitions.get(0).entrySet()) {
+            if (entry.getKey() < ASCII) {
+                asciiTransitions[entry.getKey()] = entry.getValue();
+            }
+            queue.add(entry.getValue());
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            outputLink[state] = output[fail] != null ? fail : outputLink[fail];
+
+            for (int c = 0; c < ASCII; c++) {
+                asciiTransitions[state * ASCII + c] = asciiTransitions[fail * ASCII + c];
+            }
+
+            for (Map.Entry<Character, Integer> entry : transitions.get(state).entrySet()) {
+                int next = entry.getValue();
+                failure[next] = state == 0 ? 0 : nextState(fail, entry.getKey());
+                if (entry.getKey() < ASCII) {
+                    asciiTransitions[state * ASCII + entry.getKey()] = next;
+                }
+                queue.add(next);
+            }
+        }
+    }
+
+    
+    /**
+     * Find all keywords in a text
+     *
+     * @param text the text
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @param handler the handler which is called for each occurrence of each keyword
+     */
+    void match(CharSequence text, int start, int end, MatchHandler handler) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < ASCII) {
+                if (ignoreCase && c >= 'A' && c <= 'Z') {
+                    c = (char) (c + ('a' - 'A'));
+                }
+                state = asciiTransitions[state * ASCII + c];
+            } else {
+                state = nextState(state, normalize(c));
+            }
+
+            int matchState = output[state] != null ? state : outputLink[state];
+            while (matchState > 0) {
+                for (int keywordIndex : output[matchState]) {
+                    handler.match(i + 1 - keywordLengths[keywordIndex], i + 1, keywordIndex);
+                }
+                matchState = outputLink[matchState];
+            }
+        }
+    }
+
+    
+    /**
+     * Get the next state by following the failure links
+     *
+     * @param state the current state
+     * @param c the character
+     * @return the next state
+     */
+    private int nextState(int state, char c) {
+        int current = state;
+        while (true) {
+            Integer next = transitions.get(current).get(c);
+            if (next != null) {
+                return next;
+            }
+
+            if (current == 0) {
+                return 0;
+            }
+            current = failure[current];
+        }
+    }
+
+    
+    /**
+     * Normalize a character
+     *
+     * @param c the character
+     * @return the normalized character
+     */
+    private char normalize(char c) {
+        if (ignoreCase) {
+            return Character.toLowerCase(c);
+        }
+
+        return c;
+    }
+}
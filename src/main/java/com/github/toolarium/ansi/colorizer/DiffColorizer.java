@@ -0,0 +1,631 @@
+/*
+ * DiffColorizer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Streaming colorizer of unified diffs. The input is processed line by line: headers, hunk headers, added and removed
+ * lines are colored. Consecutive removed and added lines are paired and the changed words are highlighted with an 8-bit
+ * background color; the word differences are computed with the linear space variant of the Myers algorithm. Only the
+ * lines of the current change block are held in memory.
+ *
+ * @author patrick
+ */
+public class DiffColorizer {
+    private AnsiColor ansiColor = AnsiColor.AUTO;
+    private AnsiStyle headerStyle = AnsiStyle.NONE.bold();
+    private AnsiStyle hunkStyle = AnsiStyle.of(ForegroundColor.CYAN);
+    private AnsiStyle removedStyle = AnsiStyle.of(ForegroundColor.RED);
+    private AnsiStyle addedStyle = AnsiStyle.of(ForegroundColor.GREEN);
+    private AnsiStyle removedHighlightStyle = AnsiStyle.NONE.background8(52);
+    private AnsiStyle addedHighlightStyle = AnsiStyle.NONE.background8(22);
+
+    
+    /**
+     * Set the ansi color setting: ON, OFF, AUTO
+     *
+     * @param ansiColor the enumeration
+     * @return the DiffColorizer
+     */
+    public DiffColorizer setAnsiColor(AnsiColor ansiColor) {
+        this.ansiColor = ansiColor;
+        return this;
+    }
+
+    
+    /**
+     * Set the 8-bit background colors to highlight the changed words
+     *
+     * @param removedColor the 8-bit color of removed words
+     * @param addedColor the 8-bit color of added words
+     * @return the DiffColorizer
+     * @throws IllegalArgumentException In case of an invalid color
+     */
+    public DiffColorizer setHighlightColors(int removedColor, int addedColor) throws IllegalArgumentException {
+        this.removedHighlightStyle = AnsiStyle.NONE.background8(removedColor);
+        this.addedHighlightStyle = AnsiStyle.NONE.background8(addedColor);
+        return this;
+    }
+
+    
+    /**
+     * Colorize a unified diff. The writer is flushed but not closed.
+     *
+     * @param reader the reader
+     * @param writer the writer
+     * @throws IOException In case of an I/O error
+     */
+    public void colorize(Reader reader, Writer writer) throws IOException {
+        new Renderer(new StreamBuffer(reader, writer)).run();
+    }
+
+    
+    /**
+     * Mark the changed tokens of two lines
+     *
+     * @param removed the removed line
+     * @param removedTokens the token boundaries of the removed line
+     * @param added the added line
+     * @param addedTokens the token boundaries of the added line
+     * @param removedChanges the changed tokens of the removed line
+     * @param addedChanges the changed tokens of the added line
+     */
+    static void diff(CharSequence removed, int[] removedTokens, CharSequence added, int[] addedTokens, boolean[] removedChanges, boolean[] addedChanges) {
+        new WordDiff(removed, removedTokens, added, addedTokens, removedChanges, addedChanges).diff(0, removedTokens.length - 1, 0, addedTokens.length - 1);
+    }
+
+    
+    /**
+     * Split a line into tokens: words, whitespace runs and single other characters
+     *
+     * @param line the line
+     * @param start the start index
+     * @return the token boundaries: start of each token and the end of the last token
+     */
+    static int[] tokenize(CharSequence line, int start) {
+        int[] boundaries = new int[Math.max(2, line.length() - start + 1)];
+        int count = 0;
+        int position = start;
+        while (position < line.length()) {
+            boundaries[count++] = position;
+            char c = line.charAt(position);
+            int type = tokenType(c);
+            position++;
+            if (type != 0) {
+                while (position < line.length() && tokenType(line.charAt(position)) == type) {
+                    position++;
+                }
+            }
+        }
+        boundaries[count++] = position;
+
+        int[] result = new int[count];
+        System.arraycopy(boundaries, 0, result, 0, count);
+        return result;
+    }
+
+    
+    /**
+     * Get the type of a character
+     *
+     * @param c the character
+     * @return 1 for word characters, 2 for whitespace and 0 for others
+     */
+    private static int tokenType(char c) {
+        if (Character.isLetterOrDigit(c) || c == '_') {
+            return 1;
+        }
+
+        if (Character.isWhitespace(c)) {
+            return 2;
+        }
+
+        return 0;
+    }
+
+    
+    /**
+     * Renders the diff
+     *
+     * @author patrick
+     */
+    private final class Renderer {
+        private final StreamBuffer buffer;
+        private final String[] header;
+        private final String[] hunk;
+        private final String[] removed;
+        private final String[] added;
+        private final String[] removedHighlight;
+        private final String[] addedHighlight;
+        private final List<String> removedLines;
+        private final List<String> addedLines;
+        private int remainingOld;
+        private int remainingNew;
+
+        
+        /**
+         * Constructor for Renderer
+         *
+         * @param buffer the buffer
+         */
+        Renderer(StreamBuffer buffer) {
+            this.buffer = buffer;
+            this.header = sequences(headerStyle);
+            this.hunk = sequences(hunkStyle);
+            this.removed = sequences(removedStyle);
+            this.added = sequences(addedStyle);
+            this.removedHighlight = sequences(removedHighlightStyle);
+            this.addedHighlight = sequences(addedHighlightStyle);
+            this.removedLines = new ArrayList<>();
+            this.addedLines = new ArrayList<>();
+            this.remainingOld = 0;
+            this.remainingNew = 0;
+        }
+
+        
+        /**
+         * Render the input
+         *
+         * @throws IOException In case of an I/O error
+         */
+        void run() throws IOException {
+            StringBuilder line = new StringBuilder();
+            while (buffer.readLine(line)) {
+                char first = line.length() > 0 ? line.charAt(0) : ' ';
+                if (remainingOld > 0 || remainingNew > 0) {
+                    if (first == '-' && remainingOld > 0) {
+                        if (!addedLines.isEmpty()) {
+                            flushBlock();
+                        }
+                        removedLines.add(line.toString());
+                        remainingOld--;
+                        continue;
+                    }
+
+                    if (first == '+' && remainingNew > 0) {
+                        addedLines.add(line.toString());
+                        remainingNew--;
+                        continue;
+                    }
+
+                    flushBlock();
+                    if (first == ' ' || line.length() == 0) {
+                        remainingOld--;
+                        remainingNew--;
+                        writeLine(null, line);
+                        continue;
+                    }
+
+                    if (first == '\\') {
+                        writeLine(null, line);
+                        continue;
+                    }
+
+                    // unexpected: the hunk is finished
+                    remainingOld = 0;
+                    remainingNew = 0;
+                }
+
+                flushBlock();
+                if (startsWith(line, "@@")) {
+                    parseHunkHeader(line);
+                    writeLine(hunk, line);
+                } else if (startsWith(line, "diff ") || startsWith(line, "index ") || startsWith(line, "--- ") || startsWith(line, "+++ ")) {
+                    writeLine(header, line);
+                } else {
+                    writeLine(null, line);
+                }
+            }
+
+            flushBlock();
+            buffer.flush();
+        }
+
+        
+        /**
+         * Write the current change block: removed and added lines are paired and the changed words are highlighted
+         *
+         * @throws IOException In case of an I/O error
+         */
+        private void flushBlock() throws IOException {
+            int pairs = Math.min(removedLines.size(), addedLines.size());
+            boolean[][] removedChanges = new boolean[pairs][];
+            boolean[][] addedChanges = new boolean[pairs][];
+            int[][] removedTokens = new int[pairs][];
+            int[][] addedTokens = new int[pairs][];
+            for (int i = 0; i < pairs; i++) {
+                removedTokens[i] = tokenize(removedLines.get(i), 1);
+                addedTokens[i] = tokenize(addedLines.get(i), 1);
+                removedChanges[i] = new boolean[removedTokens[i].length - 1];
+                addedChanges[i] = new boolean[addedTokens[i].length - 1];
+                diff(removedLines.get(i), removedTokens[i], addedLines.get(i), addedTokens[i], removedChanges[i], addedChanges[i]);
+            }
+
+            for (int i = 0; i < removedLines.size(); i++) {
+                if (i < pairs) {
+                    writeHighlightedLine(removed, removedHighlight, removedLines.get(i), removedTokens[i], removedChanges[i]);
+                } else {
+                    writeLine(removed, removedLines.get(i));
+                }
+            }
+
+            for (int i = 0; i < addedLines.size(); i++) {
+                if (i < pairs) {
+                    writeHighlightedLine(added, addedHighlight, addedLines.get(i), addedTokens[i], addedChanges[i]);
+                } else {
+                    writeLine(added, addedLines.get(i));
+                }
+            }
+
+            removedLines.clear();
+            addedLines.clear();
+        }
+
+        
+        /**
+         * Write a line
+         *
+         * @param sequences the set and reset sequence or null
+         * @param line the line
+         * @throws IOException In case of an I/O error
+         */
+        private void writeLine(String[] sequences, CharSequence line) throws IOException {
+            if (sequences != null && line.length() > 0) {
+                buffer.write(sequences[0]);
+                buffer.write(line);
+                buffer.write(sequences[1]);
+            } else {
+                buffer.write(line);
+            }
+            buffer.write('\n');
+        }
+
+        
+        /**
+         * Write a line with highlighted tokens
+         *
+         * @param sequences the set and reset sequence of the line
+         * @param highlight the set and reset sequence of the highlight
+         * @param line the line
+         * @param tokens the token boundaries
+         * @param changes the changed tokens
+         * @throws IOException In case of an I/O error
+         */
+        private void writeHighlightedLine(String[] sequences, String[] highlight, String line, int[] tokens, boolean[] changes) throws IOException {
+            buffer.write(sequences[0]);
+            buffer.write(line, 0, tokens[0]);
+            int i = 0;
+            while (i < changes.length) {
+                int j = i + 1;
+                while (j < changes.length && changes[j] == changes[i]) {
+                    j++;
+                }
+
+                if (changes[i]) {
+                    buffer.write(highlight[0]);
+                    buffer.write(line, tokens[i], tokens[j]);
+                    buffer.write(highlight[1]);
+                } else {
+                    buffer.write(line, tokens[i], tokens[j]);
+                }
+                i = j;
+            }
+            buffer.write(sequences[1]);
+            buffer.write('\n');
+        }
+
+        
+        /**
+         * Parse the line counts of a hunk header, e.g. {@code @@ -1,5 +1,6 @@}
+         *
+         * @param line the line
+         */
+        private void parseHunkHeader(CharSequence line) {
+            int position = indexOf(line, '-', 2);
+            int[] result = new int[2];
+            position = parseRange(line, position, result);
+            remainingOld = result[1];
+            position = parseRange(line, indexOf(line, '+', Math.max(position, 2)), result);
+            remainingNew = result[1];
+        }
+
+        
+        /**
+         * Parse a range, e.g. {@code -1,5}
+         *
+         * @param line the line
+         * @param start the index of the sign or -1
+         * @param result the start line and the line count
+         * @return the index after the range
+         */
+        private int parseRange(CharSequence line, int start, int[] result) {
+            result[0] = 0;
+            result[1] = 0;
+            if (start < 0) {
+                return line.length();
+            }
+
+            int position = start + 1;
+            while (position < line.length() && Character.isDigit(line.charAt(position))) {
+                result[0] = result[0] * 10 + (line.charAt(position++) - '0');
+            }
+
+            if (position < line.length() && line.charAt(position) == ',') {
+                position++;
+                while (position < line.length() && Character.isDigit(line.charAt(position))) {
+                    result[1] = result[1] * 10 + (line.charAt(position++) - '0');
+                }
+            } else {
+                result[1] = 1;
+            }
+
+            return position;
+        }
+
+        
+        /**
+         * Get the set and reset sequence of a style
+         *
+         * @param style the style
+         * @return the sequences
+         */
+        private String[] sequences(AnsiStyle style) {
+            return new String[] {style.toAnsi(ansiColor), style.toResetAnsi(ansiColor)};
+        }
+    }
+
+    
+    /**
+     * Check if a line starts with a prefix
+     *
+     * @param line the line
+     * @param prefix the prefix
+     * @return true if the line starts with the prefix
+     */
+    private static boolean startsWith(CharSequence line, String prefix) {
+        if (line.length() < prefix.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    
+    /**
+     * Find a character
+     *
+     * @param line the line
+     * @param c the character
+     * @param start the start index
+     * @return the index or -1
+     */
+    private static int indexOf(CharSequence line, char c, int start) {
+        for (int i = start; i < line.length(); i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    
+    /**
+     * Word level difference of two lines based on the linear space refinement of the Myers algorithm: the middle snake
+     * of the shortest edit script is searched from both ends and the two halves are solved recursively.
+     *
+     * @author patrick
+     */
+    private static final class WordDiff {
+        private final CharSequence a;
+        private final int[] aTokens;
+        private final CharSequence b;
+        private final int[] bTokens;
+        private final boolean[] aChanges;
+        private final boolean[] bChanges;
+        private final int[] forward;
+        private final int[] backward;
+        private final int[] snake;
+
+        
+        /**
+         * Constructor for WordDiff
+         *
+         * @param a the first line
+         * @param aTokens the token boundaries of the first line
+         * @param b the second line
+         * @param bTokens the token boundaries of the second line
+         * @param aChanges the changed tokens of the first line
+         * @param bChanges the changed tokens of the second line
+         */
+        WordDiff(CharSequence a, int[] aTokens, CharSequence b, int[] bTokens, boolean[] aChanges, boolean[] bChanges) {
+            this.a = a;
+            this.aTokens = aTokens;
+            this.b = b;
+            this.bTokens = bTokens;
+            this.aChanges = aChanges;
+            this.bChanges = bChanges;
+
+            int size = 2 * (aTokens.length + bTokens.length) + 2;
+            this.forward = new int[size];
+            this.backward = new int[size];
+            this.snake = new int[4];
+        }
+
+        
+        /**
+         * Compute the difference of two token ranges
+         *
+         * @param aStart the start token of the first line
+         * @param aEnd the end token of the first line (exclusive)
+         * @param bStart the start token of the second line
+         * @param bEnd the end token of the second line (exclusive)
+         */
+        void diff(int aStart, int aEnd, int bStart, int bEnd) {
+            int as = aStart;
+            int ae = aEnd;
+            int bs = bStart;
+            int be = bEnd;
+            while (as < ae && bs < be && equals(as, bs)) {
+                as++;
+                bs++;
+            }
+
+            while (as < ae && bs < be && equals(ae - 1, be - 1)) {
+                ae--;
+                be--;
+            }
+
+            if (as == ae || bs == be) {
+                mark(aChanges, as, ae);
+                mark(bChanges, bs, be);
+                return;
+            }
+
+            findMiddleSnake(as, ae, bs, be);
+            int x = snake[0];
+            int y = snake[1];
+            int u = snake[2];
+            int v = snake[3];
+            if ((x == as && y == bs && u == ae && v == be) || (u == as && v == bs) || (x == ae && y == be)) {
+                // no progress: treat the range as replaced
+                mark(aChanges, as, ae);
+                mark(bChanges, bs, be);
+                return;
+            }
+
+            diff(as, x, bs, y);
+            diff(u, ae, v, be);
+        }
+
+        
+        /**
+         * Find the middle snake of two token ranges, the result is stored in {@link #snake}
+         *
+         * @param aStart the start token of the first line
+         * @param aEnd the end token of the first line (exclusive)
+         * @param bStart the start token of the second line
+         * @param bEnd the end token of the second line (exclusive)
+         */
+        private void findMiddleSnake(int aStart, int aEnd, int bStart, int bEnd) {
+            int n = aEnd - aStart;
+            int m = bEnd - bStart;
+            int delta = n - m;
+            boolean odd = (delta & 1) != 0;
+            int offset = n + m + 1;
+            int max = (n + m + 1) / 2;
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+
+            for (int d = 0; d <= max; d++) {
+                for (int k = -d; k <= d; k += 2) {
+                    int x = (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])) ? forward[offset + k + 1] : forward[offset + k - 1] + 1;
+                    int y = x - k;
+                    int x0 = x;
+                    int y0 = y;
+                    while (x < n && y < m && equals(aStart + x, bStart + y)) {
+                        x++;
+                        y++;
+                    }
+                    forward[offset + k] = x;
+
+                    int c = delta - k;
+                    if (odd && c >= -(d - 1) && c <= d - 1 && x + backward[offset + c] >= n) {
+                        setSnake(aStart + x0, bStart + y0, aStart + x, bStart + y);
+                        return;
+                    }
+                }
+
+                for (int c = -d; c <= d; c += 2) {
+                    int x = (c == -d || (c != d && backward[offset + c - 1] < backward[offset + c + 1])) ? backward[offset + c + 1] : backward[offset + c - 1] + 1;
+                    int y = x - c;
+                    int x0 = x;
+                    int y0 = y;
+                    while (x < n && y < m && equals(aEnd - 1 - x, bEnd - 1 - y)) {
+                        x++;
+                        y++;
+                    }
+                    backward[offset + c] = x;
+
+                    int k = delta - c;
+                    if (!odd && k >= -d && k <= d && x + forward[offset + k] >= n) {
+                        setSnake(aEnd - x, bEnd - y, aEnd - x0, bEnd - y0);
+                        return;
+                    }
+                }
+            }
+
+            setSnake(aStart, bStart, aEnd, bEnd);
+        }
+
+        
+        /**
+         * Set the snake
+         *
+         * @param x the start token of the first line
+         * @param y the start token of the second line
+         * @param u the end token of the first line
+         * @param v the end token of the second line
+         */
+        private void setSnake(int x, int y, int u, int v) {
+            snake[0] = x;
+            snake[1] = y;
+            snake[2] = u;
+            snake[3] = v;
+        }
+
+        
+        /**
+         * Compare two tokens
+         *
+         * @param aToken the token of the first line
+         * @param bToken the token of the second line
+         * @return true if the tokens are equal
+         */
+        private boolean equals(int aToken, int bToken) {
+            int aStart = aTokens[aToken];
+            int length = aTokens[aToken + 1] - aStart;
+            int bStart = bTokens[bToken];
+            if (length != bTokens[bToken + 1] - bStart) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (a.charAt(aStart + i) != b.charAt(bStart + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        
+        /**
+         * Mark a range of tokens as changed
+         *
+         * @param changes the changes
+         * @param start the start token
+         * @param end the end token (exclusive)
+         */
+        private static void mark(boolean[] changes, int start, int end) {
+            for (int i = start; i < end; i++) {
+                changes[i] = true;
+            }
+        }
+    }
+}
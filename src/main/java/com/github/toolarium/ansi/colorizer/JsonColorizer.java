@@ -0,0 +1,353 @@
+/*
+ * JsonColorizer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import com.github.toolarium.ansi.AnsiColor;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+
+/**
+ * Streaming JSON colorizer: the input is tokenized from a {@link Reader} and the pretty printed and styled tokens are
+ * written in a single pass to a {@link Writer}. Neither the document nor a single string value is held in memory, the
+ * memory only grows with the nesting depth. A sequence of documents (e.g. JSON lines) is supported, each top level value
+ * ends with a new line.
+ *
+ * @author patrick
+ */
+public class JsonColorizer {
+    private static final int KEY = 0;
+    private static final int STRING = 1;
+    private static final int NUMBER = 2;
+    private static final int LITERAL = 3;
+    private static final int PUNCTUATION = 5;
+    private AnsiColor ansiColor = AnsiColor.AUTO;
+    private SyntaxStyles styles = SyntaxStyles.DEFAULT;
+    private int indent = 2;
+
+    
+    /**
+     * Set the ansi color setting: ON, OFF, AUTO
+     *
+     * @param ansiColor the enumeration
+     * @return the JsonColorizer
+     */
+    public JsonColorizer setAnsiColor(AnsiColor ansiColor) {
+        this.ansiColor = ansiColor;
+        return this;
+    }
+
+    
+    /**
+     * Set the styles
+     *
+     * @param styles the styles
+     * @return the JsonColorizer
+     */
+    public JsonColorizer setStyles(SyntaxStyles styles) {
+        this.styles = styles;
+        return this;
+    }
+
+    
+    /**
+     * Set the number of spaces per nesting level, 0 writes a compact document.
+     *
+     * @param indent the indent
+     * @return the JsonColorizer
+     */
+    public JsonColorizer setIndent(int indent) {
+        this.indent = Math.max(0, indent);
+        return this;
+    }
+
+    
+    /**
+     * Colorize a JSON document. The writer is flushed but not closed.
+     *
+     * @param reader the reader
+     * @param writer the writer
+     * @throws IOException In case of an I/O error or an invalid JSON document
+     */
+    public void colorize(Reader reader, Writer writer) throws IOException {
+        new Tokenizer(new StreamBuffer(reader, writer), styles.toEscapeSequences(ansiColor)).run();
+    }
+
+    
+    /**
+     * The tokenizer of one document
+     *
+     * @author patrick
+     */
+    private final class Tokenizer {
+        private final StreamBuffer buffer;
+        private final String[] sequences;
+        private boolean[] objects;
+        private int depth;
+        private boolean expectKey;
+
+        
+        /**
+         * Constructor for Tokenizer
+         *
+         * @param buffer the buffer
+         * @param sequences the escape sequences
+         */
+        Tokenizer(StreamBuffer buffer, String[] sequences) {
+            this.buffer = buffer;
+            this.sequences = sequences;
+            this.objects = new boolean[16];
+            this.depth = 0;
+            this.expectKey = false;
+        }
+
+        
+        /**
+         * Tokenize the input
+         *
+         * @throws IOException In case of an I/O error or an invalid JSON document
+         */
+        void run() throws IOException {
+            int c = nextToken();
+            while (c != StreamBuffer.EOF) {
+                switch (c) {
+                    case '{':
+                    case '[':
+                        openContainer((char) c);
+                        break;
+                    case '}':
+                    case ']':
+                        closeContainer((char) c);
+                        break;
+                    case ',':
+                        checkContainer(c);
+                        punctuation(',');
+                        newLine();
+                        expectKey = objects[depth - 1];
+                        break;
+                    case ':':
+                        checkContainer(c);
+                        punctuation(':');
+                        if (indent > 0) {
+                            buffer.write(' ');
+                        }
+                        expectKey = false;
+                        break;
+                    case '"':
+                        string(expectKey && depth > 0 && objects[depth - 1] ? KEY : STRING);
+                        break;
+                    default:
+                        if (c == '-' || (c >= '0' && c <= '9')) {
+                            scalar((char) c, NUMBER);
+                        } else if (c == 't' || c == 'f' || c == 'n') {
+                            scalar((char) c, LITERAL);
+                        } else {
+                            throw invalid(c);
+                        }
+                        break;
+                }
+                c = nextToken();
+            }
+
+            if (depth > 0) {
+                throw new IOException("Unexpected end of the JSON document.");
+            }
+            buffer.flush();
+        }
+
+        
+        /**
+         * Open an object or array
+         *
+         * @param c the character
+         * @throws IOException In case of an I/O error
+         */
+        private void openContainer(char c) throws IOException {
+            char close = c == '{' ? '}' : ']';
+            punctuation(c);
+            skipWhitespace();
+            if (buffer.peek() == close) {
+                buffer.read();
+                punctuation(close);
+                endValue();
+                return;
+            }
+
+            if (depth == objects.length) {
+                objects = Arrays.copyOf(objects, depth * 2);
+            }
+            objects[depth++] = c == '{';
+            expectKey = c == '{';
+            newLine();
+        }
+
+        
+        /**
+         * Close an object or array
+         *
+         * @param c the character
+         * @throws IOException In case of an I/O error or an invalid JSON document
+         */
+        private void closeContainer(char c) throws IOException {
+            if (depth == 0 || objects[depth - 1] != (c == '}')) {
+                throw invalid(c);
+            }
+
+            depth--;
+            newLine();
+            punctuation(c);
+            endValue();
+        }
+
+        
+        /**
+         * Copy a string, the escape sequences of the string are kept
+         *
+         * @param type the token type
+         * @throws IOException In case of an I/O error or an invalid JSON document
+         */
+        private void string(int type) throws IOException {
+            buffer.write(sequences[type * 2]);
+            buffer.write('"');
+            int c = buffer.read();
+            while (c != '"') {
+                if (c == StreamBuffer.EOF || c == '\n') {
+                    throw new IOException("Unterminated JSON string at offset " + buffer.getOffset() + ".");
+                }
+
+                buffer.write((char) c);
+                if (c == '\\') {
+                    c = buffer.read();
+                    if (c == StreamBuffer.EOF) {
+                        continue;
+                    }
+                    buffer.write((char) c);
+                }
+                c = buffer.read();
+            }
+            buffer.write('"');
+            buffer.write(sequences[type * 2 + 1]);
+
+            if (type == STRING) {
+                endValue();
+            }
+        }
+
+        
+        /**
+         * Copy a number or a literal
+         *
+         * @param first the first character
+         * @param type the token type
+         * @throws IOException In case of an I/O error
+         */
+        private void scalar(char first, int type) throws IOException {
+            buffer.write(sequences[type * 2]);
+            buffer.write(first);
+            int c = buffer.peek();
+            while (c != StreamBuffer.EOF && (Character.isLetterOrDigit(c) || c == '.' || c == '+' || c == '-')) {
+                buffer.write((char) buffer.read());
+                c = buffer.peek();
+            }
+            buffer.write(sequences[type * 2 + 1]);
+            endValue();
+        }
+
+        
+        /**
+         * Write punctuation
+         *
+         * @param c the character
+         * @throws IOException In case of an I/O error
+         */
+        private void punctuation(char c) throws IOException {
+            buffer.write(sequences[PUNCTUATION * 2]);
+            buffer.write(c);
+            buffer.write(sequences[PUNCTUATION * 2 + 1]);
+        }
+
+        
+        /**
+         * A value is complete: top level values end with a new line
+         *
+         * @throws IOException In case of an I/O error
+         */
+        private void endValue() throws IOException {
+            if (depth == 0) {
+                buffer.write('\n');
+            }
+        }
+
+        
+        /**
+         * Write a new line and the indent of the current depth
+         *
+         * @throws IOException In case of an I/O error
+         */
+        private void newLine() throws IOException {
+            if (indent == 0) {
+                return;
+            }
+
+            buffer.write('\n');
+            for (int i = depth * indent; i > 0; i--) {
+                buffer.write(' ');
+            }
+        }
+
+        
+        /**
+         * Check that the current position is within a container
+         *
+         * @param c the character
+         * @throws IOException In case of an invalid JSON document
+         */
+        private void checkContainer(int c) throws IOException {
+            if (depth == 0) {
+                throw invalid(c);
+            }
+        }
+
+        
+        /**
+         * Skip whitespaces
+         *
+         * @throws IOException In case of an I/O error
+         */
+        private void skipWhitespace() throws IOException {
+            int c = buffer.peek();
+            while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                buffer.read();
+                c = buffer.peek();
+            }
+        }
+
+        
+        /**
+         * Read the next non whitespace character
+         *
+         * @return the character or {@link StreamBuffer#EOF}
+         * @throws IOException In case of an I/O error
+         */
+        private int nextToken() throws IOException {
+            skipWhitespace();
+            return buffer.read();
+        }
+
+        
+        /**
+         * Create the exception of an unexpected character
+         *
+         * @param c the character
+         * @return the exception
+         */
+        private IOException invalid(int c) {
+            return new IOException("Unexpected character '" + (char) c + "' at offset " + buffer.getOffset() + " of the JSON document.");
+        }
+    }
+}
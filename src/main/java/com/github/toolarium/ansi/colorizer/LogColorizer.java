@@ -0,0 +1,479 @@
+/*
+ * LogColorizer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.AnsiStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Colorizes log lines by a set of rules. All literal keywords are compiled into one Aho-Corasick automaton and found
+ * in a single pass over the line, only rules which are real regular expressions are matched by a {@link Pattern}.
+ * Overlapping matches are resolved by the priority of the rule, then by the length of the match and then by the position.
+ *
+ * <pre>
+ * LogColorizer colorizer = LogColorizer.builder()
+ *         .keyword("ERROR", AnsiStyle.of(ForegroundColor.RED).bold(), 10)
+ *         .keyword("WARN", AnsiStyle.of(ForegroundColor.YELLOW), 10)
+ *         .pattern("\\d{2}:\\d{2}:\\d{2}", AnsiStyle.NONE.dim(), 0)
+ *         .build();
+ * colorizer.colorize(line, builder);
+ * </pre>
+ *
+ * <p>A colorizer is immutable and can be shared between threads.</p>
+ *
+ * @author patrick
+ */
+public final class LogColorizer {
+    private static final String REGEX_META_CHARACTERS = "\\[](){}.*+?^$|";
+    private final AnsiColor ansiColor;
+    private final AhoCorasickMatcher matcher;
+    private final int[] keywordRules;
+    private final Pattern[] patterns;
+    private final int[] patternRules;
+    private final AnsiStyle[] ruleStyles;
+    private final int[] rulePriorities;
+    private final ThreadLocal<Scratch> scratch;
+
+    
+    /**
+     * Constructor for LogColorizer
+     *
+     * @param builder the builder
+     */
+    private LogColorizer(Builder builder) {
+        this.ansiColor = builder.ansiColor;
+
+        List<String> keywords = new ArrayList<>();
+        List<Integer> keywordRuleList = new ArrayList<>();
+        List<Pattern> patternList = new ArrayList<>();
+        List<Integer> patternRuleList = new ArrayList<>();
+        for (int i = 0; i < builder.rules.size(); i++) {
+            Rule rule = builder.rules.get(i);
+            if (rule.keyword != null) {
+                keywords.add(rule.keyword);
+                keywordRuleList.add(i);
+            } else {
+                patternList.add(Pattern.compile(rule.regex, builder.ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0));
+                patternRuleList.add(i);
+            }
+        }
+
+        this.matcher = keywords.isEmpty() ? null : new AhoCorasickMatcher(keywords, builder.ignoreCase);
+        this.keywordRules = keywordRuleList.stream().mapToInt(Integer::intValue).toArray();
+        this.patterns = patternList.toArray(new Pattern[patternList.size()]);
+        this.patternRules = patternRuleList.stream().mapToInt(Integer::intValue).toArray();
+        this.ruleStyles = new AnsiStyle[builder.rules.size()];
+        this.rulePriorities = new int[builder.rules.size()];
+        for (int i = 0; i < builder.rules.size(); i++) {
+            ruleStyles[i] = builder.rules.get(i).style;
+            rulePriorities[i] = builder.rules.get(i).priority;
+        }
+
+        this.scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    
+    /**
+     * Create a new builder
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    
+    /**
+     * Colorize a line
+     *
+     * @param line the line
+     * @return the colorized line
+     */
+    public String colorize(CharSequence line) {
+        if (line == null || line.length() == 0) {
+            return "";
+        }
+
+        return colorize(line, new AnsiStringBuilder(line.length() + 32).setAnsiColor(ansiColor)).toString(false);
+    }
+
+    
+    /**
+     * Colorize a line and append it to a builder. The styles of the matches are reset after each match.
+     *
+     * @param line the line
+     * @param builder the builder
+     * @return the AnsiStringBuilder
+     */
+    public AnsiStringBuilder colorize(CharSequence line, AnsiStringBuilder builder) {
+        if (line == null || line.length() == 0) {
+            return builder;
+        }
+
+        Scratch s = scratch.get();
+        s.reset(line.length());
+
+        // collect all candidates
+        if (matcher != null) {
+            matcher.match(line, 0, line.length(), s);
+        }
+
+        for (int i = 0; i < patterns.length; i++) {
+            Matcher m = patterns[i].matcher(line);
+            while (m.find()) {
+                if (m.end() > m.start()) {
+                    s.add(m.start(), m.end(), patternRules[i]);
+                }
+            }
+        }
+
+        // resolve the overlaps
+        s.sort(rulePriorities);
+        for (int i = 0; i < s.size; i++) {
+            int candidate = s.order[i];
+            s.accept(s.starts[candidate], s.ends[candidate], s.rules[candidate]);
+        }
+
+        // write the line
+        int[] owner = s.owner;
+        int start = 0;
+        while (start < line.length()) {
+            int rule = owner[start];
+            int end = start + 1;
+            while (end < line.length() && owner[end] == rule) {
+                end++;
+            }
+
+            if (rule < 0) {
+                builder.append(line, start, end);
+            } else {
+                builder.style(ruleStyles[rule]).append(line, start, end).resetStyle(ruleStyles[rule]);
+            }
+            start = end;
+        }
+
+        return builder;
+    }
+
+    
+    /**
+     * Get the number of rules
+     *
+     * @return the number of rules
+     */
+    public int getRuleCount() {
+        return ruleStyles.length;
+    }
+
+    
+    /**
+     * The builder of a {@link LogColorizer}.
+     *
+     * @author patrick
+     */
+    public static final class Builder {
+        private final List<Rule> rules;
+        private AnsiColor ansiColor;
+        private boolean ignoreCase;
+
+        
+        /**
+         * Constructor for Builder
+         */
+        private Builder() {
+            rules = new ArrayList<>();
+            ansiColor = AnsiColor.AUTO;
+            ignoreCase = false;
+        }
+
+        
+        /**
+         * Add a literal keyword
+         *
+         * @param keyword the keyword
+         * @param style the style
+         * @param priority the priority, in case of overlapping matches the higher priority wins
+         * @return the builder
+         * @throws IllegalArgumentException In case of an invalid input
+         */
+        public Builder keyword(String keyword, AnsiStyle style, int priority) throws IllegalArgumentException {
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("Invalid empty keyword.");
+            }
+
+            rules.add(new Rule(keyword, null, validate(style), priority));
+            return this;
+        }
+
+        
+        /**
+         * Add a regular expression. An expression without any meta character is handled as keyword.
+         *
+         * @param regex the regular expression
+         * @param style the style
+         * @param priority the priority, in case of overlapping matches the higher priority wins
+         * @return the builder
+         * @throws IllegalArgumentException In case of an invalid input
+         */
+        public Builder pattern(String regex, AnsiStyle style, int priority) throws IllegalArgumentException {
+            if (regex == null || regex.isEmpty()) {
+                throw new IllegalArgumentException("Invalid empty pattern.");
+            }
+
+            if (isLiteral(regex)) {
+                return keyword(regex, style, priority);
+            }
+
+            Pattern.compile(regex); // validate
+            rules.add(new Rule(null, regex, validate(style), priority));
+            return this;
+        }
+
+        
+        /**
+         * Ignore the case of keywords and patterns
+         *
+         * @param ignoreCase true to ignore the case
+         * @return the builder
+         */
+        public Builder ignoreCase(boolean ignoreCase) {
+            this.ignoreCase = ignoreCase;
+            return this;
+        }
+
+        
+        /**
+         * Set the ansi color setting: ON, OFF, AUTO
+         *
+         * @param ansiColor the enumeration
+         * @return the builder
+         */
+        public Builder ansiColor(AnsiColor ansiColor) {
+            this.ansiColor = ansiColor;
+            return this;
+        }
+
+        
+        /**
+         * Build the colorizer
+         *
+         * @return the colorizer
+         */
+        public LogColorizer build() {
+            return new LogColorizer(this);
+        }
+
+        
+        /**
+         * Validate a style
+         *
+         * @param style the style
+         * @return the style
+         * @throws IllegalArgumentException In case of an invalid input
+         */
+        private AnsiStyle validate(AnsiStyle style) throws IllegalArgumentException {
+            if (style == null) {
+                throw new IllegalArgumentException("Invalid empty style.");
+            }
+            return style;
+        }
+
+        
+        /**
+         * Check if a regular expression is a literal
+         *
+         * @param regex the regular expression
+         * @return true if it contains no meta character
+         */
+        private boolean isLiteral(String regex) {
+            for (int i = 0; i < regex.length(); i++) {
+                if (REGEX_META_CHARACTERS.indexOf(regex.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    
+    /**
+     * A rule
+     *
+     * @author patrick
+     */
+    private static final class Rule {
+        private final String keyword;
+        private final String regex;
+        private final AnsiStyle style;
+        private final int priority;
+
+        
+        /**
+         * Constructor for Rule
+         *
+         * @param keyword the keyword or null
+         * @param regex the regular expression or null
+         * @param style the style
+         * @param priority the priority
+         */
+        Rule(String keyword, String regex, AnsiStyle style, int priority) {
+            this.keyword = keyword;
+            this.regex = regex;
+            this.style = style;
+            this.priority = priority;
+        }
+    }
+
+    
+    /**
+     * The per thread working memory: the candidates and the owner rule of each character.
+     *
+     * @author patrick
+     */
+    private final class Scratch implements AhoCorasickMatcher.MatchHandler {
+        private int[] starts = new int[64];
+        private int[] ends = new int[64];
+        private int[] rules = new int[64];
+        private int[] order = new int[64];
+        private int[] buffer = new int[64];
+        private int[] owner = new int[256];
+        private int size;
+
+        
+        /**
+         * Reset the scratch
+         *
+         * @param length the length of the line
+         */
+        void reset(int length) {
+            size = 0;
+            if (owner.length < length) {
+                owner = new int[Math.max(length, owner.length * 2)];
+            }
+            Arrays.fill(owner, 0, length, -1);
+        }
+
+        
+        /**
+         * @see com.github.toolarium.ansi.colorizer.AhoCorasickMatcher.MatchHandler#match(int, int, int)
+         */
+        @Override
+        public void match(int start, int end, int keywordIndex) {
+            add(start, end, keywordRules[keywordIndex]);
+        }
+
+        
+        /**
+         * Add a candidate
+         *
+         * @param start the start index
+         * @param end the end index (exclusive)
+         * @param rule the rule
+         */
+        void add(int start, int end, int rule) {
+            if (size == starts.length) {
+                int newLength = size * 2;
+                starts = Arrays.copyOf(starts, newLength);
+                ends = Arrays.copyOf(ends, newLength);
+                rules = Arrays.copyOf(rules, newLength);
+                order = new int[newLength];
+                buffer = new int[newLength];
+            }
+
+            starts[size] = start;
+            ends[size] = end;
+            rules[size] = rule;
+            size++;
+        }
+
+        
+        /**
+         * Accept a candidate if it doesn't overlap an already accepted candidate
+         *
+         * @param start the start index
+         * @param end the end index (exclusive)
+         * @param rule the rule
+         */
+        void accept(int start, int end, int rule) {
+            for (int i = start; i < end; i++) {
+                if (owner[i] >= 0) {
+                    return;
+                }
+            }
+            Arrays.fill(owner, start, end, rule);
+        }
+
+        
+        /**
+         * Sort the candidates by priority (descending), length (descending) and start (ascending). The sort is stable,
+         * in case of a tie the rule which was defined first wins.
+         *
+         * @param priorities the priorities of the rules
+         */
+        void sort(int[] priorities) {
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+
+            // bottom up merge sort
+            int[] from = order;
+            int[] to = buffer;
+            for (int width = 1; width < size; width *= 2) {
+                for (int left = 0; left < size; left += 2 * width) {
+                    int middle = Math.min(left + width, size);
+                    int right = Math.min(left + 2 * width, size);
+                    int i = left;
+                    int j = middle;
+                    for (int k = left; k < right; k++) {
+                        if (i < middle && (j >= right || compare(from[i], from[j], priorities) <= 0)) {
+                            to[k] = from[i++];
+                        } else {
+                            to[k] = from[j++];
+                        }
+                    }
+                }
+
+                int[] swap = from;
+                from = to;
+                to = swap;
+            }
+
+            if (from != order) {
+                System.arraycopy(from, 0, order, 0, size);
+            }
+        }
+
+        
+        /**
+         * Compare two candidates
+         *
+         * @param a the first candidate
+         * @param b the second candidate
+         * @param priorities the priorities of the rules
+         * @return the comparison result
+         */
+        private int compare(int a, int b, int[] priorities) {
+            int result = Integer.compare(priorities[rules[b]], priorities[rules[a]]);
+            if (result == 0) {
+                result = Integer.compare(ends[b] - starts[b], ends[a] - starts[a]);
+            }
+            if (result == 0) {
+                result = Integer.compare(starts[a], starts[b]);
+            }
+            if (result == 0) {
+                result = Integer.compare(rules[a], rules[b]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * StreamBuffer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+
+/**
+ * Fixed size input and output buffers of a streaming colorizer, the memory doesn't depend on the size of the document.
+ *
+ * @author patrick
+ */
+final class StreamBuffer {
+    static final int EOF = -1;
+    private static final int BUFFER_SIZE = 8192;
+    private final Reader reader;
+    private final Writer writer;
+    private final char[] input;
+    private final char[] output;
+    private int inputPosition;
+    private int inputLimit;
+    private int outputPosition;
+    private long offset;
+
+    
+    /**
+     * Constructor for StreamBuffer
+     *
+     * @param reader the reader
+     * @param writer the writer
+     */
+    StreamBuffer(Reader reader, Writer writer) {
+        this.reader = reader;
+        this.writer = writer;
+        this.input = new char[BUFFER_SIZE];
+        this.output = new char[BUFFER_SIZE];
+        this.inputPosition = 0;
+        this.inputLimit = 0;
+        this.outputPosition = 0;
+        this.offset = 0;
+    }
+
+    
+    /**
+     * Read the next character
+     *
+     * @return the character or {@link #EOF}
+     * @throws IOException In case of an I/O error
+     */
+    int read() throws IOException {
+        if (inputPosition == inputLimit && !fill()) {
+            return EOF;
+        }
+
+        offset++;
+        return input[inputPosition++];
+    }
+
+    
+    /**
+     * Get the next character without consuming it
+     *
+     * @return the character or {@link #EOF}
+     * @throws IOException In case of an I/O error
+     */
+    int peek() throws IOException {
+        if (inputPosition == inputLimit && !fill()) {
+            return EOF;
+        }
+
+        return input[inputPosition];
+    }
+
+    
+    /**
+     * Read a line without the line terminator into a builder
+     *
+     * @param line the builder, it will be cleared
+     * @return false if the end of the input is reached
+     * @throws IOException In case of an I/O error
+     */
+    boolean readLine(StringBuilder line) throws IOException {
+        line.setLength(0);
+        int c = read();
+        if (c == EOF) {
+            return false;
+        }
+
+        while (c != EOF && c != '\n') {
+            if (c != '\r' || peek() != '\n') {
+                line.append((char) c);
+            }
+            c = read();
+        }
+        return true;
+    }
+
+    
+    /**
+     * Get the number of consumed characters
+     *
+     * @return the offset
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    
+    /**
+     * Write a character
+     *
+     * @param c the character
+     * @throws IOException In case of an I/O error
+     */
+    void write(char c) throws IOException {
+        if (outputPosition == output.length) {
+            flushOutput();
+        }
+        output[outputPosition++] = c;
+    }
+
+    
+    /**
+     * Write a character sequence
+     *
+     * @param text the text
+     * @throws IOException In case of an I/O error
+     */
+    void write(CharSequence text) throws IOException {
+        write(text, 0, text.length());
+    }
+
+    
+    /**
+     * Write a part of a character sequence
+     *
+     * @param text the text
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @throws IOException In case of an I/O error
+     */
+    void write(CharSequence text, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            if (outputPosition == output.length) {
+                flushOutput();
+            }
+            output[outputPosition++] = text.charAt(i);
+        }
+    }
+
+    
+    /**
+     * Write the buffered output to the writer and flush the writer
+     *
+     * @throws IOException In case of an I/O error
+     */
+    void flush() throws IOException {
+        flushOutput();
+        writer.flush();
+    }
+
+    
+    /**
+     * Write the buffered output to the writer
+     *
+     * @throws IOException In case of an I/O error
+     */
+    private void flushOutput() throws IOException {
+        if (outputPosition > 0) {
+            writer.write(output, 0, outputPosition);
+            outputPosition = 0;
+        }
+    }
+
+    
+    /**
+     * Fill the input buffer
+     *
+     * @return false if the end of the input is reached
+     * @throws IOException In case of an I/O error
+     */
+    private boolean fill() throws IOException {
+        int count = reader.read(input, 0, input.length);
+        while (count == 0) {
+            count = reader.read(input, 0, input.length);
+        }
+
+        if (count < 0) {
+            return false;
+        }
+
+        inputPosition = 0;
+        inputLimit = count;
+        return true;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * SyntaxStyles.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.color.ForegroundColor;
+
+
+/**
+ * The styles of the tokens of structured data like JSON or YAML. The instances are immutable.
+ *
+ * @author patrick
+ */
+public final class SyntaxStyles {
+    /** The default styles: blue bold keys, green strings, cyan numbers, yellow literals and dim comments */
+    public static final SyntaxStyles DEFAULT = new SyntaxStyles(AnsiStyle.of(ForegroundColor.BLUE).bold(),
+                                                                AnsiStyle.of(ForegroundColor.GREEN),
+                                                                AnsiStyle.of(ForegroundColor.CYAN),
+                                                                AnsiStyle.of(ForegroundColor.YELLOW),
+                                                                AnsiStyle.NONE.dim(),
+                                                                AnsiStyle.NONE);
+    private final AnsiStyle key;
+    private final AnsiStyle string;
+    private final AnsiStyle number;
+    private final AnsiStyle literal;
+    private final AnsiStyle comment;
+    private final AnsiStyle punctuation;
+
+    
+    /**
+     * Constructor for SyntaxStyles
+     *
+     * @param key the style of keys
+     * @param string the style of strings
+     * @param number the style of numbers
+     * @param literal the style of literals like true, false and null
+     * @param comment the style of comments
+     * @param punctuation the style of punctuation
+     */
+    private SyntaxStyles(AnsiStyle key, AnsiStyle string, AnsiStyle number, AnsiStyle literal, AnsiStyle comment, AnsiStyle punctuation) {
+        this.key = key;
+        this.string = string;
+        this.number = number;
+        this.literal = literal;
+        this.comment = comment;
+        this.punctuation = punctuation;
+    }
+
+    
+    /**
+     * Get styles with another key style
+     *
+     * @param style the style
+     * @return the styles
+     */
+    public SyntaxStyles key(AnsiStyle style) {
+        return new SyntaxStyles(validate(style), string, number, literal, comment, punctuation);
+    }
+
+    
+    /**
+     * Get styles with another string style
+     *
+     * @param style the style
+     * @return the styles
+     */
+    public SyntaxStyles string(AnsiStyle style) {
+        return new SyntaxStyles(key, validate(style), number, literal, comment, punctuation);
+    }
+
+    
+    /**
+     * Get styles with another number style
+     *
+     * @param style the style
+     * @return the styles
+     */
+    public SyntaxStyles number(AnsiStyle style) {
+        return new SyntaxStyles(key, string, validate(style), literal, comment, punctuation);
+    }
+
+    
+    /**
+     * Get styles with another literal style
+     *
+     * @param style the style
+     * @return the styles
+     */
+    public SyntaxStyles literal(AnsiStyle style) {
+        return new SyntaxStyles(key, string, number, validate(style), comment, punctuation);
+    }
+
+    
+    /**
+     * Get styles with another comment style
+     *
+     * @param style the style
+     * @return the styles
+     */
+    public SyntaxStyles comment(AnsiStyle style) {
+        return new SyntaxStyles(key, string, number, literal, validate(style), punctuation);
+    }
+
+    
+    /**
+     * Get styles with another punctuation style
+     *
+     * @param style the style
+     * @return the styles
+     */
+    public SyntaxStyles punctuation(AnsiStyle style) {
+        return new SyntaxStyles(key, string, number, literal, comment, validate(style));
+    }
+
+    
+    /**
+     * Get the style of keys
+     *
+     * @return the style
+     */
+    public AnsiStyle getKey() {
+        return key;
+    }
+
+    
+    /**
+     * Get the style of strings
+     *
+     * @return the style
+     */
+    public AnsiStyle getString() {
+        return string;
+    }
+
+    
+    /**
+     * Get the style of numbers
+     *
+     * @return the style
+     */
+    public AnsiStyle getNumber() {
+        return number;
+    }
+
+    
+    /**
+     * Get the style of literals like true, false and null
+     *
+     * @return the style
+     */
+    public AnsiStyle getLiteral() {
+        return literal;
+    }
+
+    
+    /**
+     * Get the style of comments
+     *
+     * @return the style
+     */
+    public AnsiStyle getComment() {
+        return comment;
+    }
+
+    
+    /**
+     * Get the style of punctuation
+     *
+     * @return the style
+     */
+    public AnsiStyle getPunctuation() {
+        return punctuation;
+    }
+
+    
+    /**
+     * Resolve the escape sequences of all styles
+     *
+     * @param ansiColor the ansi color setting
+     * @return the escape sequences: set and reset sequence per token type
+     */
+    String[] toEscapeSequences(AnsiColor ansiColor) {
+        AnsiStyle[] styles = {key, string, number, literal, comment, punctuation};
+        String[] result = new String[styles.length * 2];
+        for (int i = 0; i < styles.length; i++) {
+            result[i * 2] = styles[i].toAnsi(ansiColor);
+            result[i * 2 + 1] = styles[i].toResetAnsi(ansiColor);
+        }
+        return result;
+    }
+
+    
+    /**
+     * Validate a style
+     *
+     * @param style the style
+     * @return the style
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    private static AnsiStyle validate(AnsiStyle style) throws IllegalArgumentException {
+        if (style == null) {
+            throw new IllegalArgumentException("Invalid empty style.");
+        }
+        return style;
+    }
+}
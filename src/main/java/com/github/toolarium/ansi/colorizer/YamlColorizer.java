@@ -0,0 +1,380 @@
+/*
+ * YamlColorizer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import com.github.toolarium.ansi.AnsiColor;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+
+/**
+ * Streaming YAML colorizer which keeps the layout of the document. The document is processed line by line, only the
+ * current line is held in memory. The colorizer supports a subset of YAML: block mappings and sequences, comments,
+ * document markers, quoted and plain scalars and block scalars ({@code |} and {@code >}). Flow collections are written
+ * as plain scalars.
+ *
+ * @author patrick
+ */
+public class YamlColorizer {
+    private static final int KEY = 0;
+    private static final int STRING = 1;
+    private static final int NUMBER = 2;
+    private static final int LITERAL = 3;
+    private static final int COMMENT = 4;
+    private static final int PUNCTUATION = 5;
+    private static final String[] LITERALS = {"true", "false", "yes", "no", "on", "off", "null", "~"};
+    private AnsiColor ansiColor = AnsiColor.AUTO;
+    private SyntaxStyles styles = SyntaxStyles.DEFAULT;
+
+    
+    /**
+     * Set the ansi color setting: ON, OFF, AUTO
+     *
+     * @param ansiColor the enumeration
+     * @return the YamlColorizer
+     */
+    public YamlColorizer setAnsiColor(AnsiColor ansiColor) {
+        this.ansiColor = ansiColor;
+        return this;
+    }
+
+    
+    /**
+     * Set the styles
+     *
+     * @param styles the styles
+     * @return the YamlColorizer
+     */
+    public YamlColorizer setStyles(SyntaxStyles styles) {
+        this.styles = styles;
+        return this;
+    }
+
+    
+    /**
+     * Colorize a YAML document. The writer is flushed but not closed.
+     *
+     * @param reader the reader
+     * @param writer the writer
+     * @throws IOException In case of an I/O error
+     */
+    public void colorize(Reader reader, Writer writer) throws IOException {
+        StreamBuffer buffer = new StreamBuffer(reader, writer);
+        String[] sequences = styles.toEscapeSequences(ansiColor);
+        StringBuilder line = new StringBuilder();
+        int blockScalarIndent = -1;
+        while (buffer.readLine(line)) {
+            int indent = 0;
+            while (indent < line.length() && line.charAt(indent) == ' ') {
+                indent++;
+            }
+
+            if (blockScalarIndent >= 0 && (indent > blockScalarIndent || indent == line.length())) {
+                // content of a block scalar
+                buffer.write(line, 0, indent);
+                write(buffer, sequences, STRING, line, indent, line.length());
+            } else {
+                blockScalarIndent = colorizeLine(buffer, sequences, line, indent) ? indent : -1;
+            }
+            buffer.write('\n');
+        }
+        buffer.flush();
+    }
+
+    
+    /**
+     * Colorize a line
+     *
+     * @param buffer the buffer
+     * @param sequences the escape sequences
+     * @param line the line
+     * @param indent the indent of the line
+     * @return true if a block scalar starts
+     * @throws IOException In case of an I/O error
+     */
+    private boolean colorizeLine(StreamBuffer buffer, String[] sequences, CharSequence line, int indent) throws IOException {
+        buffer.write(line, 0, indent);
+        int position = indent;
+        int end = line.length();
+        if (isDocumentMarker(line, position, end)) {
+            write(buffer, sequences, PUNCTUATION, line, position, position + 3);
+            position += 3;
+        }
+
+        // sequence entries
+        while (position < end && line.charAt(position) == '-' && (position + 1 == end || line.charAt(position + 1) == ' ')) {
+            write(buffer, sequences, PUNCTUATION, line, position, position + 1);
+            position++;
+            while (position < end && line.charAt(position) == ' ') {
+                buffer.write(' ');
+                position++;
+            }
+        }
+
+        // key
+        int colon = findKeySeparator(line, position, end);
+        if (colon >= 0) {
+            write(buffer, sequences, KEY, line, position, colon);
+            write(buffer, sequences, PUNCTUATION, line, colon, colon + 1);
+            position = colon + 1;
+            while (position < end && line.charAt(position) == ' ') {
+                buffer.write(' ');
+                position++;
+            }
+        }
+
+        return value(buffer, sequences, line, position, end);
+    }
+
+    
+    /**
+     * Colorize a value and an optional comment
+     *
+     * @param buffer the buffer
+     * @param sequences the escape sequences
+     * @param line the line
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return true if a block scalar starts
+     * @throws IOException In case of an I/O error
+     */
+    private boolean value(StreamBuffer buffer, String[] sequences, CharSequence line, int start, int end) throws IOException {
+        if (start >= end) {
+            return false;
+        }
+
+        char first = line.charAt(start);
+        if (first == '#') {
+            write(buffer, sequences, COMMENT, line, start, end);
+            return false;
+        }
+
+        int valueEnd;
+        if (first == '"' || first == '\'') {
+            valueEnd = findQuoteEnd(line, start, end);
+        } else {
+            valueEnd = findCommentStart(line, start, end);
+            while (valueEnd > start && line.charAt(valueEnd - 1) == ' ') {
+                valueEnd--;
+            }
+        }
+
+        boolean blockScalar = first == '|' || first == '>';
+        int type = STRING;
+        if (blockScalar) {
+            type = PUNCTUATION;
+        } else if (first != '"' && first != '\'') {
+            if (isLiteral(line, start, valueEnd)) {
+                type = LITERAL;
+            } else if (isNumber(line, start, valueEnd)) {
+                type = NUMBER;
+            }
+        }
+
+        write(buffer, sequences, type, line, start, valueEnd);
+        int commentStart = valueEnd;
+        while (commentStart < end && line.charAt(commentStart) == ' ') {
+            commentStart++;
+        }
+        buffer.write(line, valueEnd, commentStart);
+        if (commentStart < end) {
+            if (line.charAt(commentStart) == '#') {
+                write(buffer, sequences, COMMENT, line, commentStart, end);
+            } else {
+                buffer.write(line, commentStart, end);
+            }
+        }
+
+        return blockScalar;
+    }
+
+    
+    /**
+     * Write a styled token
+     *
+     * @param buffer the buffer
+     * @param sequences the escape sequences
+     * @param type the token type
+     * @param line the line
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @throws IOException In case of an I/O error
+     */
+    private void write(StreamBuffer buffer, String[] sequences, int type, CharSequence line, int start, int end) throws IOException {
+        if (start >= end) {
+            return;
+        }
+
+        buffer.write(sequences[type * 2]);
+        buffer.write(line, start, end);
+        buffer.write(sequences[type * 2 + 1]);
+    }
+
+    
+    /**
+     * Check if the line starts with a document marker
+     *
+     * @param line the line
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return true if it is a document marker
+     */
+    private boolean isDocumentMarker(CharSequence line, int start, int end) {
+        if (start != 0 || end < 3 || (end > 3 && line.charAt(3) != ' ')) {
+            return false;
+        }
+
+        char c = line.charAt(0);
+        return (c == '-' || c == '.') && line.charAt(1) == c && line.charAt(2) == c;
+    }
+
+    
+    /**
+     * Find the colon which separates a key from the value
+     *
+     * @param line the line
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return the index of the colon or -1
+     */
+    private int findKeySeparator(CharSequence line, int start, int end) {
+        if (start >= end || line.charAt(start) == '#') {
+            return -1;
+        }
+
+        int position = start;
+        char first = line.charAt(start);
+        if (first == '"' || first == '\'') {
+            position = findQuoteEnd(line, start, end);
+        } else if (first == '{' || first == '[' || first == '|' || first == '>') {
+            return -1;
+        }
+
+        for (int i = position; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == ':' && (i + 1 == end || line.charAt(i + 1) == ' ')) {
+                return i;
+            }
+
+            if (c == '#' && i > start && line.charAt(i - 1) == ' ') {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    
+    /**
+     * Find the end of a quoted scalar
+     *
+     * @param line the line
+     * @param start the index of the opening quote
+     * @param end the end index (exclusive)
+     * @return the index after the closing quote or the end
+     */
+    private int findQuoteEnd(CharSequence line, int start, int end) {
+        char quote = line.charAt(start);
+        for (int i = start + 1; i < end; i++) {
+            char c = line.charAt(i);
+            if (quote == '"' && c == '\\') {
+                i++;
+            } else if (c == quote) {
+                if (quote == '\'' && i + 1 < end && line.charAt(i + 1) == '\'') {
+                    i++;
+                } else {
+                    return i + 1;
+                }
+            }
+        }
+
+        return end;
+    }
+
+    
+    /**
+     * Find the start of a comment
+     *
+     * @param line the line
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return the index of the comment or the end
+     */
+    private int findCommentStart(CharSequence line, int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            if (line.charAt(i) == '#' && line.charAt(i - 1) == ' ') {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    
+    /**
+     * Check if a plain scalar is a literal like true, false or null
+     *
+     * @param line the line
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return true if it is a literal
+     */
+    private boolean isLiteral(CharSequence line, int start, int end) {
+        for (String literal : LITERALS) {
+            if (literal.length() == end - start) {
+                int i = 0;
+                while (i < literal.length() && Character.toLowerCase(line.charAt(start + i)) == literal.charAt(i)) {
+                    i++;
+                }
+
+                if (i == literal.length()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    
+    /**
+     * Check if a plain scalar is a number
+     *
+     * @param line the line
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return true if it is a number
+     */
+    private boolean isNumber(CharSequence line, int start, int end) {
+        int position = start;
+        if (position < end && (line.charAt(position) == '-' || line.charAt(position) == '+')) {
+            position++;
+        }
+
+        boolean digits = false;
+        boolean dot = false;
+        boolean exponent = false;
+        for (; position < end; position++) {
+            char c = line.charAt(position);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !dot && !exponent) {
+                dot = true;
+            } else if ((c == 'e' || c == 'E') && digits && !exponent) {
+                exponent = true;
+                digits = false;
+                if (position + 1 < end && (line.charAt(position + 1) == '-' || line.charAt(position + 1) == '+')) {
+                    position++;
+                }
+            } else {
+                return false;
+            }
+        }
+
+        return digits;
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * AnsiConsoleWriter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Writer for many threads which share one console. Each thread writes into its own line buffer; complete lines are
+ * published to a lock-free queue and written to the underlying writer by one thread at a time, therefore the lines of
+ * different threads never interleave. A line which ends with an active style ends with the reset sequence, styles
+ * don't bleed into the lines of other threads. The style is set again at the start of the next line of the same thread.
+ * <pre>
+ * AnsiConsoleWriter console = new AnsiConsoleWriter(new OutputStreamWriter(System.out));
+ * builder.writeTo(console);
+ * </pre>
+ * The writing threads don't wait on a monitor: the thread which finds the queue not drained takes over the writing,
+ * all others only enqueue their lines. In case more lines than the capacity are queued, the producing thread waits
+ * until it can write them itself. A partial line of a thread is published on {@link #flush()}, which returns once the
+ * line is written and the underlying writer is flushed.
+ *
+ * @author patrick
+ */
+public class AnsiConsoleWriter extends Writer {
+    /** The reset sequence which ends a line with an active style */
+    public static final String RESET = AnsiEscapeScanner.ESCAPE + "[0m";
+
+    /** The default number of queued lines before the producing threads wait */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 8192;
+    private static final long WAIT_NANOS = 50_000;
+    private final Writer writer;
+    private final int capacity;
+    private final Queue<String> queue;
+    private final AtomicInteger queued;
+    private final AtomicBoolean draining;
+    private final ThreadLocal<StringBuilder> lineBuffer;
+    private final ThreadLocal<AnsiStyle> activeStyle;
+    private volatile boolean closed;
+
+    
+    /**
+     * Constructor for AnsiConsoleWriter
+     *
+     * @param writer the underlying writer
+     * @throws IllegalArgumentException In case of an invalid writer
+     */
+    public AnsiConsoleWriter(Writer writer) throws IllegalArgumentException {
+        this(writer, DEFAULT_CAPACITY);
+    }
+
+    
+    /**
+     * Constructor for AnsiConsoleWriter
+     *
+     * @param writer the underlying writer
+     * @param capacity the number of queued lines before the producing threads wait
+     * @throws IllegalArgumentException In case of an invalid writer or capacity
+     */
+    public AnsiConsoleWriter(Writer writer, int capacity) throws IllegalArgumentException {
+        if (writer == null) {
+            throw new IllegalArgumentException("Invalid writer!");
+        }
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity + "!");
+        }
+
+        this.writer = writer;
+        this.capacity = capacity;
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.queued = new AtomicInteger();
+        this.draining = new AtomicBoolean(false);
+        this.lineBuffer = ThreadLocal.withInitial(() -> new StringBuilder(128));
+        this.activeStyle = ThreadLocal.withInitial(() -> AnsiStyle.NONE);
+        this.closed = false;
+    }
+
+    
+    /**
+     * @see java.io.Writer#write(int)
+     */
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        StringBuilder buffer = lineBuffer.get();
+        buffer.append((char) c);
+        if (c == '\n') {
+            publish(buffer);
+            drain(false);
+        }
+    }
+
+    
+    /**
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > cbuf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        StringBuilder buffer = lineBuffer.get();
+        int end = off + len;
+        int start = off;
+        boolean published = false;
+        for (int i = off; i < end; i++) {
+            if (cbuf[i] == '\n') {
+                buffer.append(cbuf, start, i + 1 - start);
+                publish(buffer);
+                published = true;
+                start = i + 1;
+            }
+        }
+        buffer.append(cbuf, start, end - start);
+
+        if (published) {
+            drain(false);
+        }
+    }
+
+    
+    /**
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > str.length()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        StringBuilder buffer = lineBuffer.get();
+        int end = off + len;
+        int start = off;
+        boolean published = false;
+        int newLine = str.indexOf('\n', start);
+        while (newLine >= 0 && newLine < end) {
+            buffer.append(str, start, newLine + 1);
+            publish(buffer);
+            published = true;
+            start = newLine + 1;
+            newLine = str.indexOf('\n', start);
+        }
+        buffer.append(str, start, end);
+
+        if (published) {
+            drain(false);
+        }
+    }
+
+    
+    /**
+     * Publishes the partial line of the calling thread and writes all published lines to the underlying writer. In case
+     * another thread is writing, the call waits until it has finished.
+     *
+     * @see java.io.Writer#flush()
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        StringBuilder buffer = lineBuffer.get();
+        if (buffer.length() > 0) {
+            publish(buffer);
+        }
+        drain(true);
+    }
+
+    
+    /**
+     * Publishes the partial line of the calling thread, writes all published lines and closes the underlying writer.
+     * The partial lines of other threads are discarded.
+     *
+     * @see java.io.Writer#close()
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            flush();
+            closed = true;
+
+            // the flag is kept: no other thread writes to the closed writer
+            acquire(false);
+            try {
+                writeQueued();
+            } finally {
+                lineBuffer.remove();
+                activeStyle.remove();
+                writer.close();
+            }
+        }
+    }
+
+    
+    /**
+     * Publish the content of a line buffer: the active style of the previous line of the thread is set at the start and
+     * a reset sequence is added in case a style is active at the end.
+     *
+     * @param buffer the line buffer
+     */
+    private void publish(StringBuilder buffer) {
+        int length = buffer.length();
+        int contentEnd = length;
+        if (contentEnd > 0 && buffer.charAt(contentEnd - 1) == '\n') {
+            contentEnd--;
+            if (contentEnd > 0 && buffer.charAt(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+        }
+
+        AnsiStyle style = activeStyle.get();
+        AnsiStyle lineStyle = style.applyEscapeSequences(buffer, 0, contentEnd);
+        if (!lineStyle.equals(style)) {
+            activeStyle.set(lineStyle);
+        }
+
+        if (!style.isNone() && contentEnd > 0) {
+            String escapeSequence = style.toAnsi(AnsiColor.ON);
+            buffer.insert(0, escapeSequence);
+            contentEnd += escapeSequence.length();
+        }
+
+        if (!lineStyle.isNone()) {
+            buffer.insert(contentEnd, RESET);
+        }
+
+        queue.add(buffer.toString());
+        queued.incrementAndGet();
+        buffer.setLength(0);
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            buffer.trimToSize();
+        }
+    }
+
+    
+    /**
+     * Write the published lines to the underlying writer. Only one thread writes at a time. Without waiting a thread which
+     * finds another thread writing returns immediately, the writing thread checks the queue again after it released the
+     * flag. A thread waits in case it must wait or more lines than the capacity are queued; once the writing thread has
+     * finished the waiting thread writes the remaining lines itself.
+     *
+     * @param wait true to wait until all lines which were published before are written and flushed
+     * @throws IOException In case of an I/O error
+     */
+    private void drain(boolean wait) throws IOException {
+        if (wait || queued.get() >= capacity) {
+            acquire(true);
+            try {
+                writeQueued();
+            } finally {
+                draining.set(false);
+            }
+        }
+
+        while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                writeQueued();
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    
+    /**
+     * Acquire the draining flag, the calling thread waits until the writing thread has finished
+     *
+     * @param checkOpen true to fail in case the writer is closed while waiting
+     * @throws IOException In case the writer is closed
+     */
+    private void acquire(boolean checkOpen) throws IOException {
+        while (!draining.compareAndSet(false, true)) {
+            if (checkOpen) {
+                ensureOpen();
+            }
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+    }
+
+    
+    /**
+     * Write and flush the queued lines, the caller holds the draining flag
+     *
+     * @throws IOException In case of an I/O error
+     */
+    private void writeQueued() throws IOException {
+        String line;
+        while ((line = queue.poll()) != null) {
+            queued.decrementAndGet();
+            writer.write(line);
+        }
+        writer.flush();
+    }
+
+    
+    /**
+     * Ensure the writer is not closed
+     *
+     * @throws IOException In case the writer is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed!");
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * AnsiFileStripper.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import com.github.toolarium.ansi.metrics.AnsiMetrics;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+
+/**
+ * Strips the escape sequences of huge files, e.g. archived build logs. The source file is split into chunks which are
+ * stripped in parallel on the common {@link ForkJoinPool}: each worker takes the next chunk in order, filters the
+ * memory-mapped chunk into its own reusable buffer and writes the result with a positional write to the target file.
+ * The write of a chunk starts as soon as the stripped length of its predecessor is known.
+ *
+ * <p>A chunk ends after a new line or before an escape character. At both positions the {@link AnsiEscapeScanner} is
+ * in the same state regardless of the preceding text, therefore the chunks are stripped independently and the result is
+ * the same as the one of a sequential pass. The file is processed as bytes: the escape sequences consist of ASCII
+ * characters only, which never occur inside a multi byte UTF-8 character.</p>
+ * <pre>
+ * long size = new AnsiFileStripper().strip(Paths.get("build.log"), Paths.get("build-plain.log"));
+ * </pre>
+ *
+ * @author patrick
+ */
+public class AnsiFileStripper {
+    /** The default chunk size */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final int BOUNDARY_BUFFER_SIZE = 4096;
+    private static final byte NEW_LINE = '\n';
+    private static final byte ESCAPE = (byte) AnsiEscapeScanner.ESCAPE;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean parallel = true;
+
+    
+    /**
+     * Set the nominal chunk size. A chunk is extended up to the next new line or escape character.
+     *
+     * @param chunkSize the chunk size in bytes
+     * @return the AnsiFileStripper
+     * @throws IllegalArgumentException In case of an invalid chunk size
+     */
+    public AnsiFileStripper setChunkSize(int chunkSize) throws IllegalArgumentException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize + "!");
+        }
+
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    
+    /**
+     * Enable or disable the parallel processing of the chunks.
+     *
+     * @param parallel true to strip the chunks in parallel
+     * @return the AnsiFileStripper
+     */
+    public AnsiFileStripper setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    
+    /**
+     * Strip all escape sequences of a file
+     *
+     * @param source the source file
+     * @param target the target file, it is created or truncated
+     * @return the size of the target file
+     * @throws IOException In case of an I/O error
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public long strip(Path source, Path target) throws IOException, IllegalArgumentException {
+        if (source == null || target == null) {
+            throw new IllegalArgumentException("Invalid file!");
+        }
+
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = input.size();
+            ChunkQueue queue = new ChunkQueue(input, size);
+            int workerCount = parallel ? (int) Math.min(ForkJoinPool.getCommonPoolParallelism(), (size + chunkSize - 1) / chunkSize) : 1;
+            if (workerCount < 2) {
+                stripChunks(queue, input, output);
+            } else {
+                List<ForkJoinTask<?>> tasks = new ArrayList<>(workerCount);
+                for (int i = 0; i < workerCount; i++) {
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                        try {
+                            stripChunks(queue, input, output);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                }
+
+                for (ForkJoinTask<?> task : tasks) {
+                    try {
+                        task.join();
+                    } catch (RuntimeException e) {
+                        // the first failure is kept by the queue
+                    }
+                }
+                queue.rethrowFailure();
+            }
+
+            long position = queue.getTargetSize();
+            output.truncate(position);
+            if (AnsiMetrics.ENABLED) {
+                AnsiMetrics.getInstance().recordStrip((int) Math.min(Integer.MAX_VALUE, size - position));
+            }
+            return position;
+        }
+    }
+
+    
+    /**
+     * Strip the chunks of the queue until all chunks are taken. The chunk is filtered from the mapped file into a buffer
+     * which is reused for the next chunk of the worker.
+     *
+     * @param queue the chunk queue
+     * @param input the input channel
+     * @param output the output channel
+     * @throws IOException In case of an I/O error
+     */
+    private void stripChunks(ChunkQueue queue, FileChannel input, FileChannel output) throws IOException {
+        byte[] buffer = null;
+        Chunk chunk;
+        while ((chunk = queue.next()) != null) {
+            try {
+                int size = (int) (chunk.end - chunk.start);
+                if (buffer == null || buffer.length < size) {
+                    buffer = new byte[(int) Math.min(Integer.MAX_VALUE - 8, size + (long) size / 4)];
+                }
+
+                MappedByteBuffer mapped = input.map(FileChannel.MapMode.READ_ONLY, chunk.start, size);
+                int length = new AnsiEscapeScanner().filter(mapped, buffer, 0);
+
+                // the successor can start to write once the position after this chunk is known
+                long position = chunk.targetStart.join();
+                chunk.targetEnd.complete(position + length);
+
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, length);
+                while (data.hasRemaining()) {
+                    position += output.write(data, position);
+                }
+            } catch (IOException | RuntimeException e) {
+                queue.fail(chunk, e);
+                throw e;
+            }
+        }
+    }
+
+    
+    /**
+     * Find the end of a chunk: the position after the next new line or of the next escape character after the nominal
+     * chunk size.
+     *
+     * @param input the input channel
+     * @param start the start of the chunk
+     * @param size the size of the file
+     * @return the end of the chunk (exclusive)
+     * @throws IOException In case of an I/O error or a chunk which is too large
+     */
+    private long findChunkEnd(FileChannel input, long start, long size) throws IOException {
+        long position = start + chunkSize;
+        if (position >= size) {
+            return checkChunkSize(start, size);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int count = input.read(buffer, position);
+            if (count <= 0) {
+                break;
+            }
+
+            for (int i = 0; i < count; i++) {
+                byte b = buffer.get(i);
+                if (b == NEW_LINE) {
+                    return checkChunkSize(start, position + i + 1);
+                }
+
+                if (b == ESCAPE) {
+                    return checkChunkSize(start, position + i);
+                }
+            }
+            position += count;
+        }
+
+        return checkChunkSize(start, size);
+    }
+
+    
+    /**
+     * Check if a chunk can be mapped
+     *
+     * @param start the start of the chunk
+     * @param end the end of the chunk (exclusive)
+     * @return the end of the chunk
+     * @throws IOException In case the chunk is too large
+     */
+    private static long checkChunkSize(long start, long end) throws IOException {
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too large chunk at position " + start + ", no new line or escape character found!");
+        }
+        return end;
+    }
+
+    
+    /**
+     * Hands out the chunks in the order of the source file, a chunk knows the target position of its predecessor
+     */
+    private final class ChunkQueue {
+        private final FileChannel input;
+        private final long size;
+        private long nextStart;
+        private CompletableFuture<Long> targetEnd;
+        private Exception failure;
+
+        
+        /**
+         * Constructor for ChunkQueue
+         *
+         * @param input the input channel
+         * @param size the size of the source file
+         */
+        ChunkQueue(FileChannel input, long size) {
+            this.input = input;
+            this.size = size;
+            this.nextStart = 0;
+            this.targetEnd = CompletableFuture.completedFuture(0L);
+            this.failure = null;
+        }
+
+        
+        /**
+         * Get the next chunk
+         *
+         * @return the chunk or null if all chunks are taken or a chunk has failed
+         * @throws IOException In case of an I/O error
+         */
+        synchronized Chunk next() throws IOException {
+            if (failure != null || nextStart >= size) {
+                return null;
+            }
+
+            long end = findChunkEnd(input, nextStart, size);
+            Chunk chunk = new Chunk(nextStart, end, targetEnd);
+            nextStart = end;
+            targetEnd = chunk.targetEnd;
+            return chunk;
+        }
+
+        
+        /**
+         * Record the failure of a chunk, the following chunks are not handed out any more
+         *
+         * @param chunk the chunk
+         * @param e the exception
+         */
+        synchronized void fail(Chunk chunk, Exception e) {
+            if (failure == null) {
+                failure = e;
+            }
+            chunk.targetEnd.completeExceptionally(e);
+        }
+
+        
+        /**
+         * Throw the first failure
+         *
+         * @throws IOException In case a chunk failed with an I/O error
+         */
+        synchronized void rethrowFailure() throws IOException {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+
+            if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+        }
+
+        
+        /**
+         * Get the size of the target file once all chunks are stripped
+         *
+         * @return the size of the target file
+         */
+        synchronized long getTargetSize() {
+            return targetEnd.join();
+        }
+    }
+
+    
+    /**
+     * A chunk of the source file
+     */
+    private static final class Chunk {
+        private final long start;
+        private final long end;
+        private final CompletableFuture<Long> targetStart;
+        private final CompletableFuture<Long> targetEnd;
+
+        
+        /**
+         * Constructor for Chunk
+         *
+         * @param start the start position in the source file
+         * @param end the end position in the source file (exclusive)
+         * @param targetStart the position in the target file, it is known once the predecessor is stripped
+         */
+        Chunk(long start, long end, CompletableFuture<Long> targetStart) {
+            this.start = start;
+            this.end = end;
+            this.targetStart = targetStart;
+            this.targetEnd = new CompletableFuture<>();
+        }
+    }
+}
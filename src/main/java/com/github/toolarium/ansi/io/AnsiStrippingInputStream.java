@@ -0,0 +1,137 @@
+/*
+ * AnsiStrippingInputStream.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Input stream which removes the escape sequences of the underlying stream on the fly. The bytes are processed as
+ * single characters, which is correct for ASCII compatible encodings like UTF-8: the escape sequences consist of ASCII
+ * characters only, which never occur inside a multi byte character. Escape sequences which are split over several
+ * reads are handled correctly, the bulk read removes the sequences in place without allocating memory.
+ *
+ * @author patrick
+ */
+public class AnsiStrippingInputStream extends FilterInputStream {
+    private static final int SKIP_BUFFER_SIZE = 512;
+    private final AnsiEscapeScanner scanner;
+    private byte[] skipBuffer;
+
+    
+    /**
+     * Constructor for AnsiStrippingInputStream
+     *
+     * @param inputStream the underlying input stream
+     */
+    public AnsiStrippingInputStream(InputStream inputStream) {
+        super(inputStream);
+        this.scanner = new AnsiEscapeScanner();
+    }
+
+    
+    /**
+     * @see java.io.FilterInputStream#read()
+     */
+    @Override
+    public synchronized int read() throws IOException {
+        int b;
+        do {
+            b = in.read();
+        } while (b >= 0 && !scanner.accept((char) b));
+        return b;
+    }
+
+    
+    /**
+     * @see java.io.FilterInputStream#read(byte[], int, int)
+     */
+    @Override
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        int count;
+        do {
+            count = in.read(b, off, len);
+            if (count < 0) {
+                return -1;
+            }
+            count = scanner.filter(b, off, count);
+        } while (count == 0);
+        return count;
+    }
+
+    
+    /**
+     * @see java.io.FilterInputStream#skip(long)
+     */
+    @Override
+    public synchronized long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+
+        if (skipBuffer == null) {
+            skipBuffer = new byte[SKIP_BUFFER_SIZE];
+        }
+
+        long remaining = n;
+        while (remaining > 0) {
+            int count = read(skipBuffer, 0, (int) Math.min(remaining, skipBuffer.length));
+            if (count < 0) {
+                break;
+            }
+            remaining -= count;
+        }
+        return n - remaining;
+    }
+
+    
+    /**
+     * @see java.io.FilterInputStream#available()
+     */
+    @Override
+    public int available() throws IOException {
+        // the available bytes could be escape sequences only
+        return 0;
+    }
+
+    
+    /**
+     * @see java.io.FilterInputStream#markSupported()
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    
+    /**
+     * @see java.io.FilterInputStream#mark(int)
+     */
+    @Override
+    public synchronized void mark(int readlimit) {
+        // mark is not supported
+    }
+
+    
+    /**
+     * @see java.io.FilterInputStream#reset()
+     */
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("Reset not supported!");
+    }
+}
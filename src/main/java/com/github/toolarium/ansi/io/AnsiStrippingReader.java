@@ -0,0 +1,146 @@
+/*
+ * AnsiStrippingReader.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * Reader which removes the escape sequences of the underlying reader on the fly. Escape sequences which are split over
+ * several reads are handled correctly, the bulk read removes the sequences in place without allocating memory.
+ * <pre>
+ * try (BufferedReader reader = new BufferedReader(new AnsiStrippingReader(new InputStreamReader(process.getInputStream())))) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author patrick
+ */
+public class AnsiStrippingReader extends FilterReader {
+    private static final int SKIP_BUFFER_SIZE = 512;
+    private final AnsiEscapeScanner scanner;
+    private char[] skipBuffer;
+
+    
+    /**
+     * Constructor for AnsiStrippingReader
+     *
+     * @param reader the underlying reader
+     */
+    public AnsiStrippingReader(Reader reader) {
+        super(reader);
+        this.scanner = new AnsiEscapeScanner();
+    }
+
+    
+    /**
+     * @see java.io.FilterReader#read()
+     */
+    @Override
+    public int read() throws IOException {
+        synchronized (lock) {
+            int c;
+            do {
+                c = in.read();
+            } while (c >= 0 && !scanner.accept((char) c));
+            return c;
+        }
+    }
+
+    
+    /**
+     * @see java.io.FilterReader#read(char[], int, int)
+     */
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > cbuf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (len == 0) {
+            return 0;
+        }
+
+        synchronized (lock) {
+            int count;
+            do {
+                count = in.read(cbuf, off, len);
+                if (count < 0) {
+                    return -1;
+                }
+                count = scanner.filter(cbuf, off, count);
+            } while (count == 0);
+            return count;
+        }
+    }
+
+    
+    /**
+     * @see java.io.FilterReader#skip(long)
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Invalid skip value: " + n + "!");
+        }
+
+        synchronized (lock) {
+            if (skipBuffer == null) {
+                skipBuffer = new char[SKIP_BUFFER_SIZE];
+            }
+
+            long remaining = n;
+            while (remaining > 0) {
+                int count = read(skipBuffer, 0, (int) Math.min(remaining, skipBuffer.length));
+                if (count < 0) {
+                    break;
+                }
+                remaining -= count;
+            }
+            return n - remaining;
+        }
+    }
+
+    
+    /**
+     * @see java.io.FilterReader#ready()
+     */
+    @Override
+    public boolean ready() throws IOException {
+        // the available characters could be escape sequences only
+        return false;
+    }
+
+    
+    /**
+     * @see java.io.FilterReader#markSupported()
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    
+    /**
+     * @see java.io.FilterReader#mark(int)
+     */
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("Mark not supported!");
+    }
+
+    
+    /**
+     * @see java.io.FilterReader#reset()
+     */
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("Reset not supported!");
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * AnsiTeeWriter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.IOException;
+import java.io.Writer;
+
+
+/**
+ * Writer which writes the text in one pass to two sinks: the colored sink gets the text as it is, the plain sink gets
+ * the text without escape sequences. Each sink has its own buffer and flush policy, e.g. a console which is flushed on
+ * each line and a log file which is only flushed explicit.
+ * <pre>
+ * try (AnsiTeeWriter writer = new AnsiTeeWriter(console, logFile)) {
+ *     builder.writeTo(writer);
+ * }
+ * </pre>
+ *
+ * @author patrick
+ */
+public class AnsiTeeWriter extends Writer {
+    /** The default buffer size */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Sink colored;
+    private final Sink plain;
+    private final AnsiEscapeScanner scanner;
+    private char[] stringBuffer;
+    private boolean closed;
+
+    
+    /**
+     * The flush policy of a sink
+     */
+    public enum FlushPolicy {
+        /** The sink is flushed when the buffer is full or on {@link AnsiTeeWriter#flush()} */
+        EXPLICIT,
+
+        /** The sink is flushed after each line */
+        LINE,
+
+        /** The sink is flushed after each write */
+        IMMEDIATE
+    }
+
+    
+    /**
+     * Constructor for AnsiTeeWriter, the colored sink is flushed on each line and the plain sink explicit.
+     *
+     * @param coloredWriter the writer which gets the text with escape sequences
+     * @param plainWriter the writer which gets the text without escape sequences
+     */
+    public AnsiTeeWriter(Writer coloredWriter, Writer plainWriter) {
+        this(coloredWriter, DEFAULT_BUFFER_SIZE, plainWriter, DEFAULT_BUFFER_SIZE);
+    }
+
+    
+    /**
+     * Constructor for AnsiTeeWriter, the colored sink is flushed on each line and the plain sink explicit.
+     *
+     * @param coloredWriter the writer which gets the text with escape sequences
+     * @param coloredBufferSize the buffer size of the colored sink
+     * @param plainWriter the writer which gets the text without escape sequences
+     * @param plainBufferSize the buffer size of the plain sink
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiTeeWriter(Writer coloredWriter, int coloredBufferSize, Writer plainWriter, int plainBufferSize) throws IllegalArgumentException {
+        if (coloredWriter == null || plainWriter == null) {
+            throw new IllegalArgumentException("Invalid writer!");
+        }
+
+        this.colored = new Sink(coloredWriter, coloredBufferSize, FlushPolicy.LINE);
+        this.plain = new Sink(plainWriter, plainBufferSize, FlushPolicy.EXPLICIT);
+        this.scanner = new AnsiEscapeScanner();
+        this.closed = false;
+    }
+
+    
+    /**
+     * Set the flush policy of the colored sink
+     *
+     * @param flushPolicy the flush policy
+     * @return the AnsiTeeWriter
+     */
+    public AnsiTeeWriter setColoredFlushPolicy(FlushPolicy flushPolicy) {
+        synchronized (lock) {
+            colored.flushPolicy = flushPolicy == null ? FlushPolicy.EXPLICIT : flushPolicy;
+        }
+        return this;
+    }
+
+    
+    /**
+     * Set the flush policy of the plain sink
+     *
+     * @param flushPolicy the flush policy
+     * @return the AnsiTeeWriter
+     */
+    public AnsiTeeWriter setPlainFlushPolicy(FlushPolicy flushPolicy) {
+        synchronized (lock) {
+            plain.flushPolicy = flushPolicy == null ? FlushPolicy.EXPLICIT : flushPolicy;
+        }
+        return this;
+    }
+
+    
+    /**
+     * @see java.io.Writer#write(int)
+     */
+    @Override
+    public void write(int c) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            char ch = (char) c;
+            colored.write(ch);
+            if (scanner.accept(ch)) {
+                plain.write(ch);
+            }
+            colored.flushIfRequired(ch == '\n');
+            plain.flushIfRequired(ch == '\n');
+        }
+    }
+
+    
+    /**
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (off < 0 || len < 0 || off + len > cbuf.length) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            colored.write(cbuf, off, len);
+
+            int end = off + len;
+            int i = off;
+            while (i < end) {
+                if (!scanner.isInEscapeSequence()) {
+                    int escape = AnsiEscapeScanner.indexOf(cbuf, i, end);
+                    int textEnd = escape < 0 ? end : escape;
+                    plain.write(cbuf, i, textEnd - i);
+                    i = textEnd;
+                    if (i == end) {
+                        break;
+                    }
+                }
+
+                char c = cbuf[i++];
+                if (scanner.accept(c)) {
+                    plain.write(c);
+                }
+            }
+
+            boolean newLine = containsNewLine(cbuf, off, end);
+            colored.flushIfRequired(newLine);
+            plain.flushIfRequired(newLine);
+        }
+    }
+
+    
+    /**
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (stringBuffer == null || (stringBuffer.length < len && stringBuffer.length < DEFAULT_BUFFER_SIZE)) {
+                // grows on demand, a short first string must not chunk all later strings
+                stringBuffer = new char[Math.min(Math.max(len, 16), DEFAULT_BUFFER_SIZE)];
+            }
+
+            int position = off;
+            int end = off + len;
+            while (position < end) {
+                int count = Math.min(end - position, stringBuffer.length);
+                str.getChars(position, position + count, stringBuffer, 0);
+                write(stringBuffer, 0, count);
+                position += count;
+            }
+        }
+    }
+
+    
+    /**
+     * @see java.io.Writer#flush()
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            colored.flush();
+            plain.flush();
+        }
+    }
+
+    
+    /**
+     * @see java.io.Writer#close()
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            try {
+                colored.close();
+            } finally {
+                plain.close();
+            }
+        }
+    }
+
+    
+    /**
+     * Ensure the writer is not closed
+     *
+     * @throws IOException In case the writer is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed!");
+        }
+    }
+
+    
+    /**
+     * Check if a range of characters contains a new line
+     *
+     * @param cbuf the characters
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return true if a new line was found
+     */
+    private static boolean containsNewLine(char[] cbuf, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (cbuf[i] == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    
+    /**
+     * A buffered sink
+     */
+    private static final class Sink {
+        private final Writer writer;
+        private final char[] buffer;
+        private int count;
+        private FlushPolicy flushPolicy;
+
+        
+        /**
+         * Constructor for Sink
+         *
+         * @param writer the writer
+         * @param bufferSize the buffer size
+         * @param flushPolicy the flush policy
+         * @throws IllegalArgumentException In case of an invalid buffer size
+         */
+        Sink(Writer writer, int bufferSize, FlushPolicy flushPolicy) throws IllegalArgumentException {
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("Invalid buffer size: " + bufferSize + "!");
+            }
+
+            this.writer = writer;
+            this.buffer = new char[bufferSize];
+            this.count = 0;
+            this.flushPolicy = flushPolicy;
+        }
+
+        
+        /**
+         * Write a character
+         *
+         * @param c the character
+         * @throws IOException In case of an I/O error
+         */
+        void write(char c) throws IOException {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            buffer[count++] = c;
+        }
+
+        
+        /**
+         * Write characters
+         *
+         * @param cbuf the characters
+         * @param off the offset
+         * @param len the number of characters
+         * @throws IOException In case of an I/O error
+         */
+        void write(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+
+            if (len >= buffer.length) {
+                flushBuffer();
+                writer.write(cbuf, off, len);
+                return;
+            }
+
+            if (len > buffer.length - count) {
+                flushBuffer();
+            }
+            System.arraycopy(cbuf, off, buffer, count, len);
+            count += len;
+        }
+
+        
+        /**
+         * Flush the sink depending on the flush policy
+         *
+         * @param newLine true if a new line was written
+         * @throws IOException In case of an I/O error
+         */
+        void flushIfRequired(boolean newLine) throws IOException {
+            if (flushPolicy == FlushPolicy.IMMEDIATE || (newLine && flushPolicy == FlushPolicy.LINE)) {
+                flush();
+            }
+        }
+
+        
+        /**
+         * Flush the buffer and the writer
+         *
+         * @throws IOException In case of an I/O error
+         */
+        void flush() throws IOException {
+            flushBuffer();
+            writer.flush();
+        }
+
+        
+        /**
+         * Flush and close the writer
+         *
+         * @throws IOException In case of an I/O error
+         */
+        void close() throws IOException {
+            try {
+                flushBuffer();
+            } finally {
+                writer.close();
+            }
+        }
+
+        
+        /**
+         * Write the buffer to the writer
+         *
+         * @throws IOException In case of an I/O error
+         */
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                writer.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * AnsiMetrics.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Opt-in runtime metrics of the ANSI rendering. The metrics are enabled by the system property
+ * {@code toolarium.ansi.metrics=true} which is read once when the class is loaded: all recording calls are guarded by
+ * the constant {@link #ENABLED}, therefore the JIT removes them in case the metrics are disabled. The counters are
+ * {@link LongAdder}s, concurrent updates don't contend on one memory location.
+ * <pre>
+ * if (AnsiMetrics.ENABLED) {
+ *     AnsiMetrics.getInstance().recordEscapeSequence(length);
+ * }
+ * </pre>
+ * In case the metrics are enabled they are registered as MXBean with the name {@link #OBJECT_NAME}.
+ *
+ * @author patrick
+ */
+public final class AnsiMetrics implements AnsiMetricsMXBean {
+    /** The system property to enable the metrics */
+    public static final String ENABLED_PROPERTY = "toolarium.ansi.metrics";
+
+    /** True if the metrics are enabled */
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    /** The object name of the MXBean */
+    public static final String OBJECT_NAME = "com.github.toolarium.ansi:type=AnsiMetrics";
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnsiMetrics.class);
+    private final LongAdder escapeSequenceCount;
+    private final LongAdder escapeCharacterCount;
+    private final LongAdder textCharacterCount;
+    private final LongAdder stripCount;
+    private final LongAdder strippedCharacterCount;
+    private final LongAdder detectionCount;
+    private final LongAdder autoDetectionCount;
+    private final LongAdder bufferGrowthCount;
+
+    
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final AnsiMetrics INSTANCE = new AnsiMetrics();
+    }
+
+    
+    /**
+     * Constructor
+     */
+    private AnsiMetrics() {
+        escapeSequenceCount = new LongAdder();
+        escapeCharacterCount = new LongAdder();
+        textCharacterCount = new LongAdder();
+        stripCount = new LongAdder();
+        strippedCharacterCount = new LongAdder();
+        detectionCount = new LongAdder();
+        autoDetectionCount = new LongAdder();
+        bufferGrowthCount = new LongAdder();
+
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static AnsiMetrics getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    
+    /**
+     * Record an emitted escape sequence
+     *
+     * @param length the length of the escape sequence
+     */
+    public void recordEscapeSequence(int length) {
+        escapeSequenceCount.increment();
+        escapeCharacterCount.add(length);
+    }
+
+    
+    /**
+     * Record emitted text
+     *
+     * @param length the number of characters
+     */
+    public void recordText(int length) {
+        textCharacterCount.add(length);
+    }
+
+    
+    /**
+     * Record a strip invocation
+     *
+     * @param removedCharacters the number of removed characters
+     */
+    public void recordStrip(int removedCharacters) {
+        stripCount.increment();
+        strippedCharacterCount.add(removedCharacters);
+    }
+
+    
+    /**
+     * Record an ansi detection call
+     */
+    public void recordDetection() {
+        detectionCount.increment();
+    }
+
+    
+    /**
+     * Record an executed ansi auto detection
+     */
+    public void recordAutoDetection() {
+        autoDetectionCount.increment();
+    }
+
+    
+    /**
+     * Record a buffer growth event
+     */
+    public void recordBufferGrowth() {
+        bufferGrowthCount.increment();
+    }
+
+    
+    /**
+     * Get a snapshot of the counters
+     *
+     * @return the snapshot
+     */
+    public AnsiMetricsSnapshot snapshot() {
+        return new AnsiMetricsSnapshot(this);
+    }
+
+    
+    /**
+     * Register the MXBean in the platform MBean server, it is done automatically in case the metrics are enabled.
+     *
+     * @return true if the MXBean is registered
+     */
+    public boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            synchronized (this) {
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(this, objectName);
+                }
+            }
+            return true;
+        } catch (JMException | RuntimeException e) {
+            LOG.debug("Could not register the ansi metrics: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#isEnabled()
+     */
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getEscapeSequenceCount()
+     */
+    @Override
+    public long getEscapeSequenceCount() {
+        return escapeSequenceCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getEscapeCharacterCount()
+     */
+    @Override
+    public long getEscapeCharacterCount() {
+        return escapeCharacterCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getTextCharacterCount()
+     */
+    @Override
+    public long getTextCharacterCount() {
+        return textCharacterCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getStripCount()
+     */
+    @Override
+    public long getStripCount() {
+        return stripCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getStrippedCharacterCount()
+     */
+    @Override
+    public long getStrippedCharacterCount() {
+        return strippedCharacterCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getDetectionCount()
+     */
+    @Override
+    public long getDetectionCount() {
+        return detectionCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getAutoDetectionCount()
+     */
+    @Override
+    public long getAutoDetectionCount() {
+        return autoDetectionCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#getBufferGrowthCount()
+     */
+    @Override
+    public long getBufferGrowthCount() {
+        return bufferGrowthCount.sum();
+    }
+
+    
+    /**
+     * @see com.github.toolarium.ansi.metrics.AnsiMetricsMXBean#reset()
+     */
+    @Override
+    public void reset() {
+        escapeSequenceCount.reset();
+        escapeCharacterCount.reset();
+        textCharacterCount.reset();
+        stripCount.reset();
+        strippedCharacterCount.reset();
+        detectionCount.reset();
+        autoDetectionCount.reset();
+        bufferGrowthCount.reset();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * AnsiMetricsMXBean.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.metrics;
+
+
+/**
+ * The management interface of the {@link AnsiMetrics}.
+ *
+ * @author patrick
+ */
+public interface AnsiMetricsMXBean {
+
+    /**
+     * Check if the metrics are enabled, see {@link AnsiMetrics#ENABLED_PROPERTY}.
+     *
+     * @return true if the metrics are enabled
+     */
+    boolean isEnabled();
+
+    
+    /**
+     * Get the number of emitted escape sequences
+     *
+     * @return the number of escape sequences
+     */
+    long getEscapeSequenceCount();
+
+    
+    /**
+     * Get the number of emitted escape sequence characters
+     *
+     * @return the number of characters
+     */
+    long getEscapeCharacterCount();
+
+    
+    /**
+     * Get the number of emitted text characters
+     *
+     * @return the number of characters
+     */
+    long getTextCharacterCount();
+
+    
+    /**
+     * Get the number of strip invocations
+     *
+     * @return the number of strip invocations
+     */
+    long getStripCount();
+
+    
+    /**
+     * Get the number of characters which are removed by strip invocations
+     *
+     * @return the number of characters
+     */
+    long getStrippedCharacterCount();
+
+    
+    /**
+     * Get the number of ansi detection calls
+     *
+     * @return the number of detection calls
+     */
+    long getDetectionCount();
+
+    
+    /**
+     * Get the number of executed ansi auto detections, the result of an auto detection is cached
+     *
+     * @return the number of auto detections
+     */
+    long getAutoDetectionCount();
+
+    
+    /**
+     * Get the number of buffer growth events
+     *
+     * @return the number of buffer growth events
+     */
+    long getBufferGrowthCount();
+
+    
+    /**
+     * Reset all counters
+     */
+    void reset();
+}
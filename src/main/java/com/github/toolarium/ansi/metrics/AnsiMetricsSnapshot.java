@@ -0,0 +1,175 @@
+/*
+ * AnsiMetricsSnapshot.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.metrics;
+
+
+/**
+ * An immutable snapshot of the {@link AnsiMetrics} counters. The counters are read one after the other, therefore the
+ * snapshot is not atomic in case of concurrent updates.
+ *
+ * @author patrick
+ */
+public final class AnsiMetricsSnapshot {
+    private final long escapeSequenceCount;
+    private final long escapeCharacterCount;
+    private final long textCharacterCount;
+    private final long stripCount;
+    private final long strippedCharacterCount;
+    private final long detectionCount;
+    private final long autoDetectionCount;
+    private final long bufferGrowthCount;
+
+    
+    /**
+     * Constructor for AnsiMetricsSnapshot
+     *
+     * @param metrics the metrics
+     */
+    AnsiMetricsSnapshot(AnsiMetricsMXBean metrics) {
+        this.escapeSequenceCount = metrics.getEscapeSequenceCount();
+        this.escapeCharacterCount = metrics.getEscapeCharacterCount();
+        this.textCharacterCount = metrics.getTextCharacterCount();
+        this.stripCount = metrics.getStripCount();
+        this.strippedCharacterCount = metrics.getStrippedCharacterCount();
+        this.detectionCount = metrics.getDetectionCount();
+        this.autoDetectionCount = metrics.getAutoDetectionCount();
+        this.bufferGrowthCount = metrics.getBufferGrowthCount();
+    }
+
+    
+    /**
+     * Constructor for AnsiMetricsSnapshot
+     *
+     * @param escapeSequenceCount the number of escape sequences
+     * @param escapeCharacterCount the number of escape sequence characters
+     * @param textCharacterCount the number of text characters
+     * @param stripCount the number of strip invocations
+     * @param strippedCharacterCount the number of stripped characters
+     * @param detectionCount the number of detection calls
+     * @param autoDetectionCount the number of auto detections
+     * @param bufferGrowthCount the number of buffer growth events
+     */
+    private AnsiMetricsSnapshot(long escapeSequenceCount, long escapeCharacterCount, long textCharacterCount, long stripCount,
+                                long strippedCharacterCount, long detectionCount, long autoDetectionCount, long bufferGrowthCount) {
+        this.escapeSequenceCount = escapeSequenceCount;
+        this.escapeCharacterCount = escapeCharacterCount;
+        this.textCharacterCount = textCharacterCount;
+        this.stripCount = stripCount;
+        this.strippedCharacterCount = strippedCharacterCount;
+        this.detectionCount = detectionCount;
+        this.autoDetectionCount = autoDetectionCount;
+        this.bufferGrowthCount = bufferGrowthCount;
+    }
+
+    
+    /**
+     * Get the number of emitted escape sequences
+     *
+     * @return the number of escape sequences
+     */
+    public long getEscapeSequenceCount() {
+        return escapeSequenceCount;
+    }
+
+    
+    /**
+     * Get the number of emitted escape sequence characters
+     *
+     * @return the number of characters
+     */
+    public long getEscapeCharacterCount() {
+        return escapeCharacterCount;
+    }
+
+    
+    /**
+     * Get the number of emitted text characters
+     *
+     * @return the number of characters
+     */
+    public long getTextCharacterCount() {
+        return textCharacterCount;
+    }
+
+    
+    /**
+     * Get the number of strip invocations
+     *
+     * @return the number of strip invocations
+     */
+    public long getStripCount() {
+        return stripCount;
+    }
+
+    
+    /**
+     * Get the number of characters which are removed by strip invocations
+     *
+     * @return the number of characters
+     */
+    public long getStrippedCharacterCount() {
+        return strippedCharacterCount;
+    }
+
+    
+    /**
+     * Get the number of ansi detection calls
+     *
+     * @return the number of detection calls
+     */
+    public long getDetectionCount() {
+        return detectionCount;
+    }
+
+    
+    /**
+     * Get the number of executed ansi auto detections
+     *
+     * @return the number of auto detections
+     */
+    public long getAutoDetectionCount() {
+        return autoDetectionCount;
+    }
+
+    
+    /**
+     * Get the number of buffer growth events
+     *
+     * @return the number of buffer growth events
+     */
+    public long getBufferGrowthCount() {
+        return bufferGrowthCount;
+    }
+
+    
+    /**
+     * Get the difference to a previous snapshot
+     *
+     * @param previous the previous snapshot
+     * @return the difference
+     */
+    public AnsiMetricsSnapshot minus(AnsiMetricsSnapshot previous) {
+        return new AnsiMetricsSnapshot(escapeSequenceCount - previous.escapeSequenceCount,
+                                       escapeCharacterCount - previous.escapeCharacterCount,
+                                       textCharacterCount - previous.textCharacterCount,
+                                       stripCount - previous.stripCount,
+                                       strippedCharacterCount - previous.strippedCharacterCount,
+                                       detectionCount - previous.detectionCount,
+                                       autoDetectionCount - previous.autoDetectionCount,
+                                       bufferGrowthCount - previous.bufferGrowthCount);
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "AnsiMetricsSnapshot [escapeSequenceCount=" + escapeSequenceCount + ", escapeCharacterCount=" + escapeCharacterCount
+               + ", textCharacterCount=" + textCharacterCount + ", stripCount=" + stripCount + ", strippedCharacterCount=" + strippedCharacterCount
+               + ", detectionCount=" + detectionCount + ", autoDetectionCount=" + autoDetectionCount + ", bufferGrowthCount=" + bufferGrowthCount + "]";
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * CellFormatter.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.render;
+
+import com.github.toolarium.ansi.AnsiBuffer;
+
+
+/**
+ * Formatter of the cells of a column of the {@link ColumnarBatchRenderer}. The formatter is called concurrently for
+ * different rows, it must not have a mutable state.
+ *
+ * @author patrick
+ */
+@FunctionalInterface
+public interface CellFormatter {
+
+    /**
+     * Append the text of a cell, it must not contain escape sequences
+     *
+     * @param out the output
+     * @param row the row index
+     */
+    void format(AnsiBuffer out, int row);
+}
@@ -0,0 +1,420 @@
+/*
+ * ColumnarBatchRenderer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.render;
+
+import com.github.toolarium.ansi.AnsiBuffer;
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStyle;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+
+/**
+ * Renders columnar data, e.g. large result sets, as styled lines: one line per row, the cells separated by the
+ * separator. Blocks of rows are rendered in parallel on the common {@link ForkJoinPool} into encoded byte buffers which
+ * are written in order with gathering writes. Numbers are appended without an intermediate {@link String}.
+ * <pre>
+ * new ColumnarBatchRenderer()
+ *     .addColumn(ids, AnsiStyle.NONE.bold())
+ *     .addColumn(names, AnsiStyle.NONE)
+ *     .addColumn(amounts.length, (out, row) -&gt; out.append(amounts[row] / 100).append('.').append(amounts[row] % 100), AnsiStyle.of(ForegroundColor.GREEN))
+ *     .render(channel);
+ * </pre>
+ *
+ * @author patrick
+ */
+public class ColumnarBatchRenderer {
+    /** The default number of rows per block */
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    private static final int ESTIMATED_CELL_LENGTH = 16;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    private final List<Column> columns;
+    private AnsiColor ansiColor = AnsiColor.AUTO;
+    private Charset charset = StandardCharsets.UTF_8;
+    private String separator = " ";
+    private String lineSeparator = "\n";
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private boolean parallel = true;
+    private int rowCount = -1;
+
+    
+    /**
+     * Constructor for ColumnarBatchRenderer
+     */
+    public ColumnarBatchRenderer() {
+        columns = new ArrayList<>();
+    }
+
+    
+    /**
+     * Set the ansi color setting: ON, OFF, AUTO
+     *
+     * @param ansiColor the enumeration
+     * @return the ColumnarBatchRenderer
+     */
+    public ColumnarBatchRenderer setAnsiColor(AnsiColor ansiColor) {
+        this.ansiColor = ansiColor;
+        return this;
+    }
+
+    
+    /**
+     * Set the charset of the output, the default is UTF-8.
+     *
+     * @param charset the charset
+     * @return the ColumnarBatchRenderer
+     * @throws IllegalArgumentException In case of an invalid charset
+     */
+    public ColumnarBatchRenderer setCharset(Charset charset) throws IllegalArgumentException {
+        if (charset == null) {
+            throw new IllegalArgumentException("Invalid charset!");
+        }
+
+        this.charset = charset;
+        return this;
+    }
+
+    
+    /**
+     * Set the separator between the cells of a row, the default is a space.
+     *
+     * @param separator the separator
+     * @return the ColumnarBatchRenderer
+     */
+    public ColumnarBatchRenderer setSeparator(String separator) {
+        this.separator = separator == null ? "" : separator;
+        return this;
+    }
+
+    
+    /**
+     * Set the line separator, the default is a new line.
+     *
+     * @param lineSeparator the line separator
+     * @return the ColumnarBatchRenderer
+     */
+    public ColumnarBatchRenderer setLineSeparator(String lineSeparator) {
+        this.lineSeparator = lineSeparator == null ? "" : lineSeparator;
+        return this;
+    }
+
+    
+    /**
+     * Set the number of rows which are rendered by one task.
+     *
+     * @param blockSize the number of rows
+     * @return the ColumnarBatchRenderer
+     * @throws IllegalArgumentException In case of an invalid block size
+     */
+    public ColumnarBatchRenderer setBlockSize(int blockSize) throws IllegalArgumentException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize + "!");
+        }
+
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    
+    /**
+     * Enable or disable the parallel rendering of the blocks.
+     *
+     * @param parallel true to render in parallel
+     * @return the ColumnarBatchRenderer
+     */
+    public ColumnarBatchRenderer setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    
+    /**
+     * Add a column of integers
+     *
+     * @param values the values
+     * @param style the style of the cells
+     * @return the ColumnarBatchRenderer
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public ColumnarBatchRenderer addColumn(int[] values, AnsiStyle style) throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException("Invalid column!");
+        }
+
+        return addColumn(values.length, (out, row) -> out.append(values[row]), style);
+    }
+
+    
+    /**
+     * Add a column of longs
+     *
+     * @param values the values
+     * @param style the style of the cells
+     * @return the ColumnarBatchRenderer
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public ColumnarBatchRenderer addColumn(long[] values, AnsiStyle style) throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException("Invalid column!");
+        }
+
+        return addColumn(values.length, (out, row) -> out.append(values[row]), style);
+    }
+
+    
+    /**
+     * Add a column of texts, null values are rendered as empty cells
+     *
+     * @param values the values, they must not contain escape sequences
+     * @param style the style of the cells
+     * @return the ColumnarBatchRenderer
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public ColumnarBatchRenderer addColumn(CharSequence[] values, AnsiStyle style) throws IllegalArgumentException {
+        if (values == null) {
+            throw new IllegalArgumentException("Invalid column!");
+        }
+
+        return addColumn(values.length, (out, row) -> {
+            if (values[row] != null) {
+                out.append(values[row]);
+            }
+        }, style);
+    }
+
+    
+    /**
+     * Add a column with a formatter
+     *
+     * @param size the number of rows
+     * @param formatter the formatter of the cells
+     * @param style the style of the cells
+     * @return the ColumnarBatchRenderer
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public ColumnarBatchRenderer addColumn(int size, CellFormatter formatter, AnsiStyle style) throws IllegalArgumentException {
+        if (formatter == null || size < 0) {
+            throw new IllegalArgumentException("Invalid column!");
+        }
+
+        if (rowCount >= 0 && size != rowCount) {
+            throw new IllegalArgumentException("Invalid column size " + size + ", expected " + rowCount + " rows!");
+        }
+
+        rowCount = size;
+        columns.add(new Column(formatter, style == null ? AnsiStyle.NONE : style));
+        return this;
+    }
+
+    
+    /**
+     * Render all rows
+     *
+     * @return the rendered rows
+     */
+    public String render() {
+        boolean enabled = ansiColor.isEnabled();
+        AnsiBuffer result = new AnsiBuffer(estimateCapacity(Math.max(0, rowCount), enabled));
+        renderBlock(result, 0, Math.max(0, rowCount), enabled);
+        return result.toString();
+    }
+
+    
+    /**
+     * Render all rows to a stream, the stream is not closed
+     *
+     * @param outputStream the stream
+     * @return the number of written bytes
+     * @throws IOException In case of an I/O error
+     */
+    public long render(OutputStream outputStream) throws IOException {
+        return render(Channels.newChannel(outputStream));
+    }
+
+    
+    /**
+     * Render all rows to a channel, the channel is not closed. The blocks are written with gathering writes in case
+     * the channel supports it.
+     *
+     * @param channel the channel
+     * @return the number of written bytes
+     * @throws IOException In case of an I/O error
+     * @throws IllegalArgumentException In case of an invalid channel
+     */
+    public long render(WritableByteChannel channel) throws IOException, IllegalArgumentException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Invalid channel!");
+        }
+
+        boolean enabled = ansiColor.isEnabled();
+        int rows = Math.max(0, rowCount);
+        int blockCount = (rows + blockSize - 1) / blockSize;
+        int batchSize = parallel && blockCount > 1 ? Math.max(1, ForkJoinPool.getCommonPoolParallelism() * 2) : 1;
+        long written = 0;
+        for (int batchStart = 0; batchStart < blockCount; batchStart += batchSize) {
+            int batchEnd = Math.min(blockCount, batchStart + batchSize);
+            ByteBuffer[] buffers = new ByteBuffer[batchEnd - batchStart];
+            if (buffers.length == 1) {
+                buffers[0] = encodeBlock(batchStart, enabled);
+            } else {
+                List<ForkJoinTask<ByteBuffer>> tasks = new ArrayList<>(buffers.length);
+                for (int block = batchStart; block < batchEnd; block++) {
+                    final int index = block;
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> encodeBlock(index, enabled)));
+                }
+
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = tasks.get(i).join();
+                }
+            }
+
+            written += write(channel, buffers);
+        }
+        return written;
+    }
+
+    
+    /**
+     * Render and encode a block
+     *
+     * @param block the block index
+     * @param enabled true if ansi is enabled
+     * @return the encoded block
+     */
+    private ByteBuffer encodeBlock(int block, boolean enabled) {
+        int start = block * blockSize;
+        int end = Math.min(rowCount, start + blockSize);
+        AnsiBuffer buffer = new AnsiBuffer(estimateCapacity(end - start, enabled));
+        renderBlock(buffer, start, end, enabled);
+        return buffer.encode(charset);
+    }
+
+    
+    /**
+     * Render a block of rows
+     *
+     * @param out the output
+     * @param start the first row (inclusive)
+     * @param end the last row (exclusive)
+     * @param enabled true if ansi is enabled
+     */
+    private void renderBlock(AnsiBuffer out, int start, int end, boolean enabled) {
+        int columnCount = columns.size();
+        for (int row = start; row < end; row++) {
+            for (int c = 0; c < columnCount; c++) {
+                if (c > 0) {
+                    out.append(separator);
+                }
+
+                Column column = columns.get(c);
+                if (enabled) {
+                    out.append(column.escapeSequence);
+                }
+
+                column.formatter.format(out, row);
+                if (enabled) {
+                    out.append(column.resetEscapeSequence);
+                }
+            }
+            out.append(lineSeparator);
+        }
+    }
+
+    
+    /**
+     * Estimate the capacity of a number of rendered rows, it is limited to the maximum array size
+     *
+     * @param rows the number of rows
+     * @param enabled true if ansi is enabled
+     * @return the estimated capacity
+     */
+    int estimateCapacity(int rows, boolean enabled) {
+        return (int) Math.min(MAX_CAPACITY, (long) rows * estimateRowLength(enabled));
+    }
+
+    
+    /**
+     * Estimate the length of a rendered row
+     *
+     * @param enabled true if ansi is enabled
+     * @return the estimated length
+     */
+    private int estimateRowLength(boolean enabled) {
+        int result = lineSeparator.length() + Math.max(0, columns.size() - 1) * separator.length();
+        for (Column column : columns) {
+            result += ESTIMATED_CELL_LENGTH;
+            if (enabled) {
+                result += column.escapeSequence.length() + column.resetEscapeSequence.length();
+            }
+        }
+        return result;
+    }
+
+    
+    /**
+     * Write the buffers in order
+     *
+     * @param channel the channel
+     * @param buffers the buffers
+     * @return the number of written bytes
+     * @throws IOException In case of an I/O error
+     */
+    private static long write(WritableByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        long result = 0;
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+            int offset = 0;
+            while (offset < buffers.length) {
+                result += gatheringChannel.write(buffers, offset, buffers.length - offset);
+                while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                    offset++;
+                }
+            }
+            return result;
+        }
+
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                result += channel.write(buffer);
+            }
+        }
+        return result;
+    }
+
+    
+    /**
+     * A column
+     */
+    private static final class Column {
+        private final CellFormatter formatter;
+        private final String escapeSequence;
+        private final String resetEscapeSequence;
+
+        
+        /**
+         * Constructor for Column
+         *
+         * @param formatter the formatter
+         * @param style the style
+         */
+        Column(CellFormatter formatter, AnsiStyle style) {
+            this.formatter = formatter;
+            this.escapeSequence = style.toAnsi(AnsiColor.ON);
+            this.resetEscapeSequence = style.toResetAnsi(AnsiColor.ON);
+        }
+    }
+}
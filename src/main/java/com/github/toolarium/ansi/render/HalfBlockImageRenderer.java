@@ -0,0 +1,286 @@
+/*
+ * HalfBlockImageRenderer.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.render;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.color.ColorReset;
+import com.github.toolarium.ansi.util.ColorUtil;
+import com.github.toolarium.ansi.util.TerminalCapabilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+
+/**
+ * Renders an ARGB raster as half-block characters: each character cell shows two pixels, the upper pixel as foreground
+ * and the lower pixel as background color. The cells are rendered through an {@link AnsiStringBuilder}, therefore the
+ * ansi color setting, the segment mode and the terminal capabilities of the builder apply. Bands of rows are rendered
+ * in parallel on the common {@link ForkJoinPool} in case the image is rendered into a string. Within a row only the
+ * changed colors are emitted, equal neighbour pixels don't produce any escape sequence.
+ *
+ * @author patrick
+ */
+public class HalfBlockImageRenderer {
+    private static final String UPPER_HALF_BLOCK = "▀";
+    private static final String LOWER_HALF_BLOCK = "▄";
+    private static final String SPACE = " ";
+    private static final String NEW_LINE = "\n";
+    private static final int TRANSPARENT = -1;
+    private static final int ALPHA_THRESHOLD = 0x80;
+    private static final int MIN_PARALLEL_CELLS = 4096;
+    private AnsiColor ansiColor = AnsiColor.AUTO;
+    private TerminalCapabilities terminalCapabilities;
+    private boolean color8;
+    private boolean parallel = true;
+
+    
+    /**
+     * Set the ansi color setting: ON, OFF, AUTO. It is used to render an image into a string, the image which is appended
+     * to a builder uses the setting of the builder.
+     *
+     * @param ansiColor the enumeration
+     * @return the HalfBlockImageRenderer
+     */
+    public HalfBlockImageRenderer setAnsiColor(AnsiColor ansiColor) {
+        this.ansiColor = ansiColor;
+        return this;
+    }
+
+    
+    /**
+     * Set the terminal capabilities, see {@link AnsiStringBuilder#setTerminalCapabilities(TerminalCapabilities)}. They are
+     * used to render an image into a string, the image which is appended to a builder uses the capabilities of the builder.
+     *
+     * @param terminalCapabilities the terminal capabilities or null
+     * @return the HalfBlockImageRenderer
+     */
+    public HalfBlockImageRenderer setTerminalCapabilities(TerminalCapabilities terminalCapabilities) {
+        this.terminalCapabilities = terminalCapabilities;
+        return this;
+    }
+
+    
+    /**
+     * Downsample the pixels to the nearest 8-bit colors instead of using 24-bit colors.
+     *
+     * @param color8 true to use 8-bit colors
+     * @return the HalfBlockImageRenderer
+     */
+    public HalfBlockImageRenderer setColor8(boolean color8) {
+        this.color8 = color8;
+        return this;
+    }
+
+    
+    /**
+     * Enable or disable the parallel rendering of row bands.
+     *
+     * @param parallel true to render in parallel
+     * @return the HalfBlockImageRenderer
+     */
+    public HalfBlockImageRenderer setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    
+    /**
+     * Render an image
+     *
+     * @param argb the pixels in row major order, pixels with an alpha value below 128 are transparent
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @return the rendered image, one line per two pixel rows
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public String render(int[] argb, int width, int height) throws IllegalArgumentException {
+        validate(argb, width, height);
+
+        boolean downsample = color8 || (terminalCapabilities != null && !terminalCapabilities.supportsTrueColor());
+        int cellRows = (height + 1) / 2;
+        int cellRowLength = width * (ansiColor.isEnabled() ? 20 : 1) + 8;
+        if (!parallel || cellRows < 2 || width * cellRows < MIN_PARALLEL_CELLS || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return renderBand(argb, width, height, 0, cellRows, cellRowLength, downsample);
+        }
+
+        int bandCount = Math.min(cellRows, ForkJoinPool.getCommonPoolParallelism() * 2);
+        int bandSize = (cellRows + bandCount - 1) / bandCount;
+        List<ForkJoinTask<String>> tasks = new ArrayList<>(bandCount);
+        for (int start = 0; start < cellRows; start += bandSize) {
+            final int bandStart = start;
+            final int bandEnd = Math.min(cellRows, start + bandSize);
+            tasks.add(ForkJoinPool.commonPool().submit(() -> renderBand(argb, width, height, bandStart, bandEnd, cellRowLength, downsample)));
+        }
+
+        StringBuilder result = null;
+        for (ForkJoinTask<String> task : tasks) {
+            String band = task.join();
+            if (result == null) {
+                result = new StringBuilder(band.length() * tasks.size() + 16);
+            }
+            result.append(band);
+        }
+
+        return result.toString();
+    }
+
+    
+    /**
+     * Render an image and append it to a builder. The cells are rendered sequentially through the builder: in case ansi
+     * is not enabled only the characters are appended, in segment mode the colors are recorded as segments and the colors
+     * are downsampled to the terminal capabilities of the builder.
+     *
+     * @param builder the builder
+     * @param argb the pixels in row major order, pixels with an alpha value below 128 are transparent
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @return the AnsiStringBuilder
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiStringBuilder render(AnsiStringBuilder builder, int[] argb, int width, int height) throws IllegalArgumentException {
+        validate(argb, width, height);
+        renderBand(builder, argb, width, height, 0, (height + 1) / 2, color8);
+        return builder;
+    }
+
+    
+    /**
+     * Validate the image
+     *
+     * @param argb the pixels
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    private void validate(int[] argb, int width, int height) throws IllegalArgumentException {
+        if (argb == null || width < 0 || height < 0 || argb.length < (long) width * height) {
+            throw new IllegalArgumentException("Invalid image size.");
+        }
+    }
+
+    
+    /**
+     * Render a band of cell rows into a string
+     *
+     * @param argb the pixels
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @param startCellRow the first cell row (inclusive)
+     * @param endCellRow the last cell row (exclusive)
+     * @param cellRowLength the estimated length of a cell row
+     * @param downsample true to use 8-bit colors
+     * @return the rendered band
+     */
+    private String renderBand(int[] argb, int width, int height, int startCellRow, int endCellRow, int cellRowLength, boolean downsample) {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 16, (long) (endCellRow - startCellRow) * cellRowLength + 1);
+        AnsiStringBuilder band = new AnsiStringBuilder(capacity).setAnsiColor(ansiColor).setTerminalCapabilities(terminalCapabilities);
+        renderBand(band, argb, width, height, startCellRow, endCellRow, downsample);
+        return band.toString(false);
+    }
+
+    
+    /**
+     * Render a band of cell rows
+     *
+     * @param out the output
+     * @param argb the pixels
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @param startCellRow the first cell row (inclusive)
+     * @param endCellRow the last cell row (exclusive)
+     * @param downsample true to use 8-bit colors
+     */
+    private void renderBand(AnsiStringBuilder out, int[] argb, int width, int height, int startCellRow, int endCellRow, boolean downsample) {
+        for (int cellRow = startCellRow; cellRow < endCellRow; cellRow++) {
+            int upperRow = cellRow * 2 * width;
+            int lowerRow = cellRow * 2 + 1 < height ? upperRow + width : -1;
+            int currentForeground = TRANSPARENT;
+            int currentBackground = TRANSPARENT;
+
+            for (int x = 0; x < width; x++) {
+                int upper = toColor(argb[upperRow + x], downsample);
+                int lower = lowerRow >= 0 ? toColor(argb[lowerRow + x], downsample) : TRANSPARENT;
+
+                // resolve the cell: character, foreground and background
+                String character = UPPER_HALF_BLOCK;
+                int foreground = upper;
+                int background = lower;
+                if (upper == lower) {
+                    character = SPACE;
+                    foreground = currentForeground;
+                } else if (upper == TRANSPARENT) {
+                    character = LOWER_HALF_BLOCK;
+                    foreground = lower;
+                    background = TRANSPARENT;
+                }
+
+                if (foreground != currentForeground) {
+                    appendColor(out, foreground, false, downsample);
+                    currentForeground = foreground;
+                }
+
+                if (background != currentBackground) {
+                    appendColor(out, background, true, downsample);
+                    currentBackground = background;
+                }
+
+                out.append(character);
+            }
+
+            if (currentForeground != TRANSPARENT || currentBackground != TRANSPARENT) {
+                out.reset();
+            }
+            out.append(NEW_LINE);
+        }
+    }
+
+    
+    /**
+     * Append a color change
+     *
+     * @param out the output
+     * @param color the 24-bit or 8-bit color or {@link #TRANSPARENT} for the default color
+     * @param background true for the background color
+     * @param downsample true if the color is an 8-bit color
+     */
+    private void appendColor(AnsiStringBuilder out, int color, boolean background, boolean downsample) {
+        if (color == TRANSPARENT) {
+            out.resetColor(background ? ColorReset.BG : ColorReset.FG);
+        } else if (downsample) {
+            if (background) {
+                out.backgroundColor8(color);
+            } else {
+                out.color8(color);
+            }
+        } else if (background) {
+            out.backgroundColor24(color >> 16, (color >> 8) & 0xff, color & 0xff);
+        } else {
+            out.color24(color >> 16, (color >> 8) & 0xff, color & 0xff);
+        }
+    }
+
+    
+    /**
+     * Convert a pixel into a color
+     *
+     * @param pixel the argb pixel
+     * @param downsample true to use 8-bit colors
+     * @return the rgb value, the 8-bit color or {@link #TRANSPARENT}
+     */
+    private int toColor(int pixel, boolean downsample) {
+        if ((pixel >>> 24) < ALPHA_THRESHOLD) {
+            return TRANSPARENT;
+        }
+
+        if (downsample) {
+            return ColorUtil.getInstance().toColor8(pixel & 0xffffff);
+        }
+
+        return pixel & 0xffffff;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * AnsiTheme.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.theme;
+
+import com.github.toolarium.ansi.AnsiStyle;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+
+/**
+ * An immutable theme: named semantic styles like {@code error} or {@code muted}. A theme can be defined in code or
+ * loaded from a properties file, the values are style specifications of {@link AnsiStyle#parse(String)}:
+ * <pre>
+ * error = bold red
+ * warn = yellow
+ * key = #5f87ff
+ * muted = dim
+ * </pre>
+ * The theme is activated in an {@link AnsiThemeRegistry} which resolves the styles once for the lookup by id.
+ *
+ * @author patrick
+ */
+public final class AnsiTheme {
+    /** The empty theme */
+    public static final AnsiTheme EMPTY = new AnsiTheme(Collections.emptyMap());
+    private final Map<String, AnsiStyle> styles;
+
+    
+    /**
+     * Constructor for AnsiTheme
+     *
+     * @param styles the styles
+     */
+    private AnsiTheme(Map<String, AnsiStyle> styles) {
+        this.styles = styles;
+    }
+
+    
+    /**
+     * Create a theme from properties, the keys are the names and the values the style specifications.
+     *
+     * @param properties the properties
+     * @return the theme
+     * @throws IllegalArgumentException In case of an invalid style specification
+     */
+    public static AnsiTheme of(Properties properties) throws IllegalArgumentException {
+        AnsiTheme result = EMPTY;
+        for (String name : properties.stringPropertyNames()) {
+            result = result.style(name, properties.getProperty(name));
+        }
+        return result;
+    }
+
+    
+    /**
+     * Load a theme from a properties file (UTF-8)
+     *
+     * @param path the path of the file
+     * @return the theme
+     * @throws IOException In case of an I/O error
+     * @throws IllegalArgumentException In case of an invalid style specification
+     */
+    public static AnsiTheme load(Path path) throws IOException, IllegalArgumentException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    
+    /**
+     * Load a theme in properties format
+     *
+     * @param reader the reader
+     * @return the theme
+     * @throws IOException In case of an I/O error
+     * @throws IllegalArgumentException In case of an invalid style specification
+     */
+    public static AnsiTheme load(Reader reader) throws IOException, IllegalArgumentException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        return of(properties);
+    }
+
+    
+    /**
+     * Get a theme with an additional or replaced style
+     *
+     * @param name the name
+     * @param style the style
+     * @return the theme
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiTheme style(String name, AnsiStyle style) throws IllegalArgumentException {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid style name!");
+        }
+
+        if (style == null) {
+            throw new IllegalArgumentException("Invalid style of " + name + "!");
+        }
+
+        Map<String, AnsiStyle> result = new LinkedHashMap<>(styles);
+        result.put(name.trim(), style);
+        return new AnsiTheme(Collections.unmodifiableMap(result));
+    }
+
+    
+    /**
+     * Get a theme with an additional or replaced style
+     *
+     * @param name the name
+     * @param specification the style specification, see {@link AnsiStyle#parse(String)}
+     * @return the theme
+     * @throws IllegalArgumentException In case of an invalid input
+     */
+    public AnsiTheme style(String name, String specification) throws IllegalArgumentException {
+        AnsiStyle style;
+        try {
+            style = AnsiStyle.parse(specification);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid style of " + name + ": " + e.getMessage(), e);
+        }
+        return style(name, style);
+    }
+
+    
+    /**
+     * Get a style
+     *
+     * @param name the name
+     * @return the style or null if it is not defined
+     */
+    public AnsiStyle getStyle(String name) {
+        return styles.get(name);
+    }
+
+    
+    /**
+     * Get the names of the styles
+     *
+     * @return the names
+     */
+    public Set<String> getNames() {
+        return styles.keySet();
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "AnsiTheme " + styles;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * AnsiThemeKey.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.theme;
+
+import com.github.toolarium.ansi.AnsiStyle;
+
+
+/**
+ * Handle of a named style of an {@link AnsiThemeRegistry}. The handle has a dense id, the lookup of the style of the
+ * active theme is an array access. Handles are typically kept in constants:
+ * <pre>
+ * static final AnsiThemeKey ERROR = AnsiThemeRegistry.getInstance().key("error");
+ * builder.style(ERROR.getStyle(), "failed");
+ * </pre>
+ *
+ * @author patrick
+ */
+public final class AnsiThemeKey {
+    private final AnsiThemeRegistry registry;
+    private final String name;
+    private final int id;
+
+    
+    /**
+     * Constructor for AnsiThemeKey
+     *
+     * @param registry the registry
+     * @param name the name
+     * @param id the id
+     */
+    AnsiThemeKey(AnsiThemeRegistry registry, String name, int id) {
+        this.registry = registry;
+        this.name = name;
+        this.id = id;
+    }
+
+    
+    /**
+     * Get the name
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    
+    /**
+     * Get the id
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
+    }
+
+    
+    /**
+     * Get the style of the active theme
+     *
+     * @return the style, {@link AnsiStyle#NONE} if it is not defined
+     */
+    public AnsiStyle getStyle() {
+        return registry.getStyle(this);
+    }
+
+    
+    /**
+     * Get the registry
+     *
+     * @return the registry
+     */
+    AnsiThemeRegistry getRegistry() {
+        return registry;
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "AnsiThemeKey [" + name + "=" + id + "]";
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * AnsiThemeRegistry.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.theme;
+
+import com.github.toolarium.ansi.AnsiStyle;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Registry of the named styles and the active {@link AnsiTheme}. The names are registered as {@link AnsiThemeKey} with
+ * a dense id; the styles of the active theme are resolved once per theme change into an array, which is published by
+ * an atomic reference. The lookup of a style is lock-free and the theme can be replaced at runtime.
+ * <pre>
+ * static final AnsiThemeKey ERROR = AnsiThemeRegistry.getInstance().key("error");
+ *
+ * AnsiThemeRegistry.getInstance().load(Paths.get("conf/theme.properties"));
+ * builder.style(ERROR.getStyle(), "failed");
+ * </pre>
+ *
+ * @author patrick
+ */
+public class AnsiThemeRegistry {
+    private final Map<String, AnsiThemeKey> keys;
+    private final List<AnsiThemeKey> keyList;
+    private final AtomicReference<ResolvedTheme> resolvedTheme;
+
+    
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final AnsiThemeRegistry INSTANCE = new AnsiThemeRegistry();
+    }
+
+    
+    /**
+     * Constructor for AnsiThemeRegistry
+     */
+    public AnsiThemeRegistry() {
+        keys = new HashMap<>();
+        keyList = new ArrayList<>();
+        resolvedTheme = new AtomicReference<>(new ResolvedTheme(AnsiTheme.EMPTY, new AnsiStyle[0]));
+    }
+
+    
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static AnsiThemeRegistry getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    
+    /**
+     * Get the key of a named style, it is registered on the first call
+     *
+     * @param name the name
+     * @return the key
+     * @throws IllegalArgumentException In case of an invalid name
+     */
+    public synchronized AnsiThemeKey key(String name) throws IllegalArgumentException {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid style name!");
+        }
+
+        String trimmedName = name.trim();
+        AnsiThemeKey key = keys.get(trimmedName);
+        if (key == null) {
+            key = new AnsiThemeKey(this, trimmedName, keyList.size());
+            keys.put(trimmedName, key);
+            keyList.add(key);
+            resolve(resolvedTheme.get().theme);
+        }
+        return key;
+    }
+
+    
+    /**
+     * Activate a theme, the styles are resolved once for all registered keys
+     *
+     * @param theme the theme
+     * @return the AnsiThemeRegistry
+     * @throws IllegalArgumentException In case of an invalid theme
+     */
+    public synchronized AnsiThemeRegistry setTheme(AnsiTheme theme) throws IllegalArgumentException {
+        if (theme == null) {
+            throw new IllegalArgumentException("Invalid theme!");
+        }
+
+        resolve(theme);
+        return this;
+    }
+
+    
+    /**
+     * Load a theme from a properties file and activate it
+     *
+     * @param path the path of the file
+     * @return the AnsiThemeRegistry
+     * @throws IOException In case of an I/O error
+     * @throws IllegalArgumentException In case of an invalid style specification
+     */
+    public AnsiThemeRegistry load(Path path) throws IOException, IllegalArgumentException {
+        return setTheme(AnsiTheme.load(path));
+    }
+
+    
+    /**
+     * Get the active theme
+     *
+     * @return the active theme
+     */
+    public AnsiTheme getTheme() {
+        return resolvedTheme.get().theme;
+    }
+
+    
+    /**
+     * Get the style of the active theme
+     *
+     * @param key the key
+     * @return the style, {@link AnsiStyle#NONE} if it is not defined
+     * @throws IllegalArgumentException In case the key belongs to another registry
+     */
+    public AnsiStyle getStyle(AnsiThemeKey key) throws IllegalArgumentException {
+        if (key.getRegistry() != this) {
+            throw new IllegalArgumentException("The key " + key.getName() + " belongs to another registry!");
+        }
+
+        return resolvedTheme.get().styles[key.getId()];
+    }
+
+    
+    /**
+     * Get the style of the active theme
+     *
+     * @param name the name
+     * @return the style, {@link AnsiStyle#NONE} if it is not defined
+     */
+    public AnsiStyle getStyle(String name) {
+        AnsiStyle style = resolvedTheme.get().theme.getStyle(name);
+        if (style == null) {
+            return AnsiStyle.NONE;
+        }
+        return style;
+    }
+
+    
+    /**
+     * Resolve the styles of a theme for all registered keys and publish them
+     *
+     * @param theme the theme
+     */
+    private void resolve(AnsiTheme theme) {
+        AnsiStyle[] styles = new AnsiStyle[keyList.size()];
+        for (int i = 0; i < styles.length; i++) {
+            AnsiStyle style = theme.getStyle(keyList.get(i).getName());
+            styles[i] = style != null ? style : AnsiStyle.NONE;
+        }
+        resolvedTheme.set(new ResolvedTheme(theme, styles));
+    }
+
+    
+    /**
+     * The active theme with the styles resolved by key id
+     */
+    private static final class ResolvedTheme {
+        private final AnsiTheme theme;
+        private final AnsiStyle[] styles;
+
+        
+        /**
+         * Constructor for ResolvedTheme
+         *
+         * @param theme the theme
+         * @param styles the styles by key id
+         */
+        ResolvedTheme(AnsiTheme theme, AnsiStyle[] styles) {
+            this.theme = theme;
+            this.styles = styles;
+        }
+    }
+}
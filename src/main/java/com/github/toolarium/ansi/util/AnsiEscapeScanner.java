@@ -0,0 +1,382 @@
+/*
+ * AnsiEscapeScanner.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import com.github.toolarium.ansi.metrics.AnsiMetrics;
+import java.nio.ByteBuffer;
+
+
+/**
+ * Incremental scanner which separates ANSI escape sequences from the visible text. The scanner keeps its state
+ * between the calls, therefore an escape sequence can be split over several chunks of a stream. Supported are control
+ * sequences ({@code ESC [ parameters intermediates final}), command strings such as OSC ({@code ESC ] text BEL} or
+ * {@code ESC ] text ESC \}) and two character escape sequences. An invalid character inside a control sequence and
+ * a control character inside a command string terminate the sequence and are handled as text, therefore the scanner is
+ * always back in the text state after a new line.
+ *
+ * @author patrick
+ */
+public final class AnsiEscapeScanner {
+    /** The escape character */
+    public static final char ESCAPE = '\u001B';
+
+    private static final int TEXT = 0;
+    private static final int ESCAPE_STATE = 1;
+    private static final int CONTROL_SEQUENCE = 2;
+    private static final int INTERMEDIATE = 3;
+    private static final int COMMAND_STRING = 4;
+    private static final char BELL = '\u0007';
+    private int state;
+
+    
+    /**
+     * Constructor for AnsiEscapeScanner
+     */
+    public AnsiEscapeScanner() {
+        this.state = TEXT;
+    }
+
+    
+    /**
+     * Strip all escape sequences of a text in one pass
+     *
+     * @param text the text
+     * @return the text without escape sequences
+     */
+    public static String strip(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+
+        int length = text.length();
+        int first = indexOf(text, 0, length);
+        if (first < 0) {
+            if (AnsiMetrics.ENABLED) {
+                AnsiMetrics.getInstance().recordStrip(0);
+            }
+            return text.toString();
+        }
+
+        StringBuilder result = new StringBuilder(length);
+        result.append(text, 0, first);
+        AnsiEscapeScanner scanner = new AnsiEscapeScanner();
+        for (int i = first; i < length; i++) {
+            char c = text.charAt(i);
+            if (scanner.accept(c)) {
+                result.append(c);
+            }
+        }
+
+        if (AnsiMetrics.ENABLED) {
+            AnsiMetrics.getInstance().recordStrip(length - result.length());
+        }
+        return result.toString();
+    }
+
+    
+    /**
+     * Get the width of the visible text in terminal columns: escape sequences and command strings like hyperlinks have
+     * no width, wide east asian characters and emojis count two columns, combining marks and control characters none.
+     *
+     * @param text the text
+     * @return the width
+     */
+    public static int width(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+
+        AnsiEscapeScanner scanner = null;
+        int length = text.length();
+        int result = 0;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i++);
+            if (c == ESCAPE && scanner == null) {
+                scanner = new AnsiEscapeScanner();
+            }
+
+            if (scanner != null && !scanner.accept(c)) {
+                continue;
+            }
+
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(text.charAt(i))) {
+                codePoint = Character.toCodePoint(c, text.charAt(i++));
+            }
+            result += width(codePoint);
+        }
+        return result;
+    }
+
+    
+    /**
+     * Get the width of a visible character in terminal columns
+     *
+     * @param codePoint the code point
+     * @return the width: 0, 1 or 2
+     */
+    public static int width(int codePoint) {
+        if (codePoint < 0x300) {
+            return codePoint < ' ' || (codePoint >= 0x7f && codePoint < 0xa0) ? 0 : 1;
+        }
+
+        int type = Character.getType(codePoint);
+        if (type == Character.NON_SPACING_MARK || type == Character.ENCLOSING_MARK || type == Character.FORMAT) {
+            return 0;
+        }
+
+        if ((codePoint >= 0x1100 && codePoint <= 0x115f)
+                || (codePoint >= 0x2e80 && codePoint <= 0xa4cf && codePoint != 0x303f)
+                || (codePoint >= 0xac00 && codePoint <= 0xd7a3)
+                || (codePoint >= 0xf900 && codePoint <= 0xfaff)
+                || (codePoint >= 0xfe30 && codePoint <= 0xfe4f)
+                || (codePoint >= 0xff00 && codePoint <= 0xff60)
+                || (codePoint >= 0xffe0 && codePoint <= 0xffe6)
+                || (codePoint >= 0x1f300 && codePoint <= 0x1f64f)
+                || (codePoint >= 0x1f900 && codePoint <= 0x1f9ff)
+                || (codePoint >= 0x20000 && codePoint <= 0x3fffd)) {
+            return 2;
+        }
+        return 1;
+    }
+
+    
+    /**
+     * Get the index of the next escape character
+     *
+     * @param text the text
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return the index or -1
+     */
+    public static int indexOf(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == ESCAPE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    
+    /**
+     * Get the index of the next escape character
+     *
+     * @param buffer the buffer
+     * @param start the start index
+     * @param end the end index (exclusive)
+     * @return the index or -1
+     */
+    public static int indexOf(char[] buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == ESCAPE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    
+    /**
+     * Remove the escape sequences of a range of characters in place, the visible characters are moved to the start of
+     * the range. The state is kept for the next call.
+     *
+     * @param buffer the buffer
+     * @param offset the offset
+     * @param length the number of characters
+     * @return the number of visible characters
+     */
+    public int filter(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        int write = offset;
+        int read = offset;
+        while (read < end) {
+            if (state == TEXT) {
+                int escape = indexOf(buffer, read, end);
+                int textEnd = escape < 0 ? end : escape;
+                if (write != read) {
+                    System.arraycopy(buffer, read, buffer, write, textEnd - read);
+                }
+                write += textEnd - read;
+                read = textEnd;
+                if (read == end) {
+                    break;
+                }
+            }
+
+            char c = buffer[read++];
+            if (accept(c)) {
+                buffer[write++] = c;
+            }
+        }
+        return write - offset;
+    }
+
+    
+    /**
+     * Remove the escape sequences of a range of bytes in place, the visible bytes are moved to the start of the range.
+     * The bytes are processed as single characters, which is correct for ASCII compatible encodings like UTF-8. The
+     * state is kept for the next call.
+     *
+     * @param buffer the buffer
+     * @param offset the offset
+     * @param length the number of bytes
+     * @return the number of visible bytes
+     */
+    public int filter(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        int write = offset;
+        int read = offset;
+        while (read < end) {
+            if (state == TEXT) {
+                int textEnd = read;
+                while (textEnd < end && buffer[textEnd] != ESCAPE) {
+                    textEnd++;
+                }
+
+                if (write != read) {
+                    System.arraycopy(buffer, read, buffer, write, textEnd - read);
+                }
+                write += textEnd - read;
+                read = textEnd;
+                if (read == end) {
+                    break;
+                }
+            }
+
+            byte b = buffer[read++];
+            if (accept((char) (b & 0xFF))) {
+                buffer[write++] = b;
+            }
+        }
+        return write - offset;
+    }
+
+    
+    /**
+     * Copy the visible bytes of a buffer into an array, e.g. directly from a memory-mapped file. The bytes from the
+     * position to the limit are read and the position is moved to the limit. The bytes are processed as single
+     * characters, which is correct for ASCII compatible encodings like UTF-8. The state is kept for the next call.
+     *
+     * @param source the source buffer
+     * @param target the target array, it must have room for all remaining bytes of the source
+     * @param offset the offset in the target array
+     * @return the number of visible bytes
+     */
+    public int filter(ByteBuffer source, byte[] target, int offset) {
+        int end = source.limit();
+        int write = offset;
+        int read = source.position();
+        while (read < end) {
+            if (state == TEXT) {
+                int textEnd = read;
+                while (textEnd < end && source.get(textEnd) != ESCAPE) {
+                    textEnd++;
+                }
+
+                source.position(read);
+                source.get(target, write, textEnd - read);
+                write += textEnd - read;
+                read = textEnd;
+                if (read == end) {
+                    break;
+                }
+            }
+
+            byte b = source.get(read++);
+            if (accept((char) (b & 0xFF))) {
+                target[write++] = b;
+            }
+        }
+
+        source.position(end);
+        return write - offset;
+    }
+
+    
+    /**
+     * Process the next character
+     *
+     * @param c the character
+     * @return true if the character is visible text, false if it is part of an escape sequence
+     */
+    public boolean accept(char c) {
+        switch (state) {
+            case ESCAPE_STATE:
+                if (c == '[') {
+                    state = CONTROL_SEQUENCE;
+                } else if (c == ']' || c == 'P' || c == 'X' || c == '^' || c == '_') {
+                    state = COMMAND_STRING;
+                } else if (c == ESCAPE) {
+                    state = ESCAPE_STATE;
+                } else {
+                    state = TEXT;
+                    if (c < '@' || c > '~') {
+                        // not an escape sequence, only the escape character is removed
+                        return true;
+                    }
+                }
+                return false;
+
+            case CONTROL_SEQUENCE:
+            case INTERMEDIATE:
+                if (state == CONTROL_SEQUENCE && c >= '0' && c <= '?') {
+                    return false;
+                }
+
+                if (c >= ' ' && c <= '/') {
+                    state = INTERMEDIATE;
+                    return false;
+                }
+
+                if (c >= '@' && c <= '~') {
+                    state = TEXT;
+                    return false;
+                }
+
+                state = TEXT;
+                return accept(c);
+
+            case COMMAND_STRING:
+                if (c == ESCAPE) {
+                    // the string terminator ESC \ is handled as two character escape sequence
+                    state = ESCAPE_STATE;
+                } else if (c == BELL) {
+                    state = TEXT;
+                } else if (c < ' ') {
+                    state = TEXT;
+                    return true;
+                }
+                return false;
+
+            default:
+                if (c == ESCAPE) {
+                    state = ESCAPE_STATE;
+                    return false;
+                }
+                return true;
+        }
+    }
+
+    
+    /**
+     * Check if the scanner is inside an escape sequence
+     *
+     * @return true if the last character was part of an unterminated escape sequence
+     */
+    public boolean isInEscapeSequence() {
+        return state != TEXT;
+    }
+
+    
+    /**
+     * Reset the scanner
+     */
+    public void reset() {
+        state = TEXT;
+    }
+}
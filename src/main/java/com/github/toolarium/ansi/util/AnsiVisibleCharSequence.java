@@ -0,0 +1,261 @@
+/*
+ * AnsiVisibleCharSequence.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import java.util.Arrays;
+
+
+/**
+ * Read only view of the visible characters of a styled text, the escape sequences are skipped without copying the text.
+ * The view is backed by an index of the runs of visible characters which is built on the first access: the index needs
+ * two integers per run, e.g. per styled word, and not per character. Sub sequences share the index.
+ * <pre>
+ * AnsiVisibleCharSequence visible = new AnsiVisibleCharSequence(styledText);
+ * Matcher matcher = pattern.matcher(visible);
+ * if (matcher.find()) {
+ *     int rawStart = visible.getRawIndex(matcher.start());
+ * }
+ * </pre>
+ * The view expects an unchanged underlying text.
+ *
+ * @author patrick
+ */
+public final class AnsiVisibleCharSequence implements CharSequence {
+    private final CharSequence raw;
+    private final int offset;
+    private final int length;
+    private volatile RunIndex runIndex;
+    private int lastRun;
+
+    
+    /**
+     * Constructor for AnsiVisibleCharSequence
+     *
+     * @param raw the styled text
+     * @throws IllegalArgumentException In case of an invalid text
+     */
+    public AnsiVisibleCharSequence(CharSequence raw) throws IllegalArgumentException {
+        if (raw == null) {
+            throw new IllegalArgumentException("Invalid text!");
+        }
+
+        this.raw = raw;
+        this.offset = 0;
+        this.length = -1;
+    }
+
+    
+    /**
+     * Constructor for AnsiVisibleCharSequence
+     *
+     * @param parent the parent view
+     * @param offset the visible offset
+     * @param length the visible length
+     */
+    private AnsiVisibleCharSequence(AnsiVisibleCharSequence parent, int offset, int length) {
+        this.raw = parent.raw;
+        this.runIndex = parent.getRunIndex();
+        this.offset = parent.offset + offset;
+        this.length = length;
+    }
+
+    
+    /**
+     * @see java.lang.CharSequence#length()
+     */
+    @Override
+    public int length() {
+        if (length >= 0) {
+            return length;
+        }
+        return getRunIndex().visibleLength;
+    }
+
+    
+    /**
+     * @see java.lang.CharSequence#charAt(int)
+     */
+    @Override
+    public char charAt(int index) {
+        return raw.charAt(getRawIndex(index));
+    }
+
+    
+    /**
+     * @see java.lang.CharSequence#subSequence(int, int)
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length()) {
+            throw new IndexOutOfBoundsException("Invalid range: " + start + ", " + end + "!");
+        }
+        return new AnsiVisibleCharSequence(this, start, end - start);
+    }
+
+    
+    /**
+     * Get the index in the styled text of a visible character
+     *
+     * @param index the index of the visible character
+     * @return the index in the styled text
+     * @throws IndexOutOfBoundsException In case of an invalid index
+     */
+    public int getRawIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Invalid index: " + index + "!");
+        }
+
+        RunIndex runs = getRunIndex();
+        int visibleIndex = offset + index;
+        int run = lastRun;
+        if (run >= runs.runCount || visibleIndex < runs.visibleStart[run] || (run + 1 < runs.runCount && visibleIndex >= runs.visibleStart[run + 1])) {
+            run = runs.findRun(visibleIndex);
+            lastRun = run;
+        }
+        return runs.rawStart[run] + visibleIndex - runs.visibleStart[run];
+    }
+
+    
+    /**
+     * Get the number of runs of visible characters of the styled text
+     *
+     * @return the number of runs
+     */
+    public int getRunCount() {
+        return getRunIndex().runCount;
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        int visibleLength = length();
+        if (visibleLength == 0) {
+            return "";
+        }
+
+        RunIndex runs = getRunIndex();
+        StringBuilder result = new StringBuilder(visibleLength);
+        int visibleIndex = offset;
+        int end = offset + visibleLength;
+        int run = runs.findRun(visibleIndex);
+        while (visibleIndex < end) {
+            int runEnd = Math.min(end, run + 1 < runs.runCount ? runs.visibleStart[run + 1] : runs.visibleLength);
+            int rawIndex = runs.rawStart[run] + visibleIndex - runs.visibleStart[run];
+            result.append(raw, rawIndex, rawIndex + runEnd - visibleIndex);
+            visibleIndex = runEnd;
+            run++;
+        }
+        return result.toString();
+    }
+
+    
+    /**
+     * Get the run index, it is built on the first access
+     *
+     * @return the run index
+     */
+    private RunIndex getRunIndex() {
+        RunIndex result = runIndex;
+        if (result == null) {
+            result = new RunIndex(raw);
+            runIndex = result;
+        }
+        return result;
+    }
+
+    
+    /**
+     * The index of the runs of visible characters
+     */
+    private static final class RunIndex {
+        private int[] visibleStart;
+        private int[] rawStart;
+        private int runCount;
+        private int visibleLength;
+
+        
+        /**
+         * Constructor for RunIndex
+         *
+         * @param raw the styled text
+         */
+        RunIndex(CharSequence raw) {
+            visibleStart = new int[8];
+            rawStart = new int[8];
+
+            AnsiEscapeScanner scanner = new AnsiEscapeScanner();
+            int rawLength = raw.length();
+            boolean inRun = false;
+            int i = 0;
+            while (i < rawLength) {
+                if (!scanner.isInEscapeSequence()) {
+                    int escape = AnsiEscapeScanner.indexOf(raw, i, rawLength);
+                    int textEnd = escape < 0 ? rawLength : escape;
+                    if (textEnd > i) {
+                        if (!inRun) {
+                            addRun(i);
+                            inRun = true;
+                        }
+                        visibleLength += textEnd - i;
+                        i = textEnd;
+                    }
+
+                    if (i == rawLength) {
+                        break;
+                    }
+                }
+
+                if (scanner.accept(raw.charAt(i))) {
+                    if (!inRun) {
+                        addRun(i);
+                        inRun = true;
+                    }
+                    visibleLength++;
+                } else {
+                    inRun = false;
+                }
+                i++;
+            }
+
+            if (runCount < visibleStart.length) {
+                visibleStart = Arrays.copyOf(visibleStart, runCount);
+                rawStart = Arrays.copyOf(rawStart, runCount);
+            }
+        }
+
+        
+        /**
+         * Add a run
+         *
+         * @param rawIndex the index in the styled text where the run starts
+         */
+        private void addRun(int rawIndex) {
+            if (runCount == visibleStart.length) {
+                visibleStart = Arrays.copyOf(visibleStart, runCount * 2);
+                rawStart = Arrays.copyOf(rawStart, runCount * 2);
+            }
+
+            visibleStart[runCount] = visibleLength;
+            rawStart[runCount] = rawIndex;
+            runCount++;
+        }
+
+        
+        /**
+         * Find the run of a visible character
+         *
+         * @param visibleIndex the visible index
+         * @return the run
+         */
+        int findRun(int visibleIndex) {
+            int index = Arrays.binarySearch(visibleStart, 0, runCount, visibleIndex);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * ColorUtil.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+
+/**
+ * Color util class.
+ *
+ * @author patrick
+ */
+public final class ColorUtil {
+    private static final int[] CUBE_LEVELS = {0, 95, 135, 175, 215, 255};
+
+    
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final ColorUtil INSTANCE = new ColorUtil();
+    }
+
+    
+    /**
+     * Constructor
+     */
+    private ColorUtil() {
+        // NOP
+    }
+
+    
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static ColorUtil getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    
+    /**
+     * Get the nearest 8-bit color of the 6x6x6 color cube or the gray scale ramp of a 24-bit color.
+     *
+     * @param r the r-value
+     * @param g the g-value
+     * @param b the b-value
+     * @return the 8-bit color in the range of 16-255
+     */
+    public int toColor8(int r, int g, int b) {
+        int ri = toCubeIndex(r);
+        int gi = toCubeIndex(g);
+        int bi = toCubeIndex(b);
+        int cubeDistance = distance(r, g, b, CUBE_LEVELS[ri], CUBE_LEVELS[gi], CUBE_LEVELS[bi]);
+
+        int average = (r + g + b) / 3;
+        int grayIndex = average > 238 ? 23 : Math.max(0, (average - 3) / 10);
+        int gray = 8 + grayIndex * 10;
+        int grayDistance = distance(r, g, b, gray, gray, gray);
+
+        if (grayDistance < cubeDistance) {
+            return 232 + grayIndex;
+        }
+
+        return 16 + 36 * ri + 6 * gi + bi;
+    }
+
+    
+    /**
+     * Get the nearest 8-bit color of a 24-bit color.
+     *
+     * @param rgb the rgb value, e.g. 0xff8000
+     * @return the 8-bit color in the range of 16-255
+     */
+    public int toColor8(int rgb) {
+        return toColor8((rgb >> 16) & 0xff, (rgb >> 8) & 0xff, rgb & 0xff);
+    }
+
+    
+    /**
+     * Get the index of the nearest level of the color cube
+     *
+     * @param value the value
+     * @return the index
+     */
+    private int toCubeIndex(int value) {
+        if (value < 48) {
+            return 0;
+        }
+
+        if (value < 115) {
+            return 1;
+        }
+
+        return (value - 35) / 40;
+    }
+
+    
+    /**
+     * Get the squared distance of two colors
+     *
+     * @param r1 the r-value of the first color
+     * @param g1 the g-value of the first color
+     * @param b1 the b-value of the first color
+     * @param r2 the r-value of the second color
+     * @param g2 the g-value of the second color
+     * @param b2 the b-value of the second color
+     * @return the squared distance
+     */
+    private int distance(int r1, int g1, int b1, int r2, int g2, int b2) {
+        int dr = r1 - r2;
+        int dg = g1 - g2;
+        int db = b1 - b2;
+        return dr * dr + dg * dg + db * db;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * TerminalCapabilities.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The capabilities of a terminal as they are defined in the compiled terminfo database, see {@link TerminfoReader}.
+ * The standard capabilities are accessible by their short terminfo name (e.g. {@code colors}, {@code sitm}), the
+ * extended (user defined) capabilities by their name as well (e.g. {@code smxx}, {@code Tc}).
+ *
+ * @author patrick
+ */
+public final class TerminalCapabilities {
+    /** Number of colors capability */
+    public static final String MAX_COLORS = "colors";
+
+    /** Enter italics mode capability */
+    public static final String ENTER_ITALICS_MODE = "sitm";
+
+    /** Exit italics mode capability */
+    public static final String EXIT_ITALICS_MODE = "ritm";
+
+    /** Enter strike-through mode capability (extended) */
+    public static final String ENTER_STRIKE_THROUGH_MODE = "smxx";
+
+    /** Exit strike-through mode capability (extended) */
+    public static final String EXIT_STRIKE_THROUGH_MODE = "rmxx";
+
+    /** True color capability (extended, tmux convention) */
+    public static final String TRUE_COLOR = "Tc";
+
+    /** Direct color capability (extended, ncurses convention) */
+    public static final String DIRECT_COLOR = "RGB";
+
+    private static final int TRUE_COLOR_NUMBER = 1 << 24;
+    private final List<String> names;
+    private final Map<String, Boolean> booleans;
+    private final Map<String, Integer> numbers;
+    private final Map<String, String> strings;
+
+    
+    /**
+     * Constructor for TerminalCapabilities
+     *
+     * @param names the terminal names, the first is the primary name
+     * @param booleans the boolean capabilities
+     * @param numbers the numeric capabilities
+     * @param strings the string capabilities
+     */
+    TerminalCapabilities(List<String> names, Map<String, Boolean> booleans, Map<String, Integer> numbers, Map<String, String> strings) {
+        this.names = Collections.unmodifiableList(names);
+        this.booleans = Collections.unmodifiableMap(booleans);
+        this.numbers = Collections.unmodifiableMap(numbers);
+        this.strings = Collections.unmodifiableMap(strings);
+    }
+
+    
+    /**
+     * Get the primary terminal name
+     *
+     * @return the primary terminal name
+     */
+    public String getName() {
+        if (names.isEmpty()) {
+            return null;
+        }
+
+        return names.get(0);
+    }
+
+    
+    /**
+     * Get all terminal names (the primary name, the aliases and the description)
+     *
+     * @return the terminal names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    
+    /**
+     * Check if a boolean capability is set
+     *
+     * @param name the capability name
+     * @return true if the capability is set
+     */
+    public boolean hasFlag(String name) {
+        return Boolean.TRUE.equals(booleans.get(name));
+    }
+
+    
+    /**
+     * Get a numeric capability
+     *
+     * @param name the capability name
+     * @return the value or -1 if the capability is absent
+     */
+    public int getNumber(String name) {
+        Integer value = numbers.get(name);
+        if (value == null) {
+            return -1;
+        }
+
+        return value;
+    }
+
+    
+    /**
+     * Get a string capability
+     *
+     * @param name the capability name
+     * @return the value or null if the capability is absent
+     */
+    public String getString(String name) {
+        return strings.get(name);
+    }
+
+    
+    /**
+     * Get the maximum number of colors
+     *
+     * @return the maximum number of colors or -1 if the terminal has no color support
+     */
+    public int getMaxColors() {
+        return getNumber(MAX_COLORS);
+    }
+
+    
+    /**
+     * Check if the terminal supports italics
+     *
+     * @return true if the terminal supports italics
+     */
+    public boolean supportsItalic() {
+        return getString(ENTER_ITALICS_MODE) != null;
+    }
+
+    
+    /**
+     * Check if the terminal supports strike-through
+     *
+     * @return true if the terminal supports strike-through
+     */
+    public boolean supportsStrikeThrough() {
+        return getString(ENTER_STRIKE_THROUGH_MODE) != null;
+    }
+
+    
+    /**
+     * Check if the terminal supports 8-bit (256) colors
+     *
+     * @return true if the terminal supports 8-bit colors
+     */
+    public boolean supports8BitColors() {
+        return getMaxColors() >= 256;
+    }
+
+    
+    /**
+     * Check if the terminal supports 24-bit colors
+     *
+     * @return true if the terminal supports 24-bit colors
+     */
+    public boolean supportsTrueColor() {
+        return hasFlag(TRUE_COLOR) || hasFlag(DIRECT_COLOR) || getMaxColors() >= TRUE_COLOR_NUMBER;
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "TerminalCapabilities [name=" + getName() + ", colors=" + getMaxColors() + ", italic=" + supportsItalic()
+               + ", strikeThrough=" + supportsStrikeThrough() + ", trueColor=" + supportsTrueColor() + "]";
+    }
+}
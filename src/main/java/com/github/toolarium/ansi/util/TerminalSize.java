@@ -0,0 +1,88 @@
+/*
+ * TerminalSize.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+
+/**
+ * The size of a terminal in columns and lines.
+ *
+ * @author patrick
+ */
+public final class TerminalSize {
+    /** The default terminal size of 80 columns and 24 lines */
+    public static final TerminalSize DEFAULT = new TerminalSize(80, 24);
+
+    private final int columns;
+    private final int lines;
+
+    
+    /**
+     * Constructor for TerminalSize
+     *
+     * @param columns the number of columns
+     * @param lines the number of lines
+     */
+    public TerminalSize(int columns, int lines) {
+        this.columns = columns;
+        this.lines = lines;
+    }
+
+    
+    /**
+     * Get the number of columns
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    
+    /**
+     * Get the number of lines
+     *
+     * @return the number of lines
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return 31 * columns + lines;
+    }
+
+    
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+
+        TerminalSize other = (TerminalSize) obj;
+        return columns == other.columns && lines == other.lines;
+    }
+
+    
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return columns + "x" + lines;
+    }
+}
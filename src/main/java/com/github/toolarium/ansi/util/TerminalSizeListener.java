@@ -0,0 +1,24 @@
+/*
+ * TerminalSizeListener.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+
+/**
+ * Listener which is notified when the detected terminal size changes, see {@link TerminalSizeUtil}.
+ *
+ * @author patrick
+ */
+@FunctionalInterface
+public interface TerminalSizeListener {
+
+    /**
+     * The terminal size has changed
+     *
+     * @param oldSize the previous terminal size
+     * @param newSize the new terminal size
+     */
+    void terminalSizeChanged(TerminalSize oldSize, TerminalSize newSize);
+}
@@ -0,0 +1,428 @@
+/*
+ * TerminalSizeUtil.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Terminal size util class. The size is detected by the environment variables {@code COLUMNS} and {@code LINES}, the
+ * {@code stty size} of the controlling terminal or an opt-in cursor position probe. If nothing can be detected the
+ * {@link TerminalSize#DEFAULT} is used. The detected size is cached for the time to live, reading the cached size
+ * neither blocks nor forks a process. An expired size is refreshed in the background while the previous size is
+ * returned. In case stty fails, e.g. without a controlling terminal, it is retried with an increasing delay.
+ *
+ * @author patrick
+ */
+public final class TerminalSizeUtil {
+    private static final Logger LOG = LoggerFactory.getLogger(TerminalSizeUtil.class);
+    private static final String TTY_DEVICE = "/dev/tty";
+    private static final String CURSOR_POSITION_PROBE = "\u001B7\u001B[9999;9999H\u001B[6n\u001B8";
+    private static final long PROCESS_TIMEOUT_MILLIS = 1000;
+    private static final long PROBE_TIMEOUT_MILLIS = 300;
+    private static final long DEFAULT_TIME_TO_LIVE = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toNanos(1);
+    private final List<TerminalSizeListener> listeners;
+    private final ReentrantLock refreshLock;
+    private final AtomicBoolean refreshing;
+    private int sttyFailures;
+    private long sttyRetryAt;
+    private volatile CachedSize cachedSize;
+    private volatile long timeToLive;
+    private volatile boolean cursorPositionProbe;
+
+    
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final TerminalSizeUtil INSTANCE = new TerminalSizeUtil();
+    }
+
+    
+    /**
+     * Constructor
+     */
+    private TerminalSizeUtil() {
+        listeners = new CopyOnWriteArrayList<>();
+        refreshLock = new ReentrantLock();
+        refreshing = new AtomicBoolean(false);
+        sttyFailures = 0;
+        timeToLive = DEFAULT_TIME_TO_LIVE;
+        cursorPositionProbe = false;
+        cachedSize = null;
+    }
+
+    
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static TerminalSizeUtil getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    
+    /**
+     * Get the terminal size. The size is detected on the first call; once the time to live has expired the previous size
+     * is returned and the size is refreshed in the background. If another thread is already refreshing the size, the
+     * previous size is returned without waiting.
+     *
+     * @return the terminal size
+     */
+    public TerminalSize getTerminalSize() {
+        CachedSize current = cachedSize;
+        if (current != null && System.nanoTime() - current.expiresAt < 0) {
+            return current.size;
+        }
+
+        if (current != null && timeToLive > 0) {
+            refreshInBackground();
+            return current.size;
+        }
+
+        if (current != null && !refreshLock.tryLock()) {
+            return current.size;
+        }
+
+        if (current == null) {
+            refreshLock.lock();
+        }
+
+        try {
+            current = cachedSize;
+            if (current != null && System.nanoTime() - current.expiresAt < 0) {
+                return current.size;
+            }
+
+            return update(detectTerminalSize());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    
+    /**
+     * Get the number of columns of the terminal
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return getTerminalSize().getColumns();
+    }
+
+    
+    /**
+     * Get the number of lines of the terminal
+     *
+     * @return the number of lines
+     */
+    public int getLines() {
+        return getTerminalSize().getLines();
+    }
+
+    
+    /**
+     * Detect the terminal size immediately, independent of the time to live.
+     *
+     * @return the terminal size
+     */
+    public TerminalSize refresh() {
+        refreshLock.lock();
+        try {
+            return update(detectTerminalSize());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    
+    /**
+     * Set the time to live of the detected terminal size
+     *
+     * @param timeToLive the time to live, 0 to detect the size on every call by the calling thread
+     * @param unit the time unit
+     */
+    public void setTimeToLive(long timeToLive, TimeUnit unit) {
+        this.timeToLive = unit.toNanos(Math.max(0, timeToLive));
+        this.cachedSize = null;
+    }
+
+    
+    /**
+     * Enable or disable the cursor position probe, it is disabled by default. The probe moves the cursor, switches the
+     * controlling terminal to the non-canonical mode and reads the reported position, keys which are typed in the
+     * meantime are consumed. It is only used if nothing else detects the size.
+     *
+     * @param cursorPositionProbe true to enable the probe
+     */
+    public void setCursorPositionProbe(boolean cursorPositionProbe) {
+        this.cursorPositionProbe = cursorPositionProbe;
+    }
+
+    
+    /**
+     * Add a listener which is notified when the terminal size changes
+     *
+     * @param listener the listener
+     */
+    public void addTerminalSizeListener(TerminalSizeListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    
+    /**
+     * Remove a listener
+     *
+     * @param listener the listener
+     */
+    public void removeTerminalSizeListener(TerminalSizeListener listener) {
+        listeners.remove(listener);
+    }
+
+    
+    /**
+     * Update the cached terminal size and notify the listeners in case it has changed
+     *
+     * @param size the new terminal size
+     * @return the new terminal size
+     */
+    TerminalSize update(TerminalSize size) {
+        CachedSize previous = cachedSize;
+        cachedSize = new CachedSize(size, System.nanoTime() + timeToLive);
+
+        if (previous != null && !previous.size.equals(size)) {
+            LOG.debug("Terminal size changed from " + previous.size + " to " + size + ".");
+            for (TerminalSizeListener listener : listeners) {
+                try {
+                    listener.terminalSizeChanged(previous.size, size);
+                } catch (RuntimeException e) {
+                    LOG.warn("Terminal size listener failed: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        return size;
+    }
+
+    
+    /**
+     * Refresh the terminal size by a background thread, only one refresh runs at a time
+     */
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                LOG.debug("Could not refresh the terminal size: " + e.getMessage(), e);
+            } finally {
+                refreshing.set(false);
+            }
+        }, "TerminalSizeRefresh");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    
+    /**
+     * Detect the terminal size, the caller holds the refresh lock
+     *
+     * @return the terminal size
+     */
+    private TerminalSize detectTerminalSize() {
+        TerminalSize size = parseSize(System.getenv("LINES"), System.getenv("COLUMNS"));
+        if (size != null) {
+            return size;
+        }
+
+        if (!OSUtil.getInstance().isWindows() && new File(TTY_DEVICE).exists() && (sttyFailures == 0 || System.nanoTime() - sttyRetryAt >= 0)) {
+            size = readSttySize();
+            if (size == null && cursorPositionProbe) {
+                size = probeCursorPosition();
+            }
+
+            if (size != null) {
+                sttyFailures = 0;
+                return size;
+            }
+
+            // e.g. no controlling terminal: don't fork a process on every refresh
+            sttyFailures = Math.min(sttyFailures + 1, 16);
+            sttyRetryAt = System.nanoTime() + Math.min(MAX_RETRY_DELAY, TimeUnit.SECONDS.toNanos(1L << Math.min(sttyFailures - 1, 6)));
+        }
+
+        return TerminalSize.DEFAULT;
+    }
+
+    
+    /**
+     * Read the size by {@code stty size} of the controlling terminal
+     *
+     * @return the size or null
+     */
+    private TerminalSize readSttySize() {
+        String output = stty("size");
+        if (output == null) {
+            return null;
+        }
+
+        String[] values = output.trim().split("\\s+");
+        if (values.length != 2) {
+            return null;
+        }
+
+        return parseSize(values[0], values[1]);
+    }
+
+    
+    /**
+     * Probe the size by moving the cursor to the bottom right corner and requesting the cursor position
+     *
+     * @return the size or null
+     */
+    private TerminalSize probeCursorPosition() {
+        String settings = stty("-g");
+        if (settings == null || settings.isBlank() || stty("-icanon", "-echo", "min", "0", "time", "1") == null) {
+            return null;
+        }
+
+        try (OutputStream out = new FileOutputStream(TTY_DEVICE); InputStream in = new FileInputStream(TTY_DEVICE)) {
+            out.write(CURSOR_POSITION_PROBE.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            // expected response: ESC [ lines ; columns R
+            StringBuilder response = new StringBuilder();
+            long deadline = System.currentTimeMillis() + PROBE_TIMEOUT_MILLIS;
+            while (System.currentTimeMillis() < deadline) {
+                int c = in.read();
+                if (c == 'R') {
+                    int start = response.indexOf("[");
+                    int separator = response.indexOf(";");
+                    if (start >= 0 && separator > start) {
+                        return parseSize(response.substring(start + 1, separator), response.substring(separator + 1));
+                    }
+                    return null;
+                } else if (c >= 0) {
+                    response.append((char) c);
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not probe the cursor position: " + e.getMessage());
+        } finally {
+            stty(settings.trim());
+        }
+
+        return null;
+    }
+
+    
+    /**
+     * Run stty on the controlling terminal
+     *
+     * @param arguments the arguments
+     * @return the output or null in case of an error
+     */
+    private String stty(String... arguments) {
+        String[] command = new String[arguments.length + 1];
+        command[0] = "stty";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+
+        try {
+            Process process = new ProcessBuilder(command).redirectInput(new File(TTY_DEVICE)).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+            try (InputStream in = process.getInputStream()) {
+                if (!process.waitFor(PROCESS_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    LOG.debug("The stty process did not terminate in time.");
+                    process.destroyForcibly();
+                    return null;
+                }
+
+                if (process.exitValue() != 0) {
+                    return null;
+                }
+
+                // the output has a few bytes, the process doesn't block on the pipe
+                return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not run stty: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return null;
+    }
+
+    
+    /**
+     * Parse a size
+     *
+     * @param lines the lines
+     * @param columns the columns
+     * @return the size or null if it is not valid
+     */
+    private TerminalSize parseSize(String lines, String columns) {
+        if (lines == null || columns == null) {
+            return null;
+        }
+
+        try {
+            int lineValue = Integer.parseInt(lines.trim());
+            int columnValue = Integer.parseInt(columns.trim());
+            if (lineValue > 0 && columnValue > 0) {
+                return new TerminalSize(columnValue, lineValue);
+            }
+        } catch (NumberFormatException e) {
+            // NOP
+        }
+
+        return null;
+    }
+
+    
+    /**
+     * The cached size
+     *
+     * @author patrick
+     */
+    private static final class CachedSize {
+        private final TerminalSize size;
+        private final long expiresAt;
+
+        
+        /**
+         * Constructor for CachedSize
+         *
+         * @param size the size
+         * @param expiresAt the expiration in nano seconds
+         */
+        CachedSize(TerminalSize size, long expiresAt) {
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
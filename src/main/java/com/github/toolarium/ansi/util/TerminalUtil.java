@@ -6,7 +6,13 @@
 package com.github.toolarium.ansi.util;
 
 
+import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -15,7 +21,18 @@ import java.lang.reflect.Method;
  * @author patrick
  */
 public final class TerminalUtil {
+    /** The file descriptor of the standard input */
+    public static final int STDIN = 0;
+
+    /** The file descriptor of the standard output */
+    public static final int STDOUT = 1;
+
+    /** The file descriptor of the standard error */
+    public static final int STDERR = 2;
+
+    private static final String PROC_FD_PATH = "/proc/self/fd/";
     private transient Boolean tty;
+    private final Map<Integer, Boolean> streamTty = new ConcurrentHashMap<>();
 
     
     /**
@@ -60,6 +77,25 @@ public final class TerminalUtil {
     }
 
     
+    /**
+     * Check if a stream of the process is connected to a terminal, e.g. the standard output is redirected to a file
+     * but the standard error is still a terminal. On Linux the link target of {@code /proc/self/fd/<fd>} is checked,
+     * on other platforms the result of {@link #isTTY()} is returned. The result is cached per stream.
+     *
+     * @param fileDescriptor the file descriptor, e.g. {@link #STDOUT} or {@link #STDERR}
+     * @return true or false
+     */
+    public boolean isTTY(int fileDescriptor) {
+        Boolean result = streamTty.get(fileDescriptor);
+        if (result == null) {
+            result = testTTY(fileDescriptor);
+            streamTty.put(fileDescriptor, result);
+        }
+
+        return result;
+    }
+
+    
     /**
      * Identify if it is a pseudo terminal
      *
@@ -81,7 +117,53 @@ public final class TerminalUtil {
         return System.getenv("TERM") != null && System.getenv("TERM").startsWith("xterm");
     }
 
+    
+    /**
+     * Get the capabilities of the current terminal (environment variable TERM) from the terminfo database.
+     *
+     * @return the terminal capabilities or null if they are not available
+     */
+    public TerminalCapabilities getTerminalCapabilities() {
+        return TerminfoReader.getInstance().read();
+    }
+
 
+    /**
+     * Check if a path is a terminal device, e.g. {@code /dev/pts/0} or {@code /dev/tty1}
+     *
+     * @param device the device path
+     * @return true if it is a terminal device
+     */
+    static boolean isTerminalDevice(String device) {
+        return device != null && (device.startsWith("/dev/pts/") || device.startsWith("/dev/tty") || "/dev/console".equals(device));
+    }
+
+    
+    /**
+     * Test if a stream is connected to a terminal
+     *
+     * @param fileDescriptor the file descriptor
+     * @return true if it is a terminal
+     */
+    private boolean testTTY(int fileDescriptor) {
+        if (fileDescriptor < 0) {
+            return false;
+        }
+
+        Path path = Paths.get(PROC_FD_PATH + fileDescriptor);
+        if (!Files.isDirectory(Paths.get(PROC_FD_PATH))) {
+            return isTTY();
+        }
+
+        try {
+            return isTerminalDevice(Files.readSymbolicLink(path).toString());
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // closed stream
+            return false;
+        }
+    }
+
+    
     /**
      * Test if it is a pseudo terminal or not.
      * http://stackoverflow.com/questions/1403772/how-can-i-check-if-a-java-programs-input-output-streams-are-connected-to-a-term
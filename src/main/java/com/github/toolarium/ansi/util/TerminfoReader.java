@@ -0,0 +1,455 @@
+/*
+ * TerminfoReader.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Reader of the compiled terminfo database (legacy and extended number format), see term(5). The entries are
+ * searched in {@code $TERMINFO}, {@code ~/.terminfo}, {@code $TERMINFO_DIRS} and the system directories. The files
+ * are memory mapped and the parsed entries are cached by terminal name.
+ *
+ * @author patrick
+ */
+public final class TerminfoReader {
+    private static final Logger LOG = LoggerFactory.getLogger(TerminfoReader.class);
+    private static final int MAGIC_LEGACY = 0432;
+    private static final int MAGIC_EXTENDED_NUMBER = 01036;
+    private static final int HEADER_SIZE = 12;
+    private static final int EXTENDED_HEADER_SIZE = 10;
+    private static final int MAX_FILE_SIZE = 32768;
+    private static final String[] SYSTEM_DIRECTORIES = {"/etc/terminfo", "/lib/terminfo", "/usr/share/terminfo", "/usr/lib/terminfo"};
+    private static final String[] BOOLEAN_NAMES = {"bw", "am", "xsb", "xhp", "xenl", "eo", "gn", "hc", "km", "hs", "in", "da", "db", "mir", "msgr", "os", "eslok", "xt", "hz",
+                                                   "ul", "xon", "nxon", "mc5i", "chts", "nrrmc", "npc", "ndscr", "ccc", "bce", "hls", "xhpa", "crxm", "daisy", "xvpa", "sam", "cpix", "lpix"};
+    private static final String[] NUMBER_NAMES = {"cols", "it", "lines", "lm", "xmc", "pb", "vt", "wsl", "nlab", "lh", "lw", "ma", "wnum", "colors", "pairs", "ncv"};
+    private static final Map<Integer, String> STRING_NAMES = createStringNames();
+    private static final TerminalCapabilities NOT_FOUND = new TerminalCapabilities(new ArrayList<>(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+    private final Map<String, TerminalCapabilities> cache;
+
+    
+    /**
+     * Private class, the only instance of the singelton which will be created by accessing the holder class.
+     *
+     * @author patrick
+     */
+    private static class HOLDER {
+        static final TerminfoReader INSTANCE = new TerminfoReader();
+    }
+
+    
+    /**
+     * Constructor
+     */
+    private TerminfoReader() {
+        cache = new ConcurrentHashMap<>();
+    }
+
+    
+    /**
+     * Get the instance
+     *
+     * @return the instance
+     */
+    public static TerminfoReader getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    
+    /**
+     * Read the capabilities of the terminal defined by the environment variable {@code TERM}.
+     *
+     * @return the capabilities or null if the terminal is not defined or not found in the terminfo database
+     */
+    public TerminalCapabilities read() {
+        return read(System.getenv("TERM"));
+    }
+
+    
+    /**
+     * Read the capabilities of a terminal. The result is cached, further calls with the same name don't access the file system.
+     *
+     * @param terminalName the terminal name, e.g. {@code xterm-256color}
+     * @return the capabilities or null if the terminal is not found in the terminfo database
+     */
+    public TerminalCapabilities read(String terminalName) {
+        if (terminalName == null || terminalName.isBlank() || terminalName.indexOf('/') >= 0 || terminalName.startsWith(".")) {
+            return null;
+        }
+
+        TerminalCapabilities result = cache.computeIfAbsent(terminalName, this::lookup);
+        if (result == NOT_FOUND) {
+            return null;
+        }
+
+        return result;
+    }
+
+    
+    /**
+     * Read a compiled terminfo file
+     *
+     * @param file the file
+     * @return the capabilities
+     * @throws IOException In case the file can not be read or has an invalid format
+     */
+    public TerminalCapabilities read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > MAX_FILE_SIZE) {
+                throw new IOException("Invalid terminfo file size " + size + " of file " + file);
+            }
+
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    
+    /**
+     * Parse a compiled terminfo entry
+     *
+     * @param buffer the buffer which contains the compiled entry
+     * @return the capabilities
+     * @throws IOException In case of an invalid format
+     */
+    public TerminalCapabilities parse(ByteBuffer buffer) throws IOException {
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        data.position(0);
+
+        try {
+            int magic = data.getShort();
+            int numberSize;
+            if (magic == MAGIC_LEGACY) {
+                numberSize = 2;
+            } else if (magic == MAGIC_EXTENDED_NUMBER) {
+                numberSize = 4;
+            } else {
+                throw new IOException("Invalid terminfo magic number " + Integer.toOctalString(magic) + "!");
+            }
+
+            int namesSize = data.getShort();
+            int booleanCount = data.getShort();
+            int numberCount = data.getShort();
+            int stringCount = data.getShort();
+            int stringTableSize = data.getShort();
+            if (namesSize < 0 || booleanCount < 0 || numberCount < 0 || stringCount < 0 || stringTableSize < 0) {
+                throw new IOException("Invalid terminfo header!");
+            }
+
+            List<String> names = Arrays.asList(readString(data, data.position(), namesSize).split("\\|"));
+            data.position(HEADER_SIZE + namesSize);
+
+            Map<String, Boolean> booleans = new HashMap<>();
+            for (int i = 0; i < booleanCount; i++) {
+                byte value = data.get();
+                if (value == 1 && i < BOOLEAN_NAMES.length) {
+                    booleans.put(BOOLEAN_NAMES[i], Boolean.TRUE);
+                }
+            }
+            align(data);
+
+            Map<String, Integer> numbers = new HashMap<>();
+            for (int i = 0; i < numberCount; i++) {
+                int value = readNumber(data, numberSize);
+                if (value >= 0 && i < NUMBER_NAMES.length) {
+                    numbers.put(NUMBER_NAMES[i], value);
+                }
+            }
+
+            int[] stringOffsets = readOffsets(data, stringCount);
+            int stringTableStart = data.position();
+            Map<String, String> strings = new HashMap<>();
+            for (int i = 0; i < stringCount; i++) {
+                String name = STRING_NAMES.get(i);
+                if (name != null && stringOffsets[i] >= 0 && stringOffsets[i] < stringTableSize) {
+                    strings.put(name, readString(data, stringTableStart + stringOffsets[i], stringTableSize - stringOffsets[i]));
+                }
+            }
+
+            data.position(stringTableStart + stringTableSize);
+            align(data);
+            if (data.remaining() >= EXTENDED_HEADER_SIZE) {
+                parseExtended(data, numberSize, booleans, numbers, strings);
+            }
+
+            return new TerminalCapabilities(names, booleans, numbers, strings);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid terminfo format: " + e.getMessage(), e);
+        }
+    }
+
+    
+    /**
+     * Get the directories which are searched for compiled terminfo entries
+     *
+     * @return the directories in search order
+     */
+    public List<Path> getSearchPath() {
+        Set<Path> result = new LinkedHashSet<>();
+        addDirectory(result, System.getenv("TERMINFO"));
+
+        String home = System.getProperty("user.home");
+        if (home != null && !home.isBlank()) {
+            result.add(Paths.get(home, ".terminfo"));
+        }
+
+        String terminfoDirs = System.getenv("TERMINFO_DIRS");
+        if (terminfoDirs != null) {
+            for (String directory : terminfoDirs.split(File.pathSeparator)) {
+                addDirectory(result, directory);
+            }
+        }
+
+        for (String directory : SYSTEM_DIRECTORIES) {
+            addDirectory(result, directory);
+        }
+
+        return new ArrayList<>(result);
+    }
+
+    
+    /**
+     * Clear the cached entries
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    
+    /**
+     * Lookup a terminal in the search path
+     *
+     * @param terminalName the terminal name
+     * @return the capabilities or {@link #NOT_FOUND}
+     */
+    private TerminalCapabilities lookup(String terminalName) {
+        String firstCharacter = terminalName.substring(0, 1);
+        String hexFirstCharacter = Integer.toHexString(terminalName.charAt(0));
+
+        for (Path directory : getSearchPath()) {
+            for (String subDirectory : new String[] {firstCharacter, hexFirstCharacter}) {
+                Path file = directory.resolve(subDirectory).resolve(terminalName);
+                if (Files.isRegularFile(file) && Files.isReadable(file)) {
+                    try {
+                        TerminalCapabilities capabilities = read(file);
+                        LOG.debug("Read terminfo entry " + file + ": " + capabilities);
+                        return capabilities;
+                    } catch (IOException e) {
+                        LOG.debug("Could not read terminfo entry " + file + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        LOG.debug("No terminfo entry found for terminal " + terminalName);
+        return NOT_FOUND;
+    }
+
+    
+    /**
+     * Parse the extended capabilities section
+     *
+     * @param data the data
+     * @param numberSize the size of a numeric value
+     * @param booleans the boolean capabilities
+     * @param numbers the numeric capabilities
+     * @param strings the string capabilities
+     */
+    private void parseExtended(ByteBuffer data, int numberSize, Map<String, Boolean> booleans, Map<String, Integer> numbers, Map<String, String> strings) {
+        int booleanCount = data.getShort();
+        int numberCount = data.getShort();
+        int stringCount = data.getShort();
+        data.getShort(); // number of string table items
+        int stringTableSize = data.getShort();
+        if (booleanCount < 0 || numberCount < 0 || stringCount < 0 || stringTableSize < 0) {
+            return;
+        }
+
+        boolean[] booleanValues = new boolean[booleanCount];
+        for (int i = 0; i < booleanCount; i++) {
+            booleanValues[i] = data.get() == 1;
+        }
+        align(data);
+
+        int[] numberValues = new int[numberCount];
+        for (int i = 0; i < numberCount; i++) {
+            numberValues[i] = readNumber(data, numberSize);
+        }
+
+        int[] stringOffsets = readOffsets(data, stringCount);
+        int[] nameOffsets = readOffsets(data, booleanCount + numberCount + stringCount);
+        int stringTableStart = data.position();
+
+        // the names follow the last value in the string table
+        int nameTableStart = 0;
+        for (int offset : stringOffsets) {
+            if (offset >= 0 && offset < stringTableSize) {
+                nameTableStart = Math.max(nameTableStart, offset + readString(data, stringTableStart + offset, stringTableSize - offset).length() + 1);
+            }
+        }
+
+        for (int i = 0; i < nameOffsets.length; i++) {
+            int nameOffset = nameTableStart + nameOffsets[i];
+            if (nameOffsets[i] < 0 || nameOffset >= stringTableSize) {
+                continue;
+            }
+
+            String name = readString(data, stringTableStart + nameOffset, stringTableSize - nameOffset);
+            if (i < booleanCount) {
+                if (booleanValues[i]) {
+                    booleans.put(name, Boolean.TRUE);
+                }
+            } else if (i < booleanCount + numberCount) {
+                int value = numberValues[i - booleanCount];
+                if (value >= 0) {
+                    numbers.put(name, value);
+                }
+            } else {
+                int offset = stringOffsets[i - booleanCount - numberCount];
+                if (offset >= 0 && offset < stringTableSize) {
+                    strings.put(name, readString(data, stringTableStart + offset, stringTableSize - offset));
+                }
+            }
+        }
+    }
+
+    
+    /**
+     * Read a number
+     *
+     * @param data the data
+     * @param numberSize the number size in bytes
+     * @return the number, negative values mean absent or cancelled
+     */
+    private int readNumber(ByteBuffer data, int numberSize) {
+        if (numberSize == 4) {
+            return data.getInt();
+        }
+
+        return data.getShort();
+    }
+
+    
+    /**
+     * Read string offsets
+     *
+     * @param data the data
+     * @param count the number of offsets
+     * @return the offsets, negative values mean absent or cancelled
+     */
+    private int[] readOffsets(ByteBuffer data, int count) {
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = data.getShort();
+        }
+
+        return result;
+    }
+
+    
+    /**
+     * Read a null terminated string without changing the buffer position
+     *
+     * @param data the data
+     * @param start the start position
+     * @param maxLength the maximum length
+     * @return the string
+     */
+    private String readString(ByteBuffer data, int start, int maxLength) {
+        int end = start;
+        int limit = Math.min(data.limit(), start + maxLength);
+        while (end < limit && data.get(end) != 0) {
+            end++;
+        }
+
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(start + i);
+        }
+
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    
+    /**
+     * Align the position to an even boundary
+     *
+     * @param data the data
+     */
+    private void align(ByteBuffer data) {
+        if ((data.position() & 1) != 0 && data.hasRemaining()) {
+            data.get();
+        }
+    }
+
+    
+    /**
+     * Add a directory
+     *
+     * @param directories the directories
+     * @param directory the directory to add, an empty value adds the system directories
+     */
+    private void addDirectory(Set<Path> directories, String directory) {
+        if (directory == null) {
+            return;
+        }
+
+        if (directory.isBlank()) {
+            for (String systemDirectory : SYSTEM_DIRECTORIES) {
+                directories.add(Paths.get(systemDirectory));
+            }
+            return;
+        }
+
+        directories.add(Paths.get(directory));
+    }
+
+    
+    /**
+     * Create the names of the supported standard string capabilities
+     *
+     * @return the names by index
+     */
+    private static Map<Integer, String> createStringNames() {
+        Map<Integer, String> result = new HashMap<>();
+        result.put(5, "clear");
+        result.put(10, "cup");
+        result.put(26, "blink");
+        result.put(27, "bold");
+        result.put(30, "dim");
+        result.put(32, "invis");
+        result.put(34, "rev");
+        result.put(35, "smso");
+        result.put(36, "smul");
+        result.put(39, "sgr0");
+        result.put(43, "rmso");
+        result.put(44, "rmul");
+        result.put(311, TerminalCapabilities.ENTER_ITALICS_MODE);
+        result.put(321, TerminalCapabilities.EXIT_ITALICS_MODE);
+        result.put(359, "setaf");
+        result.put(360, "setab");
+        return result;
+    }
+}
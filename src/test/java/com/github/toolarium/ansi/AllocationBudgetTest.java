@@ -0,0 +1,110 @@
+/*
+ * AllocationBudgetTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.github.toolarium.ansi.color.BackgroundColor;
+import com.github.toolarium.ansi.color.ColorReset;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Allocation budgets of the hot paths: each operation runs in a warmed-up loop and the allocated bytes of the thread
+ * are measured. The test fails in case a change adds allocations to a path, the allocation free paths have a budget
+ * of 0 bytes.
+ *
+ * @author patrick
+ */
+public class AllocationBudgetTest {
+    private static final Logger LOG = LoggerFactory.getLogger(AllocationBudgetTest.class);
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int ITERATIONS = 100_000;
+    private static final String TEXT = "\u001B[31mThe quick\u001B[0m brown fox";
+
+    
+    /**
+     * Test the allocation free paths of the builder
+     */
+    @Test
+    public void testBuilder() {
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON);
+        assertBudget("color/append", 0, () -> builder.setLength(0).color(ForegroundColor.RED).append("text").resetColor(ColorReset.FG));
+        assertBudget("color/background", 0, () -> builder.setLength(0).color(BackgroundColor.BLUE, "text").bold("bold").reset());
+        assertBudget("color8/color24", 0, () -> builder.setLength(0).color8(100).append("text").color24(10, 20, 30).append(42).resetColor(ColorReset.ALL));
+
+        AnsiStyle style = AnsiStyle.of(ForegroundColor.RED).bold();
+        assertBudget("style", 0, () -> builder.setLength(0).style(style, "text"));
+        assertBudget("push/pop", 0, () -> builder.setLength(0).push(style).append("text").underline(sb -> sb.append("nested")).pop());
+
+        AnsiStringBuilder disabled = new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF);
+        assertBudget("color/append (disabled)", 0, () -> disabled.setLength(0).color(ForegroundColor.RED).append("text").resetColor(ColorReset.FG));
+    }
+
+    
+    /**
+     * Test the ansi detection
+     */
+    @Test
+    public void testAnsiColor() {
+        assertBudget("AnsiColor.ON.isEnabled", 0, () -> AnsiColor.ON.isEnabled());
+        assertBudget("AnsiColor.AUTO.isEnabled", 0, () -> AnsiColor.AUTO.isEnabled());
+    }
+
+    
+    /**
+     * Test the paths which create a string
+     */
+    @Test
+    public void testString() {
+        // the result string and the temporary buffer
+        assertBudget("strip", 192, () -> AnsiEscapeScanner.strip(TEXT));
+
+        // builder, buffer and result string
+        AnsiString.Builder builder = AnsiString.getInstance(AnsiColor.ON);
+        assertBudget("AnsiString.Builder.appendWithColor", 384, () -> builder.appendWithColor("text", ForegroundColor.RED));
+    }
+
+    
+    /**
+     * Assert the allocated bytes per operation
+     *
+     * @param name the name of the operation
+     * @param budget the budget in bytes per operation
+     * @param operation the operation
+     */
+    private static void assertBudget(String name, int budget, Runnable operation) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean, "Allocation measurement is not supported.");
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported(), "Allocation measurement is not supported.");
+        if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+            allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long start = allocationMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            operation.run();
+        }
+        double bytesPerOperation = (double) (allocationMXBean.getThreadAllocatedBytes(threadId) - start) / ITERATIONS;
+        LOG.debug(name + ": " + bytesPerOperation + " bytes per operation (budget " + budget + ")");
+
+        // less than one byte per operation: measurement overhead, e.g. of the management call
+        assertTrue(bytesPerOperation < budget + 1, name + " allocates " + bytesPerOperation + " bytes per operation, budget is " + budget + " bytes.");
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * AnsiBufferTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiBuffer}.
+ *
+ * @author patrick
+ */
+public class AnsiBufferTest {
+
+    /**
+     * Test the Latin-1 storage and the inflation
+     */
+    @Test
+    public void testAppend() {
+        AnsiBuffer buffer = new AnsiBuffer(4);
+        buffer.append("ab").append('c').append(-42).append(0).append(Integer.MIN_VALUE);
+        assertEquals("abc-420-2147483648", buffer.toString());
+        assertTrue(buffer.isLatin1());
+
+        buffer.append("é");
+        assertTrue(buffer.isLatin1());
+        buffer.append("€").appendCodePoint(0x1F600).append(7);
+        assertFalse(buffer.isLatin1());
+        assertEquals("abc-420-2147483648é€😀7", buffer.toString());
+        assertEquals('€', buffer.charAt(19));
+        assertEquals("é€", buffer.subSequence(18, 20).toString());
+
+        AnsiBuffer other = new AnsiBuffer(0).append("x").append(buffer, 0, 3);
+        assertEquals("xabc", other.toString());
+        assertEquals("null", new AnsiBuffer().append((CharSequence) null).toString());
+        assertEquals("-9223372036854775808 42 12345678901", new AnsiBuffer(0).append(Long.MIN_VALUE).append(' ').append(42L).append(' ').append((Object) 12345678901L).toString());
+        assertEquals("é€", StandardCharsets.UTF_8.decode(new AnsiBuffer().append("é€").encode(StandardCharsets.UTF_8)).toString());
+        assertEquals(2, new AnsiBuffer().append("ab").encode(StandardCharsets.UTF_8).remaining());
+        assertThrows(IndexOutOfBoundsException.class, () -> buffer.charAt(100));
+    }
+
+    
+    /**
+     * Test the growth policy
+     */
+    @Test
+    public void testCapacity() {
+        AnsiBuffer buffer = new AnsiBuffer(10, 2.0f);
+        buffer.append("0123456789x");
+        assertEquals(21, buffer.capacity());
+        buffer.ensureCapacity(100);
+        assertEquals(100, buffer.capacity());
+        buffer.trimToSize();
+        assertEquals(11, buffer.capacity());
+        buffer.setLength(3);
+        assertEquals("012", buffer.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> new AnsiBuffer(10, 1.0f));
+        assertThrows(IllegalArgumentException.class, () -> new AnsiBuffer(-1));
+        assertThrows(IllegalArgumentException.class, () -> new AnsiStringBuilder(10, 0.5f));
+        assertThrows(IllegalArgumentException.class, () -> new AnsiStringBuilder(-1));
+    }
+
+    
+    /**
+     * Test the write to a stream
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testWrite() throws IOException {
+        AnsiStringBuilder builder = new AnsiStringBuilder(0, 1.25f).setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, "red");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.writeTo(out, StandardCharsets.UTF_8);
+        assertEquals("\u001B[31mred\u001B[39m", out.toString(StandardCharsets.UTF_8.name()));
+
+        builder.append(" ä €");
+        out.reset();
+        builder.writeTo(out, StandardCharsets.UTF_8);
+        assertEquals("\u001B[31mred\u001B[39m ä €", out.toString(StandardCharsets.UTF_8.name()));
+        assertEquals(builder.length(), builder.toString(false).length());
+
+        AnsiBuffer buffer = new AnsiBuffer().append("ä");
+        out.reset();
+        buffer.writeTo(out, StandardCharsets.ISO_8859_1);
+        assertEquals(1, out.size());
+        out.reset();
+        buffer.writeTo(out, StandardCharsets.UTF_8);
+        assertEquals(2, out.size());
+
+        StringWriter writer = new StringWriter();
+        buffer.writeTo(writer);
+        assertEquals("ä", writer.toString());
+    }
+}
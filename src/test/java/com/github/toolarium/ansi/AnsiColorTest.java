@@ -10,6 +10,15 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.github.toolarium.ansi.color.ForegroundColor;
+import com.github.toolarium.ansi.util.TerminalUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.Test;
 
 
@@ -38,6 +47,34 @@ public class AnsiColorTest {
     }
     
     
+    /**
+     * Test the setting per stream
+     */
+    @Test
+    public void testForStream() {
+        String systemProperty = System.getProperty(AnsiColor.TOOLARIUM_ANSI);
+        try {
+            assertEquals(AnsiColor.ON, AnsiColor.ON.forStream(TerminalUtil.STDOUT));
+            assertEquals(AnsiColor.OFF, AnsiColor.OFF.forStream(TerminalUtil.STDERR));
+
+            System.setProperty(AnsiColor.TOOLARIUM_ANSI, "true");
+            assertEquals(AnsiColor.ON, AnsiColor.AUTO.forStream(TerminalUtil.STDOUT));
+            System.setProperty(AnsiColor.TOOLARIUM_ANSI, "false");
+            assertEquals(AnsiColor.OFF, AnsiColor.AUTO.forStream(TerminalUtil.STDERR));
+
+            System.setProperty(AnsiColor.TOOLARIUM_ANSI, "tty");
+            boolean tty = TerminalUtil.getInstance().isTTY(TerminalUtil.STDERR) || TerminalUtil.getInstance().isPseudoTTY();
+            assertEquals(tty ? AnsiColor.ON : AnsiColor.OFF, AnsiColor.AUTO.forStream(TerminalUtil.STDERR));
+        } finally {
+            if (systemProperty == null) {
+                System.clearProperty(AnsiColor.TOOLARIUM_ANSI);
+            } else {
+                System.setProperty(AnsiColor.TOOLARIUM_ANSI, systemProperty);
+            }
+        }
+    }
+
+    
     /**
      * Test color on / off
      */
@@ -51,4 +88,87 @@ public class AnsiColorTest {
         assertEquals(new StringBuilder().append(AnsiColor.ANSI_START_ESCAPE_SEQUENCE).append(ForegroundColor.CYAN.getValue()).append(AnsiColor.ANSI_STOP_ESCAPE_SEQUENCE).toString(), 
                      AnsiColor.ON.ansify(ForegroundColor.CYAN.getValue()));
     }
+
+    
+    /**
+     * Test the detection with concurrent threads while the system property changes
+     *
+     * @throws Exception In case of an error
+     */
+    @Test
+    public void testConcurrentDetection() throws Exception {
+        final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final int rounds = 20;
+        final int calls = 10_000;
+        String systemProperty = System.getProperty(AnsiColor.TOOLARIUM_ANSI);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // stable phases: all threads must see the result of the current value
+            for (int round = 0; round < rounds; round++) {
+                boolean expected = round % 2 == 0;
+                System.setProperty(AnsiColor.TOOLARIUM_ANSI, Boolean.toString(expected));
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        int errors = 0;
+                        for (int i = 0; i < calls; i++) {
+                            if (AnsiColor.AUTO.isEnabled() != expected) {
+                                errors++;
+                            }
+                        }
+                        return errors;
+                    }));
+                }
+
+                start.countDown();
+                for (Future<Integer> result : results) {
+                    assertEquals(0, result.get(30, TimeUnit.SECONDS).intValue());
+                }
+            }
+
+            // the property is flipped while the threads call the detection
+            AtomicBoolean running = new AtomicBoolean(true);
+            CountDownLatch started = new CountDownLatch(threads);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    int count = 0;
+                    do {
+                        AnsiColor.AUTO.isEnabled();
+                        count++;
+                    } while (running.get());
+                    return count;
+                }));
+            }
+
+            assertTrue(started.await(30, TimeUnit.SECONDS));
+            for (int i = 0; i < 2_000; i++) {
+                System.setProperty(AnsiColor.TOOLARIUM_ANSI, (i % 3 == 0) ? "true" : (i % 3 == 1) ? "false" : "tty");
+            }
+            running.set(false);
+            for (Future<Integer> result : results) {
+                assertTrue(result.get(30, TimeUnit.SECONDS) > 0);
+            }
+
+            // the final value must be visible to all threads
+            System.setProperty(AnsiColor.TOOLARIUM_ANSI, "true");
+            results.clear();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> AnsiColor.AUTO.isEnabled() ? 1 : 0));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get(30, TimeUnit.SECONDS).intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+            if (systemProperty == null) {
+                System.clearProperty(AnsiColor.TOOLARIUM_ANSI);
+            } else {
+                System.setProperty(AnsiColor.TOOLARIUM_ANSI, systemProperty);
+            }
+        }
+    }
 }
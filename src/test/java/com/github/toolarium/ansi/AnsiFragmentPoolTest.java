@@ -0,0 +1,89 @@
+/*
+ * AnsiFragmentPoolTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.ansi.color.ForegroundColor;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiFragmentPool}.
+ *
+ * @author patrick
+ */
+public class AnsiFragmentPoolTest {
+
+    /**
+     * Test the interning and the eviction
+     */
+    @Test
+    public void testFragment() {
+        AnsiStyle green = AnsiStyle.of(ForegroundColor.GREEN);
+        AnsiFragmentPool pool = new AnsiFragmentPool(2);
+        AnsiFragment ok = pool.fragment(green, "OK");
+        assertSame(ok, pool.fragment(green, new StringBuilder("OK")));
+        assertEquals(green, ok.getStyle());
+        assertEquals("OK", ok.getText());
+        assertEquals(1, pool.size());
+        assertTrue(pool.getMemoryFootprint() >= ok.getMemoryFootprint());
+
+        pool.fragment(green, "A");
+        pool.fragment(green, "B");
+        assertEquals(2, pool.size());
+        assertNotSame(ok, pool.fragment(green, "OK"));
+
+        pool.clear();
+        assertEquals(0, pool.size());
+        assertEquals(0, pool.getMemoryFootprint());
+        assertThrows(IllegalArgumentException.class, () -> new AnsiFragmentPool(0));
+        assertThrows(IllegalArgumentException.class, () -> pool.fragment(null, "x"));
+    }
+
+    
+    /**
+     * Test the append of a fragment
+     */
+    @Test
+    public void testAppend() {
+        AnsiStyle style = AnsiStyle.of(ForegroundColor.RED).bold();
+        AnsiFragment fragment = new AnsiFragmentPool().fragment(style, "ERROR€");
+        assertEquals(new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).style(style, "ERROR€").toString(), fragment.toString());
+        assertEquals(new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).append("[").style(style, "ERROR€").append("]").toString(),
+                     new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).append("[").append(fragment).append("]").toString());
+        assertEquals("[ERROR€]", new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF).append("[").append(fragment).append("]").toString());
+        assertEquals(new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON).style(style, "ERROR€").toString(),
+                     new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON).append(fragment).toString());
+    }
+
+    
+    /**
+     * Test that the entries of reclaimed fragments are removed and the fragments are rendered again
+     */
+    @Test
+    public void testReclaim() {
+        AnsiStyle red = AnsiStyle.of(ForegroundColor.RED);
+        AnsiFragmentPool pool = new AnsiFragmentPool();
+        AnsiFragment fragment = pool.fragment(red, "reclaimable");
+        pool.fragment(red, "other");
+        assertEquals(2, pool.size());
+
+        pool.reclaim();
+        assertEquals(0, pool.size());
+        assertEquals(0, pool.getMemoryFootprint());
+
+        AnsiFragment rendered = pool.fragment(red, "reclaimable");
+        assertNotSame(fragment, rendered);
+        assertEquals(fragment.toString(), rendered.toString());
+        assertSame(rendered, pool.fragment(red, "reclaimable"));
+        assertEquals(1, pool.size());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * AnsiGradientTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Test the {@link AnsiGradient}.
+ *
+ * @author patrick
+ */
+public class AnsiGradientTest {
+    private static final Logger LOG = LoggerFactory.getLogger(AnsiGradientTest.class);
+    private static final String TEXT = "This is a long gradient header line with some text";
+
+    
+    /**
+     * Test a 24-bit gradient
+     */
+    @Test
+    public void testGradient() {
+        String result = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).gradient(AnsiGradient.of("#ff0000", "#0000ff"), "abc").toString(false);
+        assertEquals("\u001B[38;2;255;0;0ma\u001B[38;2;128;0;128mb\u001B[38;2;0;0;255mc\u001B[39m", result);
+
+        result = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).backgroundGradient(AnsiGradient.of(0x00ff00), "ab").toString(false);
+        assertEquals("\u001B[48;2;0;255;0mab\u001B[49m", result);
+
+        assertEquals(TEXT, new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF).gradient(AnsiGradient.rainbow(), TEXT).toString());
+        assertEquals(TEXT, new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).gradient(AnsiGradient.rainbow(), TEXT).toString(false, true));
+    }
+
+    
+    /**
+     * Test a 8-bit gradient which emits only one sequence per color run
+     */
+    @Test
+    public void testGradient8() {
+        AnsiGradient gradient = AnsiGradient.of("#000000", "#0000ff").toColor8();
+        String result = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).gradient(gradient, TEXT).toString(false);
+        String perCharacter = perCharacter(TEXT);
+        LOG.debug("Gradient: " + result + " (" + result.length() + " / " + perCharacter.length() + ")");
+
+        int sequences = result.split("\u001B\\[").length - 1;
+        assertTrue(sequences <= 10);
+        assertTrue(result.length() * 5 < perCharacter.length());
+        assertEquals(TEXT, new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).gradient(gradient, TEXT).toString(false, true));
+    }
+
+    
+    /**
+     * Test invalid input
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> AnsiGradient.of(new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> AnsiGradient.of(0x1000000));
+        assertThrows(IllegalArgumentException.class, () -> AnsiGradient.of("red"));
+    }
+
+    
+    /**
+     * Color each character on its own
+     *
+     * @param text the text
+     * @return the colored text
+     */
+    private String perCharacter(String text) {
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON);
+        for (int i = 0; i < text.length(); i++) {
+            builder.color24(0, 0, 255 * i / (text.length() - 1), text.charAt(i));
+        }
+        return builder.toString(false);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * AnsiRopeTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.ansi.color.ForegroundColor;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiRope}.
+ *
+ * @author patrick
+ */
+public class AnsiRopeTest {
+
+    /**
+     * Test the concatenation of builders
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testConcat() throws IOException {
+        AnsiRope red = AnsiRope.of(new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED).append("red"));
+        AnsiRope plain = AnsiRope.of("plain");
+        assertEquals("\u001B[31mred\u001B[0m", red.toString());
+        assertEquals(3, red.getVisibleLength());
+
+        AnsiRope rope = red.concat(plain).concat(AnsiRope.EMPTY);
+        assertEquals("\u001B[31mred\u001B[0mplain", rope.toString());
+        assertEquals(8, rope.getVisibleLength());
+        assertEquals(rope.toString().length(), rope.length());
+        assertSame(plain, AnsiRope.EMPTY.concat(plain));
+
+        StringWriter writer = new StringWriter();
+        rope.writeTo(writer);
+        assertEquals(rope.toString(), writer.toString());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AnsiRope.of("ü€").concat(rope).writeTo(outputStream, StandardCharsets.UTF_8);
+        assertEquals("ü€" + rope, new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+
+        assertEquals(rope.toString(), new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).append(rope).toString());
+        assertEquals("redplain", new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF).append(rope).toString());
+        assertEquals("xredplain", new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON).append("x").append(rope).toString());
+    }
+
+    
+    /**
+     * Test the slice and the insert at visible indexes
+     */
+    @Test
+    public void testSlice() {
+        AnsiRope rope = AnsiRope.of("ab\u001B[1mcd\u001B[22mef").concat(AnsiRope.of("\u001B[32mgh"));
+        assertEquals("ab\u001B[1mcd\u001B[22mef\u001B[32mgh\u001B[0m", rope.toString());
+        assertEquals("\u001B[1md\u001B[0m", rope.slice(3, 4).toString());
+        assertEquals("\u001B[1mcd\u001B[22mef\u001B[32mg\u001B[0m", rope.slice(2, 7).toString());
+        assertEquals("abcdefgh", AnsiEscapeScanner.strip(rope.slice(0, 8).toString()));
+        assertSame(AnsiRope.EMPTY, rope.slice(4, 4));
+
+        AnsiRope inserted = rope.insert(3, AnsiRope.of("\u001B[31mX"));
+        assertEquals("abcXdefgh", AnsiEscapeScanner.strip(inserted.toString()));
+        assertEquals("ab\u001B[1mc\u001B[0m\u001B[31mX\u001B[0m\u001B[1md\u001B[22mef\u001B[32mgh\u001B[0m", inserted.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.slice(5, 9));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.insert(-1, AnsiRope.EMPTY));
+    }
+
+    
+    /**
+     * Test that repeated concatenations keep the tree balanced
+     */
+    @Test
+    public void testBalance() {
+        String section = "\u001B[1m" + "x".repeat(200) + "\u001B[0m\n";
+        AnsiRope rope = AnsiRope.EMPTY;
+        List<AnsiRope> sections = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            rope = rope.concat(AnsiRope.of(section));
+            sections.add(AnsiRope.of(section));
+            expected.append(section);
+        }
+
+        assertTrue(rope.getDepth() <= 30, "depth " + rope.getDepth());
+        assertEquals(expected.toString(), rope.toString());
+        assertEquals(10000 * 201, rope.getVisibleLength());
+        assertEquals(expected.toString(), AnsiRope.concat(sections).toString());
+        assertTrue(AnsiRope.concat(sections).getDepth() <= 14);
+    }
+
+    
+    /**
+     * Test that repeated appends and inserts keep the height of the tree logarithmic
+     */
+    @Test
+    public void testScaling() {
+        AnsiRope section = AnsiRope.of("\u001B[1m" + "x".repeat(200) + "\u001B[0m\n");
+        AnsiRope rope = AnsiRope.EMPTY;
+        for (int i = 0; i < 80000; i++) {
+            rope = rope.concat(section);
+        }
+
+        // an AVL tree is at most 1.44 * log2(n) high
+        assertTrue(rope.getDepth() <= 1.45 * Math.log(80000) / Math.log(2) + 2, "depth " + rope.getDepth());
+
+        for (int i = 0; i < 1000; i++) {
+            rope = rope.insert((int)((i * 7919L) % rope.getVisibleLength()), AnsiRope.of("y"));
+        }
+        assertEquals(80000 * 201 + 1000, rope.getVisibleLength());
+        assertTrue(rope.getDepth() <= 1.45 * Math.log(rope.length()) / Math.log(2) + 2, "depth " + rope.getDepth());
+    }
+}
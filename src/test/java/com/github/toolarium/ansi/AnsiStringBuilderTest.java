@@ -5,6 +5,11 @@
  */
 package com.github.toolarium.ansi;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.color.ColorReset;
 import com.github.toolarium.ansi.color.ForegroundColor;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -46,4 +51,135 @@ public class AnsiStringBuilderTest {
         
         LOG.debug("=>" + a.toString());
     }
+
+    
+    /**
+     * Test the segment mode
+     */
+    @Test
+    public void testSegmentMode() {
+        AnsiStringBuilder builder = new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON)
+                .bold().append("a").color(ForegroundColor.RED).append("b").resetBold().append("c").resetColor(ColorReset.FG).append('d');
+        assertEquals("\u001B[1ma\u001B[31mb\u001B[22mc\u001B[39md", builder.toString(false));
+        assertEquals("abcd", builder.toString(false, true));
+        assertEquals("abcd", builder.setAnsiColor(AnsiColor.OFF).toString(false));
+
+        StringBuilder html = new StringBuilder();
+        builder.forEachSegment((style, text, start, end) -> html.append(style.hasAttribute(AnsiStyle.BOLD) ? "<b>" : "<span>").append(text, start, end));
+        assertEquals("<b>a<b>b<span>c<span>d", html.toString());
+
+        // same result as the eager mode
+        AnsiGradient gradient = AnsiGradient.of(0xff0000, 0x0000ff);
+        AnsiStringBuilder eager = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).gradient(gradient, "abc").style(AnsiStyle.NONE.italic(), "i");
+        AnsiStringBuilder lazy = new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON).gradient(gradient, "abc").style(AnsiStyle.NONE.italic(), "i");
+        assertEquals("\u001B[38;2;255;0;0ma\u001B[38;2;128;0;128mb\u001B[38;2;0;0;255mc\u001B[39m\u001B[3mi\u001B[23m", eager.toString(false));
+        assertEquals("\u001B[38;2;255;0;0ma\u001B[38;2;128;0;128mb\u001B[38;2;0;0;255mc\u001B[3;39mi\u001B[23m", lazy.toString(false));
+        assertEquals(eager.toString(false, true), lazy.toString(false, true));
+        assertEquals("abci", lazy.toString(true, true));
+
+        assertThrows(IllegalStateException.class, () -> new AnsiStringBuilder("a").setSegmentMode(true));
+        assertThrows(IllegalStateException.class, () -> new AnsiStringBuilder().forEachSegment((style, text, start, end) -> { }));
+    }
+
+    
+    /**
+     * Test the style stack
+     */
+    @Test
+    public void testStyleStack() {
+        AnsiStyle red = AnsiStyle.of(ForegroundColor.RED);
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON)
+                .push(red).append("a").push(AnsiStyle.NONE.bold()).append("b").push(AnsiStyle.of(ForegroundColor.GREEN)).append("c")
+                .pop().append("d").pop().append("e").pop();
+        assertEquals("\u001B[31ma\u001B[1mb\u001B[32mc\u001B[31md\u001B[22me\u001B[39m", builder.toString(false));
+        assertEquals(0, builder.getStyleDepth());
+
+        // the consumer overloads restore the enclosing style
+        builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, sb -> sb.append("a").color(ForegroundColor.BLUE, sb2 -> sb2.append("b")).append("c"));
+        assertEquals("\u001B[31ma\u001B[34mb\u001B[31mc\u001B[39m", builder.toString(false));
+        builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).dim(sb -> sb.bold(sb2 -> sb2.append("x")).append("y"));
+        assertEquals("\u001B[2m\u001B[1mx\u001B[22;2my\u001B[22m", builder.toString(false));
+        builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF).bold(sb -> sb.append("x"));
+        assertEquals("x", builder.toString(false));
+
+        // segment mode
+        builder = new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, sb -> sb.append("a").underline(sb2 -> sb2.append("b")).append("c"));
+        assertEquals("\u001B[31ma\u001B[4mb\u001B[24mc\u001B[39m", builder.toString(false));
+
+        assertThrows(IllegalStateException.class, () -> new AnsiStringBuilder().pop());
+        AnsiStringBuilder full = new AnsiStringBuilder();
+        for (int i = 0; i < AnsiStringBuilder.MAX_STYLE_DEPTH; i++) {
+            full.push(red);
+        }
+        assertThrows(IllegalStateException.class, () -> full.push(red));
+        assertEquals(0, full.setLength(0).getStyleDepth());
+
+        // the style which is active at the end of a text
+        String text = "\u001B[1;31ma\u001B]8;;x\u0007b\u001B[4m\u001B[22mc";
+        assertEquals(AnsiStyle.NONE.underline().foreground(ForegroundColor.RED), AnsiStyle.NONE.applyEscapeSequences(text, 0, text.length()));
+        assertEquals(AnsiStyle.NONE.bold(), red.applyEscapeSequences("x\u001B[0;1m\u001B[4", 0, 10));
+        assertEquals(red, red.applyEscapeSequences(text, 0, 3));
+    }
+
+    
+    /**
+     * Test the repeatable toString which doesn't change the builder
+     */
+    @Test
+    public void testRepeatableToString() {
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED).append("a");
+        int length = builder.length();
+        String result = builder.toString();
+        assertEquals("\u001B[31ma\u001B[0m", result);
+        assertSame(result, builder.toString());
+        assertEquals(length, builder.length());
+        assertEquals("\u001B[31ma", builder.toString(false));
+        assertEquals("a", builder.toString(true, true));
+
+        builder.append("b");
+        assertEquals("\u001B[31mab\u001B[0m", builder.toString());
+        builder.setLength(0);
+        builder.append("xy");
+        assertEquals("xy", builder.toString());
+
+        // the reset is only added if a style is active
+        assertEquals("\u001B[31mx\u001B[39m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, "x").toString());
+        assertEquals("\u001B[1;4mx\u001B[22;24m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).ansi("1;4").append("x").ansi("22;24").toString());
+        assertEquals("\u001B[38;5;1mx\u001B[39m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color8(1, "x").toString());
+        assertEquals("\u001B[48;2;1;2;3mx\u001B[0m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).backgroundColor24(1, 2, 3).append("x").toString());
+        assertEquals("\u001B[1mx\u001B[2;22m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).ansi("1").append("x").ansi("2;22").toString());
+        assertEquals("\u001B[1mx\u001B[22;1m\u001B[0m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).ansi("1").append("x").ansi("22;1").toString());
+        assertEquals("x", new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF).color(ForegroundColor.RED).append("x").toString());
+
+        // segment mode
+        builder = new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED).append("a");
+        result = builder.toString();
+        assertSame(result, builder.toString());
+        builder.append("b");
+        assertEquals("\u001B[31mab\u001B[39m", builder.toString());
+        assertEquals("\u001B[31mab", builder.toString(false));
+    }
+
+    
+    /**
+     * Test the hyperlinks and the width of the visible text
+     */
+    @Test
+    public void testHyperlink() {
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).append("see ").hyperlink("https://toolarium.github.io", "docs")
+                .append(" or ").hyperlink("file:///tmp/build.log", sb -> sb.bold("log"));
+        assertEquals("see \u001B]8;;https://toolarium.github.io\u001B\\docs\u001B]8;;\u001B\\ or \u001B]8;;file:///tmp/build.log\u001B\\\u001B[1mlog\u001B[22m\u001B]8;;\u001B\\",
+                     builder.toString());
+        assertEquals("see docs or log", builder.toString(true, true));
+        assertEquals(15, builder.width());
+
+        assertEquals("see docs", new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF).append("see ").hyperlink("https://toolarium.github.io", "docs").toString());
+        assertEquals("see docs", new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.ON).append("see ").hyperlink("https://toolarium.github.io", "docs").toString());
+        assertThrows(IllegalArgumentException.class, () -> new AnsiStringBuilder().hyperlink("https://x\u0007", "docs"));
+        assertThrows(IllegalArgumentException.class, () -> new AnsiStringBuilder().hyperlink(null, "docs"));
+
+        assertEquals(0, new AnsiStringBuilder().width());
+        assertEquals(6, new AnsiStringBuilder("\u001B[31m日本語\u001B[0m").width());
+        assertEquals(4, new AnsiStringBuilder("e\u0301a\uD83D\uDE00").width());
+    }
 }
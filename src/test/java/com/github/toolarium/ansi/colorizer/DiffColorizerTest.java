@@ -0,0 +1,91 @@
+/*
+ * DiffColorizerTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.toolarium.ansi.AnsiColor;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link DiffColorizer}.
+ *
+ * @author patrick
+ */
+public class DiffColorizerTest {
+
+    /**
+     * Test the colorize of a diff
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testColorize() throws IOException {
+        String diff = "diff --git a/a.txt b/a.txt\n"
+                      + "--- a/a.txt\n"
+                      + "+++ b/a.txt\n"
+                      + "@@ -1,3 +1,3 @@\n"
+                      + " same\n"
+                      + "-the quick fox\n"
+                      + "+the slow fox\n"
+                      + "--- removed\n"
+                      + "info\n";
+
+        String expected = "\u001B[1mdiff --git a/a.txt b/a.txt\u001B[22m\n"
+                          + "\u001B[1m--- a/a.txt\u001B[22m\n"
+                          + "\u001B[1m+++ b/a.txt\u001B[22m\n"
+                          + "\u001B[36m@@ -1,3 +1,3 @@\u001B[39m\n"
+                          + " same\n"
+                          + "\u001B[31m-the \u001B[48;5;52mquick\u001B[49m fox\u001B[39m\n"
+                          + "\u001B[32m+the \u001B[48;5;22mslow\u001B[49m fox\u001B[39m\n"
+                          + "\u001B[31m--- removed\u001B[39m\n"
+                          + "info\n";
+
+        StringWriter writer = new StringWriter();
+        new DiffColorizer().setAnsiColor(AnsiColor.ON).colorize(new StringReader(diff), writer);
+        assertEquals(expected, writer.toString());
+
+        writer = new StringWriter();
+        new DiffColorizer().setAnsiColor(AnsiColor.OFF).colorize(new StringReader(diff), writer);
+        assertEquals(diff, writer.toString());
+    }
+
+    
+    /**
+     * Test the word difference
+     */
+    @Test
+    public void testWordDiff() {
+        boolean[] changes = diff("a b c d e f", "a x b c d f g h");
+        assertEquals(11, changes.length);
+        assertEquals(true, changes[8]);
+        assertEquals(false, changes[4]);
+        assertArrayEquals(new boolean[] {false, false, true, true, false}, diff("a b c", "a c"));
+        assertArrayEquals(new boolean[] {true, true, true}, diff("x y", "z"));
+        assertArrayEquals(new boolean[0], diff("", "abc"));
+    }
+
+    
+    /**
+     * Get the changed tokens of the first line
+     *
+     * @param removed the removed line
+     * @param added the added line
+     * @return the changed tokens of the removed line
+     */
+    private boolean[] diff(String removed, String added) {
+        int[] removedTokens = DiffColorizer.tokenize(removed, 0);
+        int[] addedTokens = DiffColorizer.tokenize(added, 0);
+        boolean[] removedChanges = new boolean[removedTokens.length - 1];
+        DiffColorizer.diff(removed, removedTokens, added, addedTokens, removedChanges, new boolean[addedTokens.length - 1]);
+        return removedChanges;
+    }
+}
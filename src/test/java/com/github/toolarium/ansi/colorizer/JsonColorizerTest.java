@@ -0,0 +1,137 @@
+/*
+ * JsonColorizerTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.AnsiColor;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link JsonColorizer}.
+ *
+ * @author patrick
+ */
+public class JsonColorizerTest {
+
+    /**
+     * Test the pretty print
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testPrettyPrint() throws IOException {
+        assertEquals("{\n  \"a\": [\n    1.5e3,\n    true,\n    \"x\\\"y\"\n  ],\n  \"b\": {},\n  \"c\": null\n}\n",
+                     colorize(new JsonColorizer().setAnsiColor(AnsiColor.OFF), " {\"a\":[1.5e3, true ,\"x\\\"y\"],\n\"b\":{ },\"c\":null}"));
+        assertEquals("[1,{\"a\":\"b\"}]\n2\n", colorize(new JsonColorizer().setAnsiColor(AnsiColor.OFF).setIndent(0), "[1, {\"a\" : \"b\"}] 2"));
+    }
+
+    
+    /**
+     * Test the colors
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testColor() throws IOException {
+        assertEquals("{\n  \u001B[1;34m\"a\"\u001B[22;39m: [\n    \u001B[36m1\u001B[39m,\n    \u001B[33mfalse\u001B[39m,\n    \u001B[32m\"x\"\u001B[39m\n  ]\n}\n",
+                     colorize(new JsonColorizer().setAnsiColor(AnsiColor.ON), "{\"a\":[1,false,\"x\"]}"));
+    }
+
+    
+    /**
+     * Test invalid documents
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows(IOException.class, () -> colorize(new JsonColorizer(), "{\"a\":1"));
+        assertThrows(IOException.class, () -> colorize(new JsonColorizer(), "[1}"));
+        assertThrows(IOException.class, () -> colorize(new JsonColorizer(), "{\"a\":\"b"));
+        assertThrows(IOException.class, () -> colorize(new JsonColorizer(), "{a:1}"));
+    }
+
+    
+    /**
+     * Test that a large document is streamed
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testStreaming() throws IOException {
+        final int size = 4 * 1024 * 1024;
+        Reader reader = new Reader() {
+            private int position;
+
+            @Override
+            public int read(char[] cbuf, int off, int len) {
+                if (position >= size + 2) {
+                    return -1;
+                }
+
+                int count = 0;
+                while (count < len && position < size + 2) {
+                    cbuf[off + count++] = (position == 0 || position == size + 1) ? '"' : 'x';
+                    position++;
+                }
+                return count;
+            }
+
+            @Override
+            public void close() {
+                // NOP
+            }
+        };
+
+        CountingWriter writer = new CountingWriter();
+        new JsonColorizer().setAnsiColor(AnsiColor.ON).colorize(reader, writer);
+        assertEquals(size + 2 + "\u001B[32m\u001B[39m\n".length(), writer.count);
+    }
+
+    
+    /**
+     * Colorize a document
+     *
+     * @param colorizer the colorizer
+     * @param json the document
+     * @return the result
+     * @throws IOException In case of an I/O error
+     */
+    private String colorize(JsonColorizer colorizer, String json) throws IOException {
+        StringWriter writer = new StringWriter();
+        colorizer.colorize(new StringReader(json), writer);
+        return writer.toString();
+    }
+
+    
+    /**
+     * Writer which only counts the characters
+     */
+    private static class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+            // NOP
+        }
+
+        @Override
+        public void close() {
+            // NOP
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * LogColorizerTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Test the {@link LogColorizer}.
+ *
+ * @author patrick
+ */
+public class LogColorizerTest {
+    private static final Logger LOG = LoggerFactory.getLogger(LogColorizerTest.class);
+    private static final AnsiStyle RED = AnsiStyle.of(ForegroundColor.RED);
+    private static final AnsiStyle YELLOW = AnsiStyle.of(ForegroundColor.YELLOW);
+    private static final AnsiStyle DIM = AnsiStyle.NONE.dim();
+
+    
+    /**
+     * Test keywords
+     */
+    @Test
+    public void testKeyword() {
+        LogColorizer colorizer = LogColorizer.builder().ansiColor(AnsiColor.ON)
+                .keyword("ERROR", RED, 1)
+                .keyword("WARN", YELLOW, 1)
+                .build();
+
+        assertEquals("a \u001B[31mERROR\u001B[39m and a \u001B[33mWARN\u001B[39m", colorizer.colorize("a ERROR and a WARN"));
+        assertEquals("nothing", colorizer.colorize("nothing"));
+        assertEquals("", colorizer.colorize(""));
+        assertEquals("a ERROR", LogColorizer.builder().ansiColor(AnsiColor.OFF).keyword("ERROR", RED, 1).build().colorize("a ERROR"));
+        assertEquals("ä \u001B[31mÉrror\u001B[39m", LogColorizer.builder().ansiColor(AnsiColor.ON).ignoreCase(true).keyword("éRROR", RED, 1).build().colorize("ä Érror"));
+    }
+
+    
+    /**
+     * Test the overlap resolution
+     */
+    @Test
+    public void testOverlap() {
+        // the higher priority wins
+        LogColorizer colorizer = LogColorizer.builder().ansiColor(AnsiColor.ON)
+                .keyword("he", RED, 1)
+                .keyword("hers", YELLOW, 0)
+                .keyword("she", DIM, 2)
+                .build();
+        assertEquals("u\u001B[2mshe\u001B[22mrs", colorizer.colorize("ushers"));
+
+        // same priority: the longer match wins
+        colorizer = LogColorizer.builder().ansiColor(AnsiColor.ON)
+                .keyword("he", RED, 1)
+                .keyword("hers", YELLOW, 1)
+                .pattern("[0-9]+", DIM, 1)
+                .build();
+        assertEquals("us\u001B[33mhers\u001B[39m \u001B[2m42\u001B[22m\u001B[31mhe\u001B[39m", colorizer.colorize("ushers 42he"));
+        assertEquals(3, colorizer.getRuleCount());
+
+        // equal keywords: the later rule with the higher priority wins
+        colorizer = LogColorizer.builder().ansiColor(AnsiColor.ON)
+                .keyword("ERROR", YELLOW, 0)
+                .keyword("ERROR", RED, 2)
+                .keyword("error", DIM, 1)
+                .build();
+        assertEquals("an \u001B[31mERROR\u001B[39m", colorizer.colorize("an ERROR"));
+        assertEquals("an \u001B[2merror\u001B[22m", colorizer.colorize("an error"));
+        assertEquals("an \u001B[31mError\u001B[39m", LogColorizer.builder().ansiColor(AnsiColor.ON).ignoreCase(true)
+                .keyword("error", DIM, 1).keyword("ERROR", RED, 2).build().colorize("an Error"));
+    }
+
+    
+    /**
+     * Test the colorize into a builder
+     */
+    @Test
+    public void testBuilder() {
+        LogColorizer colorizer = LogColorizer.builder().pattern("ERROR", RED.bold(), 1).pattern("\\d+ms", DIM, 0).build();
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON);
+        colorizer.colorize("ERROR after 12ms", builder);
+        assertEquals("\u001B[1;31mERROR\u001B[22;39m after \u001B[2m12ms\u001B[22m", builder.toString(false));
+
+        assertThrows(IllegalArgumentException.class, () -> LogColorizer.builder().keyword("", RED, 1));
+        assertThrows(IllegalArgumentException.class, () -> LogColorizer.builder().keyword("a", null, 1));
+    }
+
+    
+    /**
+     * Compare the throughput with the naive approach of one regular expression per rule
+     */
+    @Test
+    public void testThroughput() {
+        LogColorizer.Builder builder = LogColorizer.builder().ansiColor(AnsiColor.ON);
+        List<Pattern> naivePatterns = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String keyword = "keyword" + i;
+            builder.keyword(keyword, i % 2 == 0 ? RED : YELLOW, i % 3);
+            naivePatterns.add(Pattern.compile(Pattern.quote(keyword)));
+        }
+        LogColorizer colorizer = builder.build();
+
+        String[] lines = new String[1000];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "2024-06-28 12:00:" + (i % 60) + " [main] INFO com.github.toolarium.Test - message " + i + " with keyword" + (i % 70) + " in the middle of the line";
+        }
+
+        long naiveLength = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < 5; round++) {
+            for (String line : lines) {
+                AnsiStringBuilder result = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON);
+                String text = line;
+                for (int i = 0; i < naivePatterns.size(); i++) {
+                    Matcher m = naivePatterns.get(i).matcher(text);
+                    if (m.find()) {
+                        result.append(text.substring(0, m.start())).color(i % 2 == 0 ? ForegroundColor.RED : ForegroundColor.YELLOW, m.group());
+                        text = text.substring(m.end());
+                    }
+                }
+                naiveLength += result.append(text).toString(false).length();
+            }
+        }
+        long naive = System.nanoTime() - start;
+
+        long length = 0;
+        start = System.nanoTime();
+        for (int round = 0; round < 5; round++) {
+            for (String line : lines) {
+                length += colorizer.colorize(line).length();
+            }
+        }
+        long automaton = System.nanoTime() - start;
+
+        LOG.debug("Colorized " + (5 * lines.length) + " lines: naive " + (naive / 1000000) + "ms (" + naiveLength + " chars), automaton " + (automaton / 1000000) + "ms (" + length + " chars)");
+        assertEquals("2024-06-28 12:00:3 [main] INFO com.github.toolarium.Test - message 3 with \u001B[33mkeyword3\u001B[39m in the middle of the line", colorizer.colorize(lines[3]));
+        assertEquals(naiveLength, length);
+    }
+}
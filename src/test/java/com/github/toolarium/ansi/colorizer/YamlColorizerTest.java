@@ -0,0 +1,74 @@
+/*
+ * YamlColorizerTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.colorizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link YamlColorizer}.
+ *
+ * @author patrick
+ */
+public class YamlColorizerTest {
+
+    /**
+     * Test the colors
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testColor() throws IOException {
+        String yaml = "---\n"
+                      + "# comment\n"
+                      + "name: \"a: b\" # trailing\n"
+                      + "list:\n"
+                      + "  - 42\n"
+                      + "  - key: yes\n"
+                      + "text: |\n"
+                      + "  some: text\n"
+                      + "\n"
+                      + "plain: value";
+
+        String expected = "\u001B[2m---\u001B[22m\n"
+                          + "\u001B[2m# comment\u001B[22m\n"
+                          + "\u001B[34mname\u001B[39m\u001B[2m:\u001B[22m \u001B[32m\"a: b\"\u001B[39m \u001B[2m# trailing\u001B[22m\n"
+                          + "\u001B[34mlist\u001B[39m\u001B[2m:\u001B[22m\n"
+                          + "  \u001B[2m-\u001B[22m \u001B[36m42\u001B[39m\n"
+                          + "  \u001B[2m-\u001B[22m \u001B[34mkey\u001B[39m\u001B[2m:\u001B[22m \u001B[33myes\u001B[39m\n"
+                          + "\u001B[34mtext\u001B[39m\u001B[2m:\u001B[22m \u001B[2m|\u001B[22m\n"
+                          + "  \u001B[32msome: text\u001B[39m\n"
+                          + "\n"
+                          + "\u001B[34mplain\u001B[39m\u001B[2m:\u001B[22m \u001B[32mvalue\u001B[39m\n";
+
+        SyntaxStyles styles = SyntaxStyles.DEFAULT.key(AnsiStyle.of(ForegroundColor.BLUE)).punctuation(AnsiStyle.NONE.dim());
+        assertEquals(expected, colorize(new YamlColorizer().setAnsiColor(AnsiColor.ON).setStyles(styles), yaml));
+        assertEquals(yaml + "\n", colorize(new YamlColorizer().setAnsiColor(AnsiColor.OFF), yaml));
+    }
+
+    
+    /**
+     * Colorize a document
+     *
+     * @param colorizer the colorizer
+     * @param yaml the document
+     * @return the result
+     * @throws IOException In case of an I/O error
+     */
+    private String colorize(YamlColorizer colorizer, String yaml) throws IOException {
+        StringWriter writer = new StringWriter();
+        colorizer.colorize(new StringReader(yaml), writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * AnsiConsoleWriterTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiConsoleWriter}.
+ *
+ * @author patrick
+ */
+public class AnsiConsoleWriterTest {
+
+    /**
+     * Test the reset at the end of the lines and that the active style is set again at the start of the next line
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testLines() throws IOException {
+        StringWriter output = new StringWriter();
+        AnsiConsoleWriter writer = new AnsiConsoleWriter(output);
+        writer.write("\u001B[31mred");
+        assertEquals("", output.toString());
+        writer.write("\nstill red\n\u001B[1mbold\u001B[0m\r\n\nplain\n\u001B[4mpartial");
+        String lines = "\u001B[31mred\u001B[0m\n\u001B[31mstill red\u001B[0m\n\u001B[31m\u001B[1mbold\u001B[0m\r\n\nplain\n";
+        assertEquals(lines, output.toString());
+        writer.flush();
+        assertEquals(lines + "\u001B[4mpartial\u001B[0m", output.toString());
+        writer.write('x');
+        writer.write("\u001B[24m y\n");
+        writer.close();
+        assertEquals(lines + "\u001B[4mpartial\u001B[0m\u001B[4mx\u001B[24m y\n", output.toString());
+        assertThrows(IOException.class, () -> writer.write("closed"));
+    }
+
+    
+    /**
+     * Test that the active style of a thread is not set in the lines of other threads
+     *
+     * @throws Exception In case of an error
+     */
+    @Test
+    public void testStylePerThread() throws Exception {
+        StringWriter output = new StringWriter();
+        AnsiConsoleWriter writer = new AnsiConsoleWriter(output);
+        writer.write("\u001B[32mgreen\n");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                writer.write("other\n");
+                return null;
+            }).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        writer.write("green\n");
+        writer.flush();
+        assertEquals("\u001B[32mgreen\u001B[0m\nother\n\u001B[32mgreen\u001B[0m\n", output.toString());
+    }
+
+    
+    /**
+     * Test many threads which write their lines in several parts
+     *
+     * @throws Exception In case of an error
+     */
+    @Test
+    public void testConcurrentLines() throws Exception {
+        final int threadCount = 16;
+        final int lineCount = 500;
+        StringWriter output = new StringWriter();
+        AnsiConsoleWriter writer = new AnsiConsoleWriter(output);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < lineCount; i++) {
+                        writer.write("\u001B[38;5;" + thread + "m");
+                        writer.write("thread " + thread);
+                        writer.write(" line " + i + "\u001B[0m\n");
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        writer.flush();
+
+        Pattern pattern = Pattern.compile("\u001B\\[38;5;(\\d+)mthread (\\d+) line (\\d+)\u001B\\[0m");
+        Map<Integer, Integer> nextLine = new HashMap<>();
+        String[] lines = output.toString().split("\n");
+        assertEquals(threadCount * lineCount, lines.length);
+        for (String line : lines) {
+            Matcher matcher = pattern.matcher(line);
+            assertTrue(matcher.matches(), line);
+            int thread = Integer.parseInt(matcher.group(1));
+            assertEquals(thread, Integer.parseInt(matcher.group(2)));
+
+            int expectedLine = nextLine.getOrDefault(thread, 0);
+            assertEquals(expectedLine, Integer.parseInt(matcher.group(3)));
+            nextLine.put(thread, expectedLine + 1);
+        }
+    }
+
+    
+    /**
+     * Test that flush waits for a writing thread and that the producers wait in case the queue is full
+     *
+     * @throws Exception In case of an error
+     */
+    @Test
+    public void testWaitForWritingThread() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter output = new StringWriter() {
+            /**
+             * @see java.io.StringWriter#write(java.lang.String)
+             */
+            @Override
+            public void write(String str) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(str);
+            }
+        };
+
+        AnsiConsoleWriter writer = new AnsiConsoleWriter(output, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> first = executor.submit(() -> {
+                writer.write("first\n");
+                return null;
+            });
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            writer.write("second\n");
+            Future<?> flush = executor.submit(() -> {
+                writer.flush();
+                return null;
+            });
+            Future<?> producer = executor.submit(() -> {
+                for (int i = 0; i < 5; i++) {
+                    writer.write("line " + i + "\n");
+                }
+                return null;
+            });
+
+            Thread.sleep(100);
+            assertFalse(flush.isDone());
+            assertFalse(producer.isDone());
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            flush.get(5, TimeUnit.SECONDS);
+            producer.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        writer.close();
+        assertEquals("first\nsecond\nline 0\nline 1\nline 2\nline 3\nline 4\n", output.toString());
+        assertThrows(IllegalArgumentException.class, () -> new AnsiConsoleWriter(new StringWriter(), 0));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * AnsiFileStripperTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiFileStripper}.
+ *
+ * @author patrick
+ */
+public class AnsiFileStripperTest {
+
+    /**
+     * Test the stripping with small chunks, the escape sequences are split at the nominal chunk boundaries
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testStrip() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("\u001B[1;38;2;").append(i % 256).append(";20;30mline ").append(i).append(" äöü\u001B[0m");
+            if (i % 7 == 0) {
+                text.append("\u001B[4m").append("no new line");
+            } else {
+                text.append(System.lineSeparator());
+            }
+        }
+        text.append("\u001B[");
+
+        for (int chunkSize : new int[] {1, 5, 13, 64, 1000, AnsiFileStripper.DEFAULT_CHUNK_SIZE}) {
+            assertStrip(text.toString(), new AnsiFileStripper().setChunkSize(chunkSize));
+            assertStrip(text.toString(), new AnsiFileStripper().setChunkSize(chunkSize).setParallel(false));
+        }
+    }
+
+    
+    /**
+     * Test the stripping of an empty file and a file without escape sequences
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testStripPlain() throws IOException {
+        assertStrip("", new AnsiFileStripper());
+        assertStrip("plain text\nwithout escape sequences\n", new AnsiFileStripper().setChunkSize(4));
+        assertThrows(IllegalArgumentException.class, () -> new AnsiFileStripper().setChunkSize(0));
+    }
+
+    
+    /**
+     * Strip a text with a file and compare it with the in memory stripped text
+     *
+     * @param text the text
+     * @param stripper the stripper
+     * @throws IOException In case of an I/O error
+     */
+    private void assertStrip(String text, AnsiFileStripper stripper) throws IOException {
+        Path source = Files.createTempFile("ansi-source", ".log");
+        Path target = Files.createTempFile("ansi-target", ".log");
+        try {
+            Files.write(source, text.getBytes(StandardCharsets.UTF_8));
+            Files.write(target, "previous content which is longer".getBytes(StandardCharsets.UTF_8));
+            String expected = AnsiEscapeScanner.strip(text);
+            long size = stripper.strip(source, target);
+            assertEquals(expected, new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+            assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, size);
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * AnsiStrippingInputStreamTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiStrippingInputStream}.
+ *
+ * @author patrick
+ */
+public class AnsiStrippingInputStreamTest {
+    private static final byte[] TEXT = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color(ForegroundColor.GREEN, "grün").append(" ")
+            .append("\u001B]0;title\u001B\\").underline("äöü").append("\n").toString(false).getBytes(StandardCharsets.UTF_8);
+
+
+    /**
+     * Test the bulk read with different buffer sizes
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testRead() throws IOException {
+        for (int bufferSize : new int[] {1, 2, 3, 7, 4096}) {
+            assertEquals("grün äöü\n", readAll(new AnsiStrippingInputStream(new ByteArrayInputStream(TEXT)), bufferSize));
+        }
+
+        try (InputStream inputStream = new AnsiStrippingInputStream(new ByteArrayInputStream(TEXT))) {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            int b;
+            while ((b = inputStream.read()) >= 0) {
+                result.write(b);
+            }
+            assertEquals("grün äöü\n", new String(result.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        try (InputStream inputStream = new AnsiStrippingInputStream(new ByteArrayInputStream(TEXT))) {
+            assertEquals(6, inputStream.skip(6));
+            assertEquals("äöü\n", readAll(inputStream, 2));
+        }
+    }
+
+
+    /**
+     * Read all bytes
+     *
+     * @param inputStream the input stream
+     * @param bufferSize the buffer size
+     * @return the text
+     * @throws IOException In case of an I/O error
+     */
+    private String readAll(InputStream inputStream, int bufferSize) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[bufferSize];
+        try (InputStream in = inputStream) {
+            int count;
+            while ((count = in.read(buffer)) >= 0) {
+                result.write(buffer, 0, count);
+            }
+        }
+        return new String(result.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * AnsiStrippingReaderTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiStrippingReader}.
+ *
+ * @author patrick
+ */
+public class AnsiStrippingReaderTest {
+    private static final String TEXT = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, "error").append(": ").bold("failed")
+            .append("\u001B]8;;https://toolarium.github.io\u0007link\u001B]8;;\u001B\\ ").color24(10, 20, 30, "done\n").toString(false);
+
+
+    /**
+     * Test the bulk read
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testRead() throws IOException {
+        assertEquals("error: failedlink done\n", readAll(new AnsiStrippingReader(new StringReader(TEXT)), 4096));
+        assertEquals("error: failedlink done\n", readAll(new AnsiStrippingReader(new StringReader(TEXT)), 3));
+        assertEquals("plain", readAll(new AnsiStrippingReader(new StringReader("plain")), 2));
+        assertEquals("", readAll(new AnsiStrippingReader(new StringReader("\u001B[0m")), 2));
+    }
+
+
+    /**
+     * Test escape sequences which are split over several reads of the underlying reader
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testSplitSequence() throws IOException {
+        Reader slowReader = new Reader() {
+            private int position;
+
+            /** @see java.io.Reader#read(char[], int, int) */
+            @Override
+            public int read(char[] cbuf, int off, int len) {
+                if (position >= TEXT.length()) {
+                    return -1;
+                }
+                cbuf[off] = TEXT.charAt(position++);
+                return 1;
+            }
+
+            /** @see java.io.Reader#close() */
+            @Override
+            public void close() {
+                // NOP
+            }
+        };
+        assertEquals("error: failedlink done\n", readAll(new AnsiStrippingReader(slowReader), 16));
+
+        try (AnsiStrippingReader reader = new AnsiStrippingReader(new StringReader(TEXT))) {
+            StringBuilder result = new StringBuilder();
+            int c;
+            while ((c = reader.read()) >= 0) {
+                result.append((char) c);
+            }
+            assertEquals("error: failedlink done\n", result.toString());
+        }
+
+        try (AnsiStrippingReader reader = new AnsiStrippingReader(new StringReader(TEXT))) {
+            assertEquals(7, reader.skip(7));
+            assertEquals('f', reader.read());
+        }
+    }
+
+
+    /**
+     * Read all characters
+     *
+     * @param reader the reader
+     * @param bufferSize the buffer size
+     * @return the characters
+     * @throws IOException In case of an I/O error
+     */
+    private String readAll(Reader reader, int bufferSize) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[bufferSize];
+        try (Reader r = reader) {
+            int count;
+            while ((count = r.read(buffer, 1, bufferSize - 1)) >= 0) {
+                result.append(buffer, 1, count);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * AnsiTeeWriterTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiTeeWriter}.
+ *
+ * @author patrick
+ */
+public class AnsiTeeWriterTest {
+
+    /**
+     * Test the colored and the plain output
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testTee() throws IOException {
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON)
+                .color(ForegroundColor.RED, "error").append(": ").bold("failed").append(System.lineSeparator());
+
+        StringWriter colored = new StringWriter();
+        StringWriter plain = new StringWriter();
+        try (AnsiTeeWriter writer = new AnsiTeeWriter(colored, plain)) {
+            builder.writeTo(writer);
+        }
+
+        assertEquals(builder.toString(false), colored.toString());
+        assertEquals(builder.toString(false, true), plain.toString());
+        assertEquals("error: failed" + System.lineSeparator(), plain.toString());
+    }
+
+    
+    /**
+     * Test escape sequences which are split over several writes
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testSplitSequence() throws IOException {
+        String text = "a\u001B[38;5;196mb\u001B[0mc\u001B[?25hd";
+        StringWriter colored = new StringWriter();
+        StringWriter plain = new StringWriter();
+        AnsiTeeWriter writer = new AnsiTeeWriter(colored, 2, plain, 1).setColoredFlushPolicy(AnsiTeeWriter.FlushPolicy.EXPLICIT);
+        for (int i = 0; i < text.length(); i++) {
+            writer.write(text.charAt(i));
+        }
+        assertEquals("abc", plain.toString());
+        writer.write(text.toCharArray(), 0, 5);
+        writer.write(text, 5, text.length() - 5);
+        writer.flush();
+        assertEquals(text + text, colored.toString());
+        assertEquals("abcdabcd", plain.toString());
+
+        writer.close();
+        assertThrows(IOException.class, () -> writer.write("x"));
+        assertThrows(IOException.class, () -> writer.write(""));
+    }
+
+    
+    /**
+     * Test that a short first string doesn't split the later strings into chunks
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testStringChunks() throws IOException {
+        AtomicInteger flushCount = new AtomicInteger();
+        StringWriter colored = new StringWriter() {
+            /**
+             * @see java.io.StringWriter#flush()
+             */
+            @Override
+            public void flush() {
+                flushCount.incrementAndGet();
+            }
+        };
+
+        String text = "\u001B[1m" + "x".repeat(200) + "\u001B[0m";
+        AnsiTeeWriter writer = new AnsiTeeWriter(colored, new StringWriter()).setColoredFlushPolicy(AnsiTeeWriter.FlushPolicy.IMMEDIATE);
+        writer.write("\n");
+        flushCount.set(0);
+        writer.write(text);
+        assertEquals(1, flushCount.get());
+        assertEquals("\n" + text, colored.toString());
+        writer.close();
+    }
+
+    
+    /**
+     * Test the flush policies
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testFlushPolicy() throws IOException {
+        StringWriter colored = new StringWriter();
+        StringWriter plain = new StringWriter();
+        AnsiTeeWriter writer = new AnsiTeeWriter(colored, plain);
+        writer.write("\u001B[1mline");
+        assertEquals("", colored.toString());
+        writer.write("\n");
+        assertEquals("\u001B[1mline\n", colored.toString());
+        assertEquals("", plain.toString());
+
+        writer.setPlainFlushPolicy(AnsiTeeWriter.FlushPolicy.IMMEDIATE).write("x");
+        assertEquals("line\nx", plain.toString());
+        writer.close();
+    }
+
+    
+    /**
+     * Test the strip function of the scanner
+     */
+    @Test
+    public void testStrip() {
+        assertEquals("abc", AnsiEscapeScanner.strip("abc"));
+        assertEquals("ab", AnsiEscapeScanner.strip("\u001B[1;31ma\u001B[22;39mb\u001B[0m"));
+        assertEquals("a1b", AnsiEscapeScanner.strip("a\u001B[!1b"));
+        assertEquals("a1", AnsiEscapeScanner.strip("a\u001B1"));
+        assertEquals(null, AnsiEscapeScanner.strip(null));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * AnsiMetricsTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiFragment;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiMetrics}.
+ *
+ * @author patrick
+ */
+public class AnsiMetricsTest {
+
+    /**
+     * Test the counters and the snapshot
+     */
+    @Test
+    public void testSnapshot() {
+        AnsiMetrics metrics = AnsiMetrics.getInstance();
+        AnsiMetricsSnapshot before = metrics.snapshot();
+        metrics.recordEscapeSequence(5);
+        metrics.recordEscapeSequence(4);
+        metrics.recordText(10);
+        metrics.recordStrip(9);
+        metrics.recordDetection();
+        metrics.recordAutoDetection();
+        metrics.recordBufferGrowth();
+
+        AnsiMetricsSnapshot delta = metrics.snapshot().minus(before);
+        assertEquals(2, delta.getEscapeSequenceCount());
+        assertEquals(9, delta.getEscapeCharacterCount());
+        assertEquals(10, delta.getTextCharacterCount());
+        assertEquals(1, delta.getStripCount());
+        assertEquals(9, delta.getStrippedCharacterCount());
+        assertEquals(1, delta.getDetectionCount());
+        assertEquals(1, delta.getAutoDetectionCount());
+        assertEquals(1, delta.getBufferGrowthCount());
+    }
+
+    
+    /**
+     * Test the instrumentation of the call sites. The metrics are read once when the class is loaded, this test runs in
+     * the forked test JVM of the task {@code metricsTest} with {@code -Dtoolarium.ansi.metrics=true}.
+     */
+    @Test
+    public void testCallSites() {
+        assumeTrue(AnsiMetrics.ENABLED, "the metrics are disabled");
+
+        AnsiMetricsSnapshot before = AnsiMetrics.getInstance().snapshot();
+        AnsiStringBuilder builder = new AnsiStringBuilder(4).setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, "error").append(" text");
+        assertEquals("error text", builder.toString(false, true));
+
+        AnsiMetricsSnapshot delta = AnsiMetrics.getInstance().snapshot().minus(before);
+        assertEquals(10, delta.getTextCharacterCount());
+        assertEquals(2, delta.getEscapeSequenceCount());
+        assertEquals(builder.length() - 10, delta.getEscapeCharacterCount());
+        assertEquals(1, delta.getStripCount());
+        assertEquals(builder.length() - 10, delta.getStrippedCharacterCount());
+        assertTrue(delta.getBufferGrowthCount() > 0);
+
+        // a fragment records the same sequences as the style
+        AnsiStyle style = AnsiStyle.of(ForegroundColor.RED).bold();
+        AnsiFragment fragment = AnsiFragment.of(style, "error");
+        before = AnsiMetrics.getInstance().snapshot();
+        new AnsiStringBuilder(64).setAnsiColor(AnsiColor.ON).style(style, "error");
+        AnsiMetricsSnapshot styleDelta = AnsiMetrics.getInstance().snapshot().minus(before);
+        before = AnsiMetrics.getInstance().snapshot();
+        new AnsiStringBuilder(64).setAnsiColor(AnsiColor.ON).append(fragment);
+        delta = AnsiMetrics.getInstance().snapshot().minus(before);
+        assertEquals(2, styleDelta.getEscapeSequenceCount());
+        assertEquals(styleDelta.getEscapeSequenceCount(), delta.getEscapeSequenceCount());
+        assertEquals(styleDelta.getEscapeCharacterCount(), delta.getEscapeCharacterCount());
+        assertEquals(styleDelta.getTextCharacterCount(), delta.getTextCharacterCount());
+
+        before = AnsiMetrics.getInstance().snapshot();
+        assertEquals("plain", AnsiEscapeScanner.strip("plain"));
+        AnsiColor.AUTO.isEnabled();
+        delta = AnsiMetrics.getInstance().snapshot().minus(before);
+        assertEquals(1, delta.getStripCount());
+        assertEquals(0, delta.getStrippedCharacterCount());
+        assertTrue(delta.getDetectionCount() >= 1);
+    }
+
+    
+    /**
+     * Test that nothing is recorded by the call sites in case the metrics are disabled
+     */
+    @Test
+    public void testDisabled() {
+        assumeFalse(AnsiMetrics.ENABLED, "the metrics are enabled");
+
+        AnsiMetricsSnapshot before = AnsiMetrics.getInstance().snapshot();
+        AnsiStringBuilder builder = new AnsiStringBuilder(4).setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, "error").append(" text");
+        assertEquals("error text", builder.toString(false, true));
+
+        AnsiMetricsSnapshot delta = AnsiMetrics.getInstance().snapshot().minus(before);
+        assertEquals(0, delta.getTextCharacterCount());
+        assertEquals(0, delta.getEscapeSequenceCount());
+        assertEquals(0, delta.getStripCount());
+        assertEquals(0, delta.getBufferGrowthCount());
+    }
+
+    
+    /**
+     * Test the MXBean
+     *
+     * @throws JMException In case of a JMX error
+     */
+    @Test
+    public void testMXBean() throws JMException {
+        assertTrue(AnsiMetrics.getInstance().register());
+        assertTrue(AnsiMetrics.getInstance().register());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(AnsiMetrics.OBJECT_NAME);
+        assertTrue(server.isRegistered(objectName));
+        assertEquals(AnsiMetrics.ENABLED, server.getAttribute(objectName, "Enabled"));
+        assertEquals(AnsiMetrics.getInstance().getStripCount(), server.getAttribute(objectName, "StripCount"));
+    }
+}
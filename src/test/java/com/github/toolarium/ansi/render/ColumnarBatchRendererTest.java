@@ -0,0 +1,95 @@
+/*
+ * ColumnarBatchRendererTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link ColumnarBatchRenderer}.
+ *
+ * @author patrick
+ */
+public class ColumnarBatchRendererTest {
+
+    /**
+     * Test the rendering of a small table
+     */
+    @Test
+    public void testRender() {
+        int[] ids = {1, -20, Integer.MIN_VALUE};
+        long[] amounts = {0L, 12345678901L, Long.MIN_VALUE};
+        String[] names = {"a", null, "ü€"};
+
+        ColumnarBatchRenderer renderer = new ColumnarBatchRenderer().addColumn(ids, AnsiStyle.NONE.bold()).addColumn(amounts, null).addColumn(names, AnsiStyle.of(ForegroundColor.GREEN));
+        assertEquals("1 0 a\n-20 12345678901 \n-2147483648 -9223372036854775808 ü€\n", renderer.setAnsiColor(AnsiColor.OFF).render());
+        assertEquals("\u001B[1m1\u001B[22m 0 \u001B[32ma\u001B[39m\n",
+                     new ColumnarBatchRenderer().setAnsiColor(AnsiColor.ON).addColumn(1, (out, row) -> out.append(ids[row]), AnsiStyle.NONE.bold())
+                         .addColumn(new long[] {0L}, AnsiStyle.NONE).addColumn(new String[] {"a"}, AnsiStyle.of(ForegroundColor.GREEN)).render());
+
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarBatchRenderer().addColumn(ids, null).addColumn(new int[2], null));
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarBatchRenderer().setBlockSize(0));
+
+        // the estimated capacity of millions of rows doesn't overflow
+        ColumnarBatchRenderer wide = new ColumnarBatchRenderer().addColumn(40_000_000, (out, row) -> out.append(row), AnsiStyle.of(ForegroundColor.GREEN))
+                .addColumn(40_000_000, (out, row) -> out.append(row), AnsiStyle.NONE.bold()).addColumn(40_000_000, (out, row) -> out.append(row), null);
+        assertEquals(Integer.MAX_VALUE - 8, wide.estimateCapacity(40_000_000, true));
+        assertEquals(30 * (3 * 16 + 2 + 1), wide.setSeparator(" ").setLineSeparator("\n").estimateCapacity(30, false));
+    }
+
+    
+    /**
+     * Test that the parallel rendering to a stream creates the same result as the sequential rendering
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testParallel() throws IOException {
+        int rows = 10000;
+        int[] ids = new int[rows];
+        long[] values = new long[rows];
+        String[] names = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = i;
+            values[i] = (long) i * i * i * 1000;
+            names[i] = i % 7 == 0 ? "€" + i : "n" + i;
+        }
+
+        ColumnarBatchRenderer renderer = new ColumnarBatchRenderer().setAnsiColor(AnsiColor.ON).setBlockSize(97).setSeparator(" | ")
+                .addColumn(ids, AnsiStyle.NONE.bold()).addColumn(values, AnsiStyle.of(ForegroundColor.CYAN)).addColumn(names, AnsiStyle.NONE);
+        String expected = renderer.render();
+
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        long size = renderer.render(parallel);
+        assertEquals(expected, new String(parallel.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(parallel.size(), size);
+
+        Path file = Files.createTempFile("ansi-table", ".txt");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            renderer.render(channel);
+            assertEquals(expected, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        renderer.setParallel(false).render(sequential);
+        assertEquals(expected, new String(sequential.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * HalfBlockImageRendererTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.util.AnsiEscapeScanner;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link HalfBlockImageRenderer}.
+ *
+ * @author patrick
+ */
+public class HalfBlockImageRendererTest {
+    private static final int RED = 0xffff0000;
+    private static final int GREEN = 0xff00ff00;
+    private static final int BLUE = 0xff0000ff;
+    private static final int NONE = 0x00000000;
+
+    
+    /**
+     * Test the rendering of a small image
+     */
+    @Test
+    public void testRender() {
+        int[] image = {RED, RED, NONE, GREEN,
+                       RED, BLUE, GREEN, GREEN,
+                       GREEN, NONE, NONE, NONE};
+
+        String result = new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).render(image, 4, 3);
+        assertEquals("\u001B[48;2;255;0;0m \u001B[38;2;255;0;0m\u001B[48;2;0;0;255m▀\u001B[38;2;0;255;0m\u001B[49m▄\u001B[48;2;0;255;0m \u001B[0m\n"
+                     + "\u001B[38;2;0;255;0m▀   \u001B[0m\n", result);
+
+        result = new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).setColor8(true).render(image, 4, 3);
+        assertEquals("\u001B[48;5;196m \u001B[38;5;196m\u001B[48;5;21m▀\u001B[38;5;46m\u001B[49m▄\u001B[48;5;46m \u001B[0m\n"
+                     + "\u001B[38;5;46m▀   \u001B[0m\n", result);
+
+        assertEquals(" ▀▄ \n▀   \n", new HalfBlockImageRenderer().setAnsiColor(AnsiColor.OFF).render(image, 4, 3));
+        assertEquals(" ▀▄ \n▀   \n", new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).render(new AnsiStringBuilder(), image, 4, 3).toString(false, true));
+    }
+
+    
+    /**
+     * Test that the settings of the target builder apply
+     */
+    @Test
+    public void testBuilder() {
+        int[] image = {RED, RED, NONE, GREEN,
+                       RED, BLUE, GREEN, GREEN};
+
+        String expected = new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).render(image, 4, 2);
+        assertEquals(expected, new HalfBlockImageRenderer().render(new AnsiStringBuilder().setAnsiColor(AnsiColor.ON), image, 4, 2).toString());
+        assertEquals(" ▀▄ \n", new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).render(new AnsiStringBuilder().setAnsiColor(AnsiColor.OFF), image, 4, 2).toString());
+
+        AnsiStringBuilder segments = new AnsiStringBuilder().setSegmentMode(true).setAnsiColor(AnsiColor.OFF);
+        new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).render(segments, image, 4, 2);
+        assertEquals(" ▀▄ \n", segments.toString());
+        assertEquals(" ▀▄ \n", segments.toString(false, true));
+        assertEquals(AnsiEscapeScanner.strip(expected), AnsiEscapeScanner.strip(segments.setAnsiColor(AnsiColor.ON).toString()));
+    }
+
+    
+    /**
+     * Test that the parallel rendering creates the same result as the sequential rendering
+     */
+    @Test
+    public void testParallel() {
+        int width = 200;
+        int height = 100;
+        int[] image = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image[y * width + x] = 0xff000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8 | (x / 20 % 2 == 0 ? 0x40 : 0);
+            }
+        }
+
+        String sequential = new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).setParallel(false).render(image, width, height);
+        assertEquals(sequential, new HalfBlockImageRenderer().setAnsiColor(AnsiColor.ON).render(image, width, height));
+        assertEquals(height / 2, sequential.split("\n").length);
+    }
+
+    
+    /**
+     * Test invalid input
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new HalfBlockImageRenderer().render(new int[3], 2, 2));
+        assertEquals("", new HalfBlockImageRenderer().render(new int[0], 0, 0));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * AnsiThemeRegistryTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.theme;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.AnsiStyle;
+import com.github.toolarium.ansi.color.BackgroundColor;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiThemeRegistry}.
+ *
+ * @author patrick
+ */
+public class AnsiThemeRegistryTest {
+
+    /**
+     * Test the style specification
+     */
+    @Test
+    public void testParseStyle() {
+        assertEquals(AnsiStyle.of(ForegroundColor.RED).bold(), AnsiStyle.parse("bold red"));
+        assertEquals(AnsiStyle.of(ForegroundColor.LIGHT_BLUE, BackgroundColor.BLACK).underline(), AnsiStyle.parse(" Light_Blue, underline on black "));
+        assertEquals(AnsiStyle.NONE.foreground24("#5f87ff").background8(236).italic().strikeThrough(), AnsiStyle.parse("#5F87FF on 236 italic strikethrough"));
+        assertEquals(AnsiStyle.NONE.foreground8(208).dim().invertColor(), AnsiStyle.parse("208 dim invert"));
+        assertEquals(AnsiStyle.NONE, AnsiStyle.parse("none"));
+        assertEquals(AnsiStyle.NONE, AnsiStyle.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> AnsiStyle.parse("purple"));
+        assertThrows(IllegalArgumentException.class, () -> AnsiStyle.parse("red on"));
+        assertThrows(IllegalArgumentException.class, () -> AnsiStyle.parse("256"));
+        assertThrows(IllegalArgumentException.class, () -> AnsiStyle.parse("#12345"));
+    }
+
+    
+    /**
+     * Test the lookup of the styles and the replacement of the theme
+     *
+     * @throws IOException In case of an I/O error
+     */
+    @Test
+    public void testRegistry() throws IOException {
+        AnsiThemeRegistry registry = new AnsiThemeRegistry();
+        AnsiThemeKey error = registry.key("error");
+        AnsiThemeKey muted = registry.key("muted");
+        assertSame(error, registry.key(" error "));
+        assertEquals(0, error.getId());
+        assertEquals(1, muted.getId());
+        assertEquals(AnsiStyle.NONE, error.getStyle());
+
+        registry.setTheme(AnsiTheme.load(new StringReader("# test theme\nerror = bold red\nmuted = dim\nkey = #5f87ff\n")));
+        assertEquals(AnsiStyle.parse("bold red"), error.getStyle());
+        assertEquals(AnsiStyle.NONE.dim(), muted.getStyle());
+        assertEquals(AnsiStyle.NONE.foreground24("#5f87ff"), registry.key("key").getStyle());
+        assertEquals(AnsiStyle.NONE, registry.key("warn").getStyle());
+        assertEquals("\u001B[1;31mfailed\u001B[22;39m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).style(error.getStyle(), "failed").toString(false));
+
+        AnsiTheme theme = registry.getTheme().style("error", AnsiStyle.of(ForegroundColor.LIGHT_RED)).style("warn", "yellow");
+        registry.setTheme(theme);
+        assertEquals(AnsiStyle.of(ForegroundColor.LIGHT_RED), error.getStyle());
+        assertEquals(AnsiStyle.of(ForegroundColor.YELLOW), registry.getStyle("warn"));
+        assertEquals(AnsiStyle.NONE, registry.getStyle("unknown"));
+
+        assertThrows(IllegalArgumentException.class, () -> AnsiTheme.EMPTY.style("error", "bold purple"));
+        assertThrows(IllegalArgumentException.class, () -> new AnsiThemeRegistry().getStyle(error));
+        assertThrows(IllegalArgumentException.class, () -> registry.key(" "));
+    }
+}
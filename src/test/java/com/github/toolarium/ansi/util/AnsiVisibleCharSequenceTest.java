@@ -0,0 +1,76 @@
+/*
+ * AnsiVisibleCharSequenceTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.color.ForegroundColor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link AnsiVisibleCharSequence}.
+ *
+ * @author patrick
+ */
+public class AnsiVisibleCharSequenceTest {
+
+    /**
+     * Test the visible characters
+     */
+    @Test
+    public void testVisibleCharacters() {
+        String styled = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).color(ForegroundColor.RED, "error").append(": ").bold("failed").append(" in ")
+                .underline("test").toString(false);
+        String plain = AnsiEscapeScanner.strip(styled);
+        AnsiVisibleCharSequence visible = new AnsiVisibleCharSequence(styled);
+
+        assertEquals(plain.length(), visible.length());
+        for (int i = 0; i < plain.length(); i++) {
+            assertEquals(plain.charAt(i), visible.charAt(i));
+        }
+        for (int i = plain.length() - 1; i >= 0; i--) {
+            assertEquals(plain.charAt(i), visible.charAt(i));
+        }
+        assertEquals(plain, visible.toString());
+        assertEquals(5, visible.getRunCount());
+        assertEquals(styled.indexOf("failed"), visible.getRawIndex(plain.indexOf("failed")));
+
+        assertEquals("ror: fai", visible.subSequence(2, 10).toString());
+        assertEquals("r: f", visible.subSequence(2, 10).subSequence(2, 6).toString());
+        assertEquals('f', visible.subSequence(2, 10).charAt(5));
+        assertEquals("", visible.subSequence(3, 3).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> visible.charAt(plain.length()));
+        assertThrows(IndexOutOfBoundsException.class, () -> visible.subSequence(2, 10).charAt(8));
+        assertThrows(IndexOutOfBoundsException.class, () -> visible.subSequence(5, 2));
+    }
+
+    
+    /**
+     * Test a regular expression on the visible characters
+     */
+    @Test
+    public void testPattern() {
+        String styled = "\u001B[31mfail\u001B[0med \u001B]8;;https://toolarium.github.io\u0007tests\u001B]8;;\u001B\\";
+        AnsiVisibleCharSequence visible = new AnsiVisibleCharSequence(styled);
+        Matcher matcher = Pattern.compile("failed (\\w+)").matcher(visible);
+        assertTrue(matcher.find());
+        assertEquals("tests", matcher.group(1));
+        assertEquals(styled.indexOf("tests"), visible.getRawIndex(matcher.start(1)));
+        assertTrue(visible.toString().contains("ed t"));
+
+        assertEquals("plain", new AnsiVisibleCharSequence("plain").toString());
+        assertEquals(1, new AnsiVisibleCharSequence("plain").getRunCount());
+        assertEquals(0, new AnsiVisibleCharSequence("\u001B[0m").length());
+        assertEquals(0, new AnsiVisibleCharSequence("").getRunCount());
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * TerminalSizeUtilTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link TerminalSizeUtil}.
+ *
+ * @author patrick
+ */
+public class TerminalSizeUtilTest {
+
+    /**
+     * Test the detection
+     */
+    @Test
+    public void testTerminalSize() {
+        TerminalSizeUtil.getInstance().setCursorPositionProbe(false);
+        TerminalSize size = TerminalSizeUtil.getInstance().getTerminalSize();
+        assertTrue(size.getColumns() > 0);
+        assertTrue(size.getLines() > 0);
+
+        // an expired size is returned while it is refreshed in the background
+        TerminalSize expired = new TerminalSize(77, 7);
+        TerminalSizeUtil.getInstance().setTimeToLive(1, TimeUnit.NANOSECONDS);
+        TerminalSizeUtil.getInstance().update(expired);
+        assertSame(expired, TerminalSizeUtil.getInstance().getTerminalSize());
+
+        // cached, the first call waits for the background refresh
+        TerminalSizeUtil.getInstance().setTimeToLive(1, TimeUnit.HOURS);
+        assertSame(TerminalSizeUtil.getInstance().getTerminalSize(), TerminalSizeUtil.getInstance().getTerminalSize());
+        assertEquals(TerminalSizeUtil.getInstance().getTerminalSize().getColumns(), TerminalSizeUtil.getInstance().getColumns());
+    }
+
+    
+    /**
+     * Test the listener
+     */
+    @Test
+    public void testListener() {
+        List<TerminalSize> changes = new ArrayList<>();
+        TerminalSizeListener listener = (oldSize, newSize) -> changes.add(newSize);
+        TerminalSizeUtil.getInstance().addTerminalSizeListener(listener);
+        try {
+            TerminalSizeUtil.getInstance().update(new TerminalSize(100, 30));
+            TerminalSizeUtil.getInstance().update(new TerminalSize(120, 30));
+            TerminalSizeUtil.getInstance().update(new TerminalSize(120, 30));
+            assertEquals(new TerminalSize(120, 30), changes.get(changes.size() - 1));
+            assertEquals(120, TerminalSizeUtil.getInstance().getColumns());
+            assertTrue(changes.size() >= 1 && changes.size() <= 2);
+        } finally {
+            TerminalSizeUtil.getInstance().removeTerminalSizeListener(listener);
+            TerminalSizeUtil.getInstance().setTimeToLive(1, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * TerminalUtilTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test the {@link TerminalUtil}.
+ *
+ * @author patrick
+ */
+public class TerminalUtilTest {
+
+    /**
+     * Test the terminal devices
+     */
+    @Test
+    public void testTerminalDevice() {
+        assertTrue(TerminalUtil.isTerminalDevice("/dev/pts/0"));
+        assertTrue(TerminalUtil.isTerminalDevice("/dev/tty1"));
+        assertTrue(TerminalUtil.isTerminalDevice("/dev/console"));
+        assertFalse(TerminalUtil.isTerminalDevice("/tmp/build.log"));
+        assertFalse(TerminalUtil.isTerminalDevice("pipe:[12345]"));
+        assertFalse(TerminalUtil.isTerminalDevice("/dev/null"));
+        assertFalse(TerminalUtil.isTerminalDevice(null));
+    }
+
+    
+    /**
+     * Test the detection per stream
+     */
+    @Test
+    public void testStreamTTY() {
+        TerminalUtil terminalUtil = TerminalUtil.getInstance();
+        assertEquals(terminalUtil.isTTY(TerminalUtil.STDOUT), terminalUtil.isTTY(TerminalUtil.STDOUT));
+        assertFalse(terminalUtil.isTTY(-1));
+
+        Assumptions.assumeTrue(Files.isDirectory(Paths.get("/proc/self/fd")));
+        assertFalse(terminalUtil.isTTY(Integer.MAX_VALUE));
+    }
+}
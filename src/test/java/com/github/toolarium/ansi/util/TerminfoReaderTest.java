@@ -0,0 +1,152 @@
+/*
+ * TerminfoReaderTest.java
+ *
+ * Copyright by toolarium, all rights reserved.
+ */
+package com.github.toolarium.ansi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.toolarium.ansi.AnsiColor;
+import com.github.toolarium.ansi.AnsiFragment;
+import com.github.toolarium.ansi.AnsiStringBuilder;
+import com.github.toolarium.ansi.AnsiStyle;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Test the {@link TerminfoReader}.
+ *
+ * @author patrick
+ */
+public class TerminfoReaderTest {
+
+    /**
+     * Test to read a compiled entry
+     *
+     * @param directory the temp directory
+     * @throws IOException In case of an error
+     */
+    @Test
+    public void testRead(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("test-term");
+        Files.write(file, createEntry());
+
+        TerminalCapabilities capabilities = TerminfoReader.getInstance().read(file);
+        assertEquals("test-term", capabilities.getName());
+        assertEquals("Test terminal", capabilities.getNames().get(1));
+        assertEquals(256, capabilities.getMaxColors());
+        assertEquals(-1, capabilities.getNumber("pairs"));
+        assertTrue(capabilities.hasFlag("bce"));
+        assertFalse(capabilities.hasFlag("am"));
+        assertTrue(capabilities.supportsItalic());
+        assertEquals("\u001B[23m", capabilities.getString(TerminalCapabilities.EXIT_ITALICS_MODE));
+        assertTrue(capabilities.supportsStrikeThrough());
+        assertEquals("\u001B[9m", capabilities.getString(TerminalCapabilities.ENTER_STRIKE_THROUGH_MODE));
+        assertTrue(capabilities.supportsTrueColor());
+    }
+
+    
+    /**
+     * Test invalid entries
+     */
+    @Test
+    public void testInvalid() {
+        assertThrows(IOException.class, () -> TerminfoReader.getInstance().parse(ByteBuffer.wrap(new byte[12])));
+        assertNull(TerminfoReader.getInstance().read("not-existing-terminal"));
+        assertNull(TerminfoReader.getInstance().read("../test"));
+        assertNull(TerminfoReader.getInstance().read((String) null));
+    }
+
+    
+    /**
+     * Test the builder which skips unsupported sequences
+     *
+     * @throws IOException In case of an error
+     */
+    @Test
+    public void testBuilder() throws IOException {
+        TerminalCapabilities capabilities = TerminfoReader.getInstance().parse(ByteBuffer.wrap(createEntry()));
+        AnsiStringBuilder builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).setTerminalCapabilities(capabilities);
+        assertEquals("\u001B[3mtext\u001B[23m", builder.italic("text").toString());
+
+        TerminalCapabilities noCapabilities = new TerminalCapabilities(List.of("dumb"), Map.of(), Map.of(), Map.of());
+        builder = new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).setTerminalCapabilities(noCapabilities);
+        assertEquals("text", builder.italic("text").color8(12, "").color24(255, 0, 0, "").toString());
+
+        AnsiStyle style = AnsiStyle.NONE.italic().bold().foreground24(255, 0, 0);
+        assertEquals("\u001B[1mtext\u001B[22m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).setTerminalCapabilities(noCapabilities).style(style, "text").toString());
+        assertEquals("\u001B[1mtext\u001B[22m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).setTerminalCapabilities(noCapabilities).append(AnsiFragment.of(style, "text")).toString());
+        assertEquals("\u001B[1;3;38;2;255;0;0mtext\u001B[22;23;39m", new AnsiStringBuilder().setAnsiColor(AnsiColor.ON).setTerminalCapabilities(capabilities).style(style, "text").toString());
+    }
+
+    
+    /**
+     * Create a compiled entry in the legacy format with an extended section
+     *
+     * @return the entry
+     */
+    private byte[] createEntry() {
+        byte[] names = "test-term|Test terminal\0".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] stringTable = "\u001B[3m\0\u001B[23m\0".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] extendedStringTable = "\u001B[9m\0Tc\0smxx\0".getBytes(StandardCharsets.ISO_8859_1);
+        int booleanCount = 29;
+        int numberCount = 14;
+        int stringCount = 322;
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) 0432).putShort((short) names.length).putShort((short) booleanCount)
+              .putShort((short) numberCount).putShort((short) stringCount).putShort((short) stringTable.length);
+        buffer.put(names);
+        for (int i = 0; i < booleanCount; i++) {
+            buffer.put((byte) (i == 28 ? 1 : 0));
+        }
+        align(buffer);
+        for (int i = 0; i < numberCount; i++) {
+            buffer.putShort((short) (i == 13 ? 256 : -1));
+        }
+        for (int i = 0; i < stringCount; i++) {
+            buffer.putShort((short) (i == 311 ? 0 : (i == 321 ? 5 : -1)));
+        }
+        buffer.put(stringTable);
+        align(buffer);
+
+        // extended section: Tc (boolean) and smxx (string)
+        buffer.putShort((short) 1).putShort((short) 0).putShort((short) 1).putShort((short) 3).putShort((short) extendedStringTable.length);
+        buffer.put((byte) 1);
+        align(buffer);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0).putShort((short) 3);
+        buffer.put(extendedStringTable);
+
+        byte[] result = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(result);
+        return result;
+    }
+
+    
+    /**
+     * Align to an even boundary
+     *
+     * @param buffer the buffer
+     */
+    private void align(ByteBuffer buffer) {
+        if ((buffer.position() & 1) != 0) {
+            buffer.put((byte) 0);
+        }
+    }
+}